@@ -0,0 +1,76 @@
+package de.ddm.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates TPC-H-like data for the benchmarks: a key column, numbers, decimals, dates, flags and comments whose numbers
+ * of distinct values scale with the given distinct fraction, so that deduplication and encoding work on realistic ratios.
+ */
+final class BenchmarkData {
+
+	static final int NUM_COLUMNS = 8;
+
+	private static final String[] FLAGS = {"A", "F", "N", "O", "R"};
+	private static final String[] WORDS = {"furiously", "regular", "deposits", "sleep", "carefully", "final", "packages",
+			"blithely", "ironic", "accounts", "quickly", "express", "requests", "haggle", "pending", "theodolites"};
+
+	private BenchmarkData() {
+	}
+
+	static String[] row(Random random, int index, double distinctFraction) {
+		int distinct = 1 + (int) (index * distinctFraction);
+		int key = random.nextInt(distinct);
+		return new String[]{
+				String.valueOf(index),
+				String.valueOf(key),
+				String.valueOf(1 + random.nextInt(50)),
+				String.format("%d.%02d", 900 + key % 100000, key % 100),
+				String.format("199%d-%02d-%02d", key % 7 + 2, key % 12 + 1, key % 28 + 1),
+				FLAGS[random.nextInt(FLAGS.length)],
+				"Customer#" + String.format("%09d", key),
+				WORDS[key % WORDS.length] + " " + WORDS[(key / WORDS.length) % WORDS.length] + " " + Integer.toString(key, 36)
+		};
+	}
+
+	static List<List<String[]>> batches(long seed, int numRows, int batchSize, double distinctFraction) {
+		Random random = new Random(seed);
+		List<List<String[]>> batches = new ArrayList<>();
+		List<String[]> batch = new ArrayList<>(batchSize);
+		for (int i = 0; i < numRows; i++) {
+			batch.add(row(random, i, distinctFraction));
+			if (batch.size() == batchSize) {
+				batches.add(batch);
+				batch = new ArrayList<>(batchSize);
+			}
+		}
+		if (!batch.isEmpty())
+			batches.add(batch);
+		return batches;
+	}
+
+	/**
+	 * @return a sorted column of distinct ids with gaps, as the dictionary encoding produces them
+	 */
+	static int[] sortedColumn(Random random, int size) {
+		int[] column = new int[size];
+		int value = 0;
+		for (int i = 0; i < size; i++) {
+			value += 1 + random.nextInt(4);
+			column[i] = value;
+		}
+		return column;
+	}
+
+	static List<String[]> distinctValues(Random random, int numColumns, int valuesPerColumn) {
+		List<String[]> columns = new ArrayList<>(numColumns);
+		for (int column = 0; column < numColumns; column++) {
+			String[] values = new String[valuesPerColumn];
+			for (int i = 0; i < valuesPerColumn; i++)
+				values[i] = row(random, i, 1.0)[1 + column % (NUM_COLUMNS - 1)] + "#" + i;
+			columns.add(values);
+		}
+		return columns;
+	}
+}
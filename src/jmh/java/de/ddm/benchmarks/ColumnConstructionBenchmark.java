@@ -0,0 +1,100 @@
+package de.ddm.benchmarks;
+
+import de.ddm.actors.profiling.ColumnBuilder;
+import de.ddm.singletons.DomainConfigurationSingleton;
+import de.ddm.structures.ColumnStore;
+import de.ddm.structures.ValueRunStore;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the column sets of one input file: the ColumnBuilder collects the distinct values of every column from the
+ * reader's batches, and the DependencyMiner encodes them into sorted columns of the column store through a merge of their
+ * sorted value runs. The hash dictionary that the miner used before serves as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ColumnConstructionBenchmark {
+
+	@Param({"100000", "1000000"})
+	public int rows;
+
+	@Param({"0.01", "0.5"})
+	public double distinctFraction;
+
+	private List<List<String[]>> batches;
+	private List<String[]> distinctValues;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.batches = BenchmarkData.batches(42, this.rows, DomainConfigurationSingleton.get().getInputReaderBatchSize(), this.distinctFraction);
+		this.distinctValues = this.collect();
+	}
+
+	private List<String[]> collect() {
+		List<ObjectOpenHashSet<String>> columns = new ArrayList<>();
+		for (List<String[]> batch : this.batches)
+			ColumnBuilder.collect(columns, batch);
+		List<String[]> distinctValues = new ArrayList<>(columns.size());
+		for (ObjectOpenHashSet<String> column : columns)
+			distinctValues.add(column.toArray(new String[0]));
+		return distinctValues;
+	}
+
+	@Benchmark
+	public List<String[]> collectDistinctValues() {
+		return this.collect();
+	}
+
+	@Benchmark
+	public ColumnStore encodeColumns() throws IOException {
+		File spillParent = new File(System.getProperty("java.io.tmpdir"));
+		try (ValueRunStore runs = new ValueRunStore(Long.MAX_VALUE, spillParent); ColumnStore columns = new ColumnStore(Long.MAX_VALUE, spillParent)) {
+			int[] runIds = new int[this.distinctValues.size()];
+			int[] sizes = new int[runIds.length];
+			for (int column = 0; column < runIds.length; column++) {
+				runIds[column] = runs.add(this.distinctValues.get(column).clone());
+				sizes[column] = runs.size(runIds[column]);
+			}
+			ColumnStore.ColumnWriter writer = columns.addColumns(sizes, 0);
+			runs.encode(runIds, writer);
+			writer.close();
+			return columns;
+		}
+	}
+
+	@Benchmark
+	public ColumnStore encodeColumnsWithDictionary() throws IOException {
+		ValueDictionary dictionary = new ValueDictionary();
+		try (ColumnStore columns = new ColumnStore(Long.MAX_VALUE, new File(System.getProperty("java.io.tmpdir")))) {
+			for (String[] values : this.distinctValues) {
+				int[] encoded = new int[values.length];
+				for (int i = 0; i < values.length; i++)
+					encoded[i] = dictionary.encode(values[i]);
+				columns.add(encoded);
+			}
+			return columns;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package de.ddm.benchmarks;
+
+import de.ddm.algorithms.ContainmentCheck;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks a dependent column against a batch of referenced columns, as the DependencyWorker does for every task.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContainmentCheckBenchmark {
+
+	private static final int REFERENCED_COLUMNS = 16;	// One task of the default task batch size
+
+	@Param({"SORT_MERGE", "HASH"})
+	public ContainmentCheck check;
+
+	@Param({"1000", "100000"})
+	public int dependentSize;
+
+	@Param({"4"})
+	public int referencedFactor;				// How many times larger than the dependent column each referenced column is
+
+	@Param({"0.0", "0.5", "1.0"})
+	public double containedFraction;			// The fraction of referenced columns that actually contain the dependent column
+
+	private int[][] columns;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		int referencedSize = this.dependentSize * this.referencedFactor;
+		this.columns = new int[1 + REFERENCED_COLUMNS][];
+		for (int i = 1; i <= REFERENCED_COLUMNS; i++)
+			this.columns[i] = BenchmarkData.sortedColumn(random, referencedSize);
+
+		// The dependent column is a sample of the first referenced column; non-contained candidates miss one late value.
+		int[] source = this.columns[1];
+		int[] dependent = new int[this.dependentSize];
+		for (int i = 0; i < this.dependentSize; i++)
+			dependent[i] = source[(int) ((long) i * source.length / this.dependentSize)];
+		this.columns[0] = dependent;
+		int contained = (int) Math.round(this.containedFraction * REFERENCED_COLUMNS);
+		for (int i = 1; i <= REFERENCED_COLUMNS; i++) {
+			int[] referenced = i == 1 ? source.clone() : this.columns[i];
+			if (i <= contained) {
+				// Contained columns hold all dependent values in between values of their own.
+				int[] merged = Arrays.copyOf(referenced, referenced.length + dependent.length);
+				System.arraycopy(dependent, 0, merged, referenced.length, dependent.length);
+				this.columns[i] = Arrays.stream(merged).distinct().sorted().toArray();
+			} else {
+				int missing = dependent[dependent.length * 9 / 10];
+				this.columns[i] = Arrays.stream(referenced).filter(value -> value != missing).toArray();
+			}
+		}
+	}
+
+	@Benchmark
+	public int checkTask() {
+		int included = 0;
+		for (int i = 1; i < this.columns.length; i++)
+			if (this.check.isContained(this.columns[0], this.columns[i]))
+				included++;
+		return included;
+	}
+}
@@ -0,0 +1,119 @@
+package de.ddm.benchmarks;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import de.ddm.singletons.DomainConfigurationSingleton;
+import de.ddm.singletons.InputConfigurationSingleton;
+import de.ddm.structures.MappedCSVReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a generated CSV file in batches, as the InputReader does for every ReadBatchMessage, with the memory-mapped
+ * reader that the InputReader uses and with the sequential opencsv reader that it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InputReaderBenchmark {
+
+	@Param({"100000", "1000000"})
+	public int rows;
+
+	public enum Reader {
+		MAPPED,
+		OPENCSV
+	}
+
+	@Param({"MAPPED", "OPENCSV"})
+	public Reader reader;
+
+	@Param({"1", "4"})
+	public int parallelism;					// The chunks that the mapped reader parses at once; opencsv reads sequentially
+
+	private interface LineSource {
+		String[] readNext() throws IOException, CsvValidationException;
+	}
+
+	private File inputFile;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.inputFile = File.createTempFile("ddm-benchmark", ".csv");
+		Random random = new Random(42);
+		try (BufferedWriter writer = Files.newBufferedWriter(this.inputFile.toPath(), StandardCharsets.UTF_8)) {
+			writer.write("L_ORDERKEY;L_PARTKEY;L_QUANTITY;L_EXTENDEDPRICE;L_SHIPDATE;L_RETURNFLAG;L_CUSTOMER;L_COMMENT");
+			writer.newLine();
+			for (int i = 0; i < this.rows; i++) {
+				String[] row = BenchmarkData.row(random, i, 0.25);
+				// Every fourth comment is quoted and contains a separator, as free text in the TPC-H files does.
+				if (i % 4 == 0)
+					row[BenchmarkData.NUM_COLUMNS - 1] = "\"" + row[BenchmarkData.NUM_COLUMNS - 1] + ";" + i + "\"";
+				writer.write(String.join(";", row));
+				writer.newLine();
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.inputFile.delete();
+	}
+
+	@Benchmark
+	public int parseBatches(Blackhole blackhole) throws IOException, CsvValidationException {
+		if (this.reader == Reader.OPENCSV) {
+			try (CSVReader reader = InputConfigurationSingleton.get().createCSVReader(this.inputFile)) {
+				return this.parseBatches(reader::readNext, blackhole);
+			}
+		}
+		try (MappedCSVReader reader = InputConfigurationSingleton.get().createMappedCSVReader(this.inputFile,
+				DomainConfigurationSingleton.get().getInputReaderChunkSize(), this.parallelism)) {
+			return this.parseBatches(reader::readNext, blackhole);
+		}
+	}
+
+	private int parseBatches(LineSource reader, Blackhole blackhole) throws IOException, CsvValidationException {
+		int batchSize = DomainConfigurationSingleton.get().getInputReaderBatchSize();
+		int numRows = 0;
+		reader.readNext();
+		while (true) {
+			List<String[]> batch = new ArrayList<>(batchSize);
+			for (int i = 0; i < batchSize; i++) {
+				String[] line = reader.readNext();
+				if (line == null)
+					break;
+				batch.add(line);
+			}
+			if (batch.isEmpty())
+				return numRows;
+			numRows += batch.size();
+			blackhole.consume(batch);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package de.ddm.benchmarks;
+
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.ActorRefResolver;
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.Behavior;
+import akka.actor.typed.javadsl.Behaviors;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.actors.profiling.DependencyMiner;
+import de.ddm.serialization.CompressionCodec;
+import de.ddm.singletons.SystemConfigurationSingleton;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Transfers the column sets of one input file between two ActorSystems in the same JVM via their LargeMessageProxies,
+ * as the master does when it ships columns to a remote worker. The transfer goes over the loopback interface, so it
+ * measures serialization, chunking, compression and the acknowledgement protocol rather than the network. Chunk and window
+ * sizes are swept, because their best values depend on the latency of the link.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LargeMessageProxyBenchmark {
+
+	private static final long TRANSFER_TIMEOUT_SECONDS = 60;
+
+	@Param({"100000"})
+	public int valuesPerColumn;
+
+	@Param({"NONE", "LZ4"})
+	public CompressionCodec codec;
+
+	@Param({"50000", "100000", "500000"})
+	public int chunkSize;						// The bytes per chunk, i.e. the proxy's maximum message size
+
+	@Param({"1", "4", "16"})
+	public int windowSize;						// The chunks that the sender may have in flight before it waits for an acknowledgement
+
+	private ActorSystem<Void> senderSystem;
+	private ActorSystem<Void> receiverSystem;
+	private ActorRef<LargeMessageProxy.Message> senderProxy;
+	private ActorRef<LargeMessageProxy.Message> receiverProxy;
+	private final BlockingQueue<LargeMessageProxy.LargeMessage> received = new LinkedBlockingQueue<>();
+	private DependencyMiner.ColumnsMessage message;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		LargeMessageProxy.COMPRESSION_CODEC = this.codec;
+		SystemConfigurationSingleton.get().setAdaptiveCompression(false);
+		LargeMessageProxy.MAX_MESSAGE_SIZE = this.chunkSize;
+		LargeMessageProxy.WINDOW_SIZE = this.windowSize;
+
+		Config config = ConfigFactory
+				.parseString("akka.actor.provider = remote\nakka.loglevel = WARNING\n" +
+						"akka.remote.artery.canonical.port = 0\n" +
+						"akka.remote.artery.large-message-destinations = [\"/user/" + LargeMessageProxy.DEFAULT_NAME + "\"]")
+				.withFallback(ConfigFactory.load("application"));
+
+		CompletableFuture<ActorRef<LargeMessageProxy.Message>> senderProxy = new CompletableFuture<>();
+		CompletableFuture<ActorRef<LargeMessageProxy.Message>> receiverProxy = new CompletableFuture<>();
+		this.senderSystem = ActorSystem.create(this.guardian(senderProxy, Behaviors.ignore()), "Sender", config);
+		this.receiverSystem = ActorSystem.create(this.guardian(receiverProxy, Behaviors.receiveMessage(message -> {
+			this.received.add(message);
+			return Behaviors.same();
+		})), "Receiver", config);
+		this.senderProxy = senderProxy.get(TRANSFER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+		// Resolve the receiver's proxy in the sender's system, so that the sender addresses it via its remote address.
+		String receiverProxyPath = ActorRefResolver.get(this.receiverSystem).toSerializationFormat(receiverProxy.get(TRANSFER_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		this.receiverProxy = ActorRefResolver.get(this.senderSystem).resolveActorRef(receiverProxyPath);
+
+		this.message = new DependencyMiner.ColumnsMessage(0, BenchmarkData.distinctValues(new Random(42), BenchmarkData.NUM_COLUMNS, this.valuesPerColumn));
+
+		// Establishes the association between both systems outside of the measurement.
+		this.transfer();
+	}
+
+	private Behavior<Void> guardian(CompletableFuture<ActorRef<LargeMessageProxy.Message>> proxy, Behavior<LargeMessageProxy.LargeMessage> parent) {
+		return Behaviors.setup(context -> {
+			ActorRef<LargeMessageProxy.LargeMessage> parentRef = context.spawn(parent, "parent");
+			proxy.complete(context.spawn(LargeMessageProxy.create(parentRef), LargeMessageProxy.DEFAULT_NAME));
+			return Behaviors.empty();
+		});
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.senderSystem.terminate();
+		this.receiverSystem.terminate();
+		this.senderSystem.getWhenTerminated().toCompletableFuture().join();
+		this.receiverSystem.getWhenTerminated().toCompletableFuture().join();
+	}
+
+	@Benchmark
+	public LargeMessageProxy.LargeMessage transfer() throws InterruptedException, TimeoutException {
+		this.senderProxy.tell(new LargeMessageProxy.SendMessage(this.message, this.receiverProxy));
+		LargeMessageProxy.LargeMessage message = this.received.poll(TRANSFER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		if (message == null)
+			throw new TimeoutException("The receiver's proxy did not deliver the message within " + TRANSFER_TIMEOUT_SECONDS + "s");
+		return message;
+	}
+}
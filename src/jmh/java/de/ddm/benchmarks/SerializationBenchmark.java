@@ -0,0 +1,146 @@
+package de.ddm.benchmarks;
+
+import akka.actor.ExtendedActorSystem;
+import akka.actor.typed.ActorSystem;
+import akka.actor.typed.javadsl.Behaviors;
+import akka.serialization.Serialization;
+import akka.serialization.Serialization$;
+import akka.serialization.SerializationExtension;
+import akka.serialization.Serializer;
+import akka.serialization.Serializers;
+import com.typesafe.config.ConfigFactory;
+import de.ddm.actors.Worker;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.actors.profiling.ColumnBuilder;
+import de.ddm.actors.profiling.DependencyMiner;
+import de.ddm.actors.profiling.DependencyWorker;
+import de.ddm.serialization.HotPathSerializer;
+import de.ddm.singletons.DomainConfigurationSingleton;
+import de.ddm.structures.Task;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trips the hot-path messages through the serializer that Akka binds them to, the HotPathSerializer, and through
+ * jackson-cbor, which all other messages use, for comparison. Next to the time, every run reports the serialized size of
+ * the message as the secondary result serializedBytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SerializationBenchmark {
+
+	@Param({"hot-path", "jackson-cbor"})
+	public String serializer;					// The name of a serializer in akka.actor.serializers; hot-path uses the message's binding
+
+	@Param({"BatchMessage", "ColumnsMessage", "ColumnMessage", "TaskMessage", "CompletionMessage", "BytesMessage"})
+	public String message;
+
+	@Param({"10000"})
+	public int size;							// Rows of a batch, values per column, ids of an encoded column or bytes of a chunk; tasks always have the default batch size
+
+	private ActorSystem<Void> system;
+	private Serialization serialization;
+	private ExtendedActorSystem classicSystem;
+	private Serializer selectedSerializer;
+	private Object selectedMessage;
+	private String manifest;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.system = ActorSystem.create(Behaviors.empty(), "SerializationBenchmark", ConfigFactory
+				.parseString("akka.actor.provider = local\nakka.loglevel = WARNING\n" +
+						// Lets jackson-cbor (de)serialize the hot-path messages, although they are bound to the HotPathSerializer.
+						"akka.serialization.jackson.allowed-class-prefix = [\"de.ddm\"]")
+				.withFallback(ConfigFactory.load("application")));
+
+		Random random = new Random(42);
+		int[] referencedColumnIds = new int[DomainConfigurationSingleton.get().getTaskBatchSize()];
+		for (int i = 0; i < referencedColumnIds.length; i++)
+			referencedColumnIds[i] = random.nextInt(1000);
+		switch (this.message) {
+			case "BatchMessage":
+				this.selectedMessage = new ColumnBuilder.BatchMessage(0, BenchmarkData.batches(42, this.size, this.size, 0.5).get(0));
+				break;
+			case "ColumnsMessage":
+				this.selectedMessage = new DependencyMiner.ColumnsMessage(0, BenchmarkData.distinctValues(random, BenchmarkData.NUM_COLUMNS, this.size));
+				break;
+			case "ColumnMessage":
+				this.selectedMessage = new Worker.ColumnMessage(3, BenchmarkData.sortedColumn(random, this.size));
+				break;
+			case "TaskMessage":
+				this.selectedMessage = new DependencyWorker.TaskMessage(this.system.unsafeUpcast(), new Task(7, 3, referencedColumnIds, 50000, 800000));
+				break;
+			case "CompletionMessage":
+				long[] results = new long[(referencedColumnIds.length + Long.SIZE - 1) / Long.SIZE];
+				for (int i = 0; i < results.length; i++)
+					results[i] = random.nextLong();
+				this.selectedMessage = new DependencyMiner.CompletionMessage(this.system.unsafeUpcast(), 7, 3, referencedColumnIds, results, 123456789L);
+				break;
+			default:
+				byte[] bytes = new byte[this.size];
+				random.nextBytes(bytes);
+				this.selectedMessage = new LargeMessageProxy.BytesMessage(bytes, 0, bytes.length, 0, 1, 2);
+		}
+
+		this.serialization = SerializationExtension.get(this.system);
+		this.classicSystem = (ExtendedActorSystem) this.system.classicSystem();
+		this.selectedSerializer = this.serializer.equals("hot-path")
+				? this.serialization.findSerializerFor(this.selectedMessage)
+				: this.serialization.serializerByIdentity().get(this.system.settings().config().getInt("akka.actor.serialization-identifiers." + this.serializer)).get();
+		if (this.serializer.equals("hot-path") && !(this.selectedSerializer instanceof HotPathSerializer))
+			throw new IllegalStateException(this.message + " is not bound to the HotPathSerializer");
+		this.manifest = Serializers.manifestFor(this.selectedSerializer, this.selectedMessage);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.system.terminate();
+	}
+
+	// Serializers resolve ActorRefs against the transport information that Akka's remoting sets for every message it sends.
+	private byte[] toBinary() {
+		return Serialization$.MODULE$.withTransportInformation(this.classicSystem, () -> this.selectedSerializer.toBinary(this.selectedMessage));
+	}
+
+	/**
+	 * The size of the last serialized message, which JMH reports per iteration next to the time.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class SerializedSize {
+		public long serializedBytes;
+	}
+
+	@Benchmark
+	public byte[] serialize(SerializedSize size) {
+		byte[] bytes = this.toBinary();
+		size.serializedBytes = bytes.length;
+		return bytes;
+	}
+
+	@Benchmark
+	public Object roundTrip(SerializedSize size) {
+		byte[] bytes = this.toBinary();
+		size.serializedBytes = bytes.length;
+		return this.serialization.deserialize(bytes, this.selectedSerializer.identifier(), this.manifest).get();
+	}
+}
@@ -0,0 +1,37 @@
+package de.ddm.benchmarks;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+/**
+ * Maps every distinct cell value to a dense int id, so that columns can be stored and compared as primitive int arrays.
+ * The ids carry no order semantics; they are only meaningful for comparisons among columns encoded with the same dictionary.
+ * The miner encoded its columns this way before it merged sorted value runs, so the dictionary remains as a baseline.
+ */
+class ValueDictionary {
+
+	public static final int NO_ID = -1;
+
+	private final Object2IntOpenHashMap<String> ids = new Object2IntOpenHashMap<>();
+
+	public ValueDictionary() {
+		this.ids.defaultReturnValue(NO_ID);
+	}
+
+	public int encode(String value) {
+		int id = this.ids.getInt(value);
+		if (id == NO_ID) {
+			id = this.ids.size();
+			this.ids.put(value, id);
+		}
+		return id;
+	}
+
+	public int size() {
+		return this.ids.size();
+	}
+
+	public void clear() {
+		this.ids.clear();
+		this.ids.trim();
+	}
+}
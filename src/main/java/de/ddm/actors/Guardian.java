@@ -5,6 +5,7 @@ import akka.actor.typed.Behavior;
 import akka.actor.typed.javadsl.*;
 import akka.actor.typed.receptionist.Receptionist;
 import akka.actor.typed.receptionist.ServiceKey;
+import de.ddm.actors.patterns.MetricsReporter;
 import de.ddm.actors.patterns.Reaper;
 import de.ddm.configuration.SystemConfiguration;
 import de.ddm.serialization.AkkaSerializable;
@@ -66,6 +67,7 @@ public class Guardian extends AbstractBehavior<Guardian.Message> {
 		this.timers = timers;
 
 		this.reaper = context.spawn(Reaper.create(), Reaper.DEFAULT_NAME);
+		this.metricsReporter = context.spawn(MetricsReporter.create(), MetricsReporter.DEFAULT_NAME);
 		this.master = this.isMaster() ? context.spawn(Master.create(), Master.DEFAULT_NAME) : null;
 		this.worker = context.spawn(Worker.create(), Worker.DEFAULT_NAME);
 
@@ -88,6 +90,7 @@ public class Guardian extends AbstractBehavior<Guardian.Message> {
 	private Set<ActorRef<Message>> userGuardians = new HashSet<>();
 
 	private final ActorRef<Reaper.Message> reaper;
+	private final ActorRef<MetricsReporter.Message> metricsReporter;
 	private ActorRef<Master.Message> master;
 	private ActorRef<Worker.Message> worker;
 
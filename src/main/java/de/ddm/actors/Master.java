@@ -2,7 +2,7 @@ package de.ddm.actors;
 
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
-import akka.actor.typed.DispatcherSelector;
+import akka.actor.typed.MailboxSelector;
 import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
@@ -45,7 +45,9 @@ public class Master extends AbstractBehavior<Master.Message> {
 		super(context);
 		Reaper.watchWithDefaultReaper(this.getContext().getSelf());
 
-		this.dependencyMiner = context.spawn(DependencyMiner.create(), DependencyMiner.DEFAULT_NAME, DispatcherSelector.fromConfig("akka.master-pinned-dispatcher"));
+		// The miner's mailbox publishes its depth, which shows whether the master keeps up with the workers.
+		this.dependencyMiner = context.spawn(DependencyMiner.create(), DependencyMiner.DEFAULT_NAME,
+				MailboxSelector.fromConfig("akka.instrumented-mailbox").withDispatcherFromConfig("akka.master-pinned-dispatcher"));
 	}
 
 	/////////////////
@@ -7,14 +7,24 @@ import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
+import akka.actor.typed.javadsl.TimerScheduler;
+import akka.actor.typed.receptionist.Receptionist;
+import de.ddm.actors.patterns.LargeMessageProxy;
 import de.ddm.actors.patterns.Reaper;
+import de.ddm.actors.profiling.DependencyMiner;
 import de.ddm.actors.profiling.DependencyWorker;
+import de.ddm.actors.profiling.InputReader;
+import de.ddm.configuration.ParserConfiguration;
 import de.ddm.serialization.AkkaSerializable;
+import de.ddm.singletons.DomainConfigurationSingleton;
 import de.ddm.singletons.SystemConfigurationSingleton;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.File;
+import java.time.Duration;
+import java.util.*;
 
 public class Worker extends AbstractBehavior<Worker.Message> {
 
@@ -22,7 +32,7 @@ public class Worker extends AbstractBehavior<Worker.Message> {
 	// Actor Messages //
 	////////////////////
 
-	public interface Message extends AkkaSerializable {
+	public interface Message extends AkkaSerializable, LargeMessageProxy.LargeMessage {
 	}
 
 	@NoArgsConstructor
@@ -30,6 +40,67 @@ public class Worker extends AbstractBehavior<Worker.Message> {
 		private static final long serialVersionUID = 7516129288777469221L;
 	}
 
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class ColumnsRequestMessage implements Message {
+		private static final long serialVersionUID = -1329553024807152866L;
+		ActorRef<DependencyWorker.Message> replyTo;
+		ActorRef<DependencyMiner.Message> dependencyMiner;
+		int requestId;		// Echoed in the reply, so that workers can fetch the columns of several tasks at once
+		int[] columnIds;
+	}
+
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class ColumnMessage implements Message, LargeMessageProxy.ImmutableLargeMessage {
+		private static final long serialVersionUID = 8710262351745283019L;
+		int columnId;
+		int[] column;
+	}
+
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class ReceptionistListingMessage implements Message {
+		private static final long serialVersionUID = 3528114472963102871L;
+		Receptionist.Listing listing;
+	}
+
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class RegistrationRequestMessage implements Message {
+		private static final long serialVersionUID = 4417390652384126083L;
+		ActorRef<DependencyMiner.Message> dependencyMiner;	// A miner that no longer knows the dependency workers of this node
+	}
+
+	@NoArgsConstructor
+	public static class RenewLeasesMessage implements Message {
+		private static final long serialVersionUID = -7034189286124576503L;
+	}
+
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class FetchTimeoutMessage implements Message {
+		private static final long serialVersionUID = 5260137986311472205L;
+		int columnId;
+	}
+
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class ReadFileMessage implements Message {
+		private static final long serialVersionUID = -2618045339147220315L;
+		ActorRef<DependencyMiner.Message> dependencyMiner;
+		ActorRef<LargeMessageProxy.Message> dependencyMinerProxy;
+		int fileId;
+		String filePath;	// The file must be reachable under the same path as on the master
+		ParserConfiguration parserConfiguration;	// The master's parser settings, which apply to this file only
+	}
+
 	////////////////////////
 	// Actor Construction //
 	////////////////////////
@@ -37,26 +108,71 @@ public class Worker extends AbstractBehavior<Worker.Message> {
 	public static final String DEFAULT_NAME = "worker";
 
 	public static Behavior<Message> create() {
-		return Behaviors.setup(Worker::new);
+		return Behaviors.setup(
+				context -> Behaviors.withTimers(timers -> new Worker(context, timers)));
 	}
 
-	private Worker(ActorContext<Message> context) {
+	private Worker(ActorContext<Message> context, TimerScheduler<Message> timers) {
 		super(context);
+		this.timers = timers;
 		Reaper.watchWithDefaultReaper(this.getContext().getSelf());
 
+		final ActorRef<Receptionist.Listing> listingResponseAdapter = context.messageAdapter(Receptionist.Listing.class, ReceptionistListingMessage::new);
+		context.getSystem().receptionist().tell(Receptionist.subscribe(DependencyMiner.dependencyMinerService, listingResponseAdapter));
+
+		// The node renews the task leases of its dependency workers, because they cannot answer while they check a task.
+		long leaseTimeout = SystemConfigurationSingleton.get().getLeaseTimeout();
+		timers.startTimerAtFixedRate("LeaseRenewal", new RenewLeasesMessage(), Duration.ofMillis(leaseTimeout / 3), Duration.ofMillis(leaseTimeout / 3));
+
+		this.largeMessageProxy = context.spawn(LargeMessageProxy.create(this.getContext().getSelf().unsafeUpcast()), LargeMessageProxy.DEFAULT_NAME);
+
 		final int numWorkers = SystemConfigurationSingleton.get().getNumWorkers();
 
 		this.workers = new ArrayList<>(numWorkers);
 		for (int id = 0; id < numWorkers; id++)
-			this.workers.add(context.spawn(DependencyWorker.create(), DependencyWorker.DEFAULT_NAME + "_" + id, DispatcherSelector.fromConfig("akka.worker-pool-dispatcher")));
+			this.workers.add(context.spawn(DependencyWorker.create(this.getContext().getSelf()), DependencyWorker.DEFAULT_NAME + "_" + id, DispatcherSelector.fromConfig("akka.worker-pool-dispatcher")));
 	}
 
 	/////////////////
 	// Actor State //
 	/////////////////
 
+	private final TimerScheduler<Message> timers;
+
 	final List<ActorRef<DependencyWorker.Message>> workers;
 
+	private final ActorRef<LargeMessageProxy.Message> largeMessageProxy;
+
+	private Set<ActorRef<DependencyMiner.Message>> dependencyMiners = new HashSet<>();
+
+	// Node-local LRU cache of the columns that the DependencyWorkers of this node have validated recently
+	private final LinkedHashMap<Integer, int[]> cachedColumns = new LinkedHashMap<>(16, 0.75f, true);
+	private final long cacheCapacity = DomainConfigurationSingleton.get().getWorkerColumnCacheSize();
+	private long cachedValues = 0;
+
+	private final Map<Integer, PendingFetch> pendingFetches = new HashMap<>();
+	private final long columnFetchTimeout = SystemConfigurationSingleton.get().getColumnFetchTimeout();
+
+	@AllArgsConstructor
+	private static class PendingRequest {
+		private final ActorRef<DependencyWorker.Message> replyTo;
+		private final int requestId;
+		private final int[] columnIds;
+		private final int[][] columns;
+		private int missing;
+	}
+
+	private static class PendingFetch {
+		private final ActorRef<DependencyMiner.Message> dependencyMiner;
+		private final List<PendingRequest> waiting = new ArrayList<>();
+		private long timeout;
+
+		private PendingFetch(ActorRef<DependencyMiner.Message> dependencyMiner, long timeout) {
+			this.dependencyMiner = dependencyMiner;
+			this.timeout = timeout;
+		}
+	}
+
 	////////////////////
 	// Actor Behavior //
 	////////////////////
@@ -65,9 +181,122 @@ public class Worker extends AbstractBehavior<Worker.Message> {
 	public Receive<Message> createReceive() {
 		return newReceiveBuilder()
 				.onMessage(ShutdownMessage.class, this::handle)
+				.onMessage(ColumnsRequestMessage.class, this::handle)
+				.onMessage(ColumnMessage.class, this::handle)
+				.onMessage(ReadFileMessage.class, this::handle)
+				.onMessage(ReceptionistListingMessage.class, this::handle)
+				.onMessage(RenewLeasesMessage.class, this::handle)
+				.onMessage(RegistrationRequestMessage.class, this::handle)
+				.onMessage(FetchTimeoutMessage.class, this::handle)
 				.build();
 	}
 
+	private Behavior<Message> handle(ReceptionistListingMessage message) {
+		this.dependencyMiners = message.getListing().getServiceInstances(DependencyMiner.dependencyMinerService);
+		return this;
+	}
+
+	private Behavior<Message> handle(RenewLeasesMessage message) {
+		for (ActorRef<DependencyMiner.Message> dependencyMiner : this.dependencyMiners)
+			dependencyMiner.tell(new DependencyMiner.LeaseRenewalMessage(this.getContext().getSelf(), this.workers));
+		return this;
+	}
+
+	private Behavior<Message> handle(RegistrationRequestMessage message) {
+		for (ActorRef<DependencyWorker.Message> worker : this.workers)
+			worker.tell(new DependencyWorker.RegistrationRequestMessage(message.getDependencyMiner()));
+		return this;
+	}
+
+	private Behavior<Message> handle(ReadFileMessage message) {
+		// The reader and builder parse and deduplicate the file on this node, so only its distinct values travel to the master.
+		InputReader.startReading(this.getContext(), message.getFileId(), new File(message.getFilePath()), message.getParserConfiguration(), message.getDependencyMiner(), this.largeMessageProxy, message.getDependencyMinerProxy());
+		return this;
+	}
+
+	private Behavior<Message> handle(ColumnsRequestMessage message) {
+		int[] columnIds = message.getColumnIds();
+		PendingRequest request = new PendingRequest(message.getReplyTo(), message.getRequestId(), columnIds, new int[columnIds.length][], 0);
+
+		for (int i = 0; i < columnIds.length; i++) {
+			request.columns[i] = this.cachedColumns.get(columnIds[i]);
+			if (request.columns[i] != null)
+				continue;
+
+			request.missing++;
+			// Only the first request for a column fetches it; later ones wait for the same transfer.
+			PendingFetch fetch = this.pendingFetches.get(columnIds[i]);
+			if (fetch == null) {
+				fetch = new PendingFetch(message.getDependencyMiner(), this.columnFetchTimeout);
+				this.pendingFetches.put(columnIds[i], fetch);
+				this.fetch(columnIds[i], fetch);
+			}
+			if (!fetch.waiting.contains(request))
+				fetch.waiting.add(request);
+		}
+
+		if (request.missing == 0)
+			request.replyTo.tell(new DependencyWorker.ColumnsMessage(request.requestId, request.columns));
+		return this;
+	}
+
+	private void fetch(int columnId, PendingFetch fetch) {
+		// The dependency workers wait for their columns while the node keeps renewing their leases, so a transfer that the
+		// large message proxies lose must not stall them forever: the fetch is repeated after a timeout that backs off.
+		fetch.dependencyMiner.tell(new DependencyMiner.ColumnRequestMessage(columnId, this.largeMessageProxy));
+		this.timers.startSingleTimer(fetchTimerKey(columnId), new FetchTimeoutMessage(columnId), Duration.ofMillis(fetch.timeout));
+	}
+
+	private static String fetchTimerKey(int columnId) {
+		return "ColumnFetch_" + columnId;
+	}
+
+	private Behavior<Message> handle(FetchTimeoutMessage message) {
+		PendingFetch fetch = this.pendingFetches.get(message.getColumnId());
+		if (fetch == null)
+			return this;
+
+		this.getContext().getLog().warn("Column {} did not arrive within {} ms, so it is requested again.", message.getColumnId(), fetch.timeout);
+		fetch.timeout *= 2;
+		this.fetch(message.getColumnId(), fetch);
+		return this;
+	}
+
+	private Behavior<Message> handle(ColumnMessage message) {
+		this.cache(message.getColumnId(), message.getColumn());
+
+		PendingFetch fetch = this.pendingFetches.remove(message.getColumnId());
+		if (fetch == null)
+			return this;
+		this.timers.cancel(fetchTimerKey(message.getColumnId()));
+
+		for (PendingRequest request : fetch.waiting) {
+			for (int i = 0; i < request.columnIds.length; i++) {
+				if (request.columnIds[i] == message.getColumnId() && request.columns[i] == null) {
+					request.columns[i] = message.getColumn();
+					request.missing--;
+				}
+			}
+			if (request.missing == 0)
+				request.replyTo.tell(new DependencyWorker.ColumnsMessage(request.requestId, request.columns));
+		}
+		return this;
+	}
+
+	private void cache(int columnId, int[] column) {
+		if (column.length > this.cacheCapacity)
+			return;
+
+		int[] previous = this.cachedColumns.put(columnId, column);
+		this.cachedValues += column.length - (previous == null ? 0 : previous.length);
+
+		Iterator<int[]> leastRecentlyUsed = this.cachedColumns.values().iterator();
+		while (this.cachedValues > this.cacheCapacity) {
+			this.cachedValues -= leastRecentlyUsed.next().length;
+			leastRecentlyUsed.remove();
+		}
+	}
+
 	private Behavior<Message> handle(ShutdownMessage message) {
 		// If we expect the system to still be active when the a ShutdownMessage is issued,
 		// we should propagate this ShutdownMessage to all active child actors so that they
@@ -1,21 +1,32 @@
 package de.ddm.actors.patterns;
 
+import akka.actor.Address;
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
+import akka.actor.typed.PostStop;
 import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
+import akka.serialization.ByteBufferSerializer;
 import akka.serialization.Serialization;
 import akka.serialization.SerializationExtension;
+import akka.serialization.Serializer;
 import akka.serialization.Serializers;
+import de.ddm.metrics.Metrics;
 import de.ddm.serialization.AkkaSerializable;
+import de.ddm.serialization.BufferPool;
+import de.ddm.serialization.CompressionCodec;
+import de.ddm.singletons.MetricsSingleton;
+import de.ddm.singletons.SystemConfigurationSingleton;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
-import java.util.Arrays;
+import java.io.NotSerializableException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -28,6 +39,13 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
 	public interface LargeMessage extends AkkaSerializable {
 	}
 
+	/**
+	 * Large messages whose content is never modified after sending. A proxy hands such messages to a receiver in the same
+	 * ActorSystem by reference, without serializing them; all other messages are always transferred as a serialized copy.
+	 */
+	public interface ImmutableLargeMessage extends LargeMessage {
+	}
+
 	public interface Message extends AkkaSerializable {
 	}
 
@@ -40,6 +58,14 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
 		private ActorRef<Message> receiverProxy;
 	}
 
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class HandOverMessage implements Message {
+		private static final long serialVersionUID = 4416402395183447713L;
+		private ImmutableLargeMessage message;
+	}
+
 	@Getter
 	@NoArgsConstructor
 	@AllArgsConstructor
@@ -50,6 +76,10 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
 		private int largeMessageSize;
 		private int serializerId;
 		private String manifest;
+		private int windowSize;
+		private CompressionCodec codec;
+		private int compressionLevel;
+		private int uncompressedSize;
 	}
 
 	@Getter
@@ -66,7 +96,10 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
 	@AllArgsConstructor
 	public static class BytesMessage implements Message {
 		private static final long serialVersionUID = -8435193720156121630L;
-		private byte[] bytes;
+		private byte[] bytes;        // Holds the chunk at bytesOffset; locally, this is the sender's entire buffer (the HotPathSerializer writes only the chunk)
+		private int bytesOffset;
+		private int length;
+		private int offset;          // The position of the chunk in the large message
 		private int senderTransmissionKey;
 		private int receiverTransmissionKey;
 	}
@@ -78,6 +111,7 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
 		private static final long serialVersionUID = 5992096322167014051L;
 		private int senderTransmissionKey;
 		private int receiverTransmissionKey;
+		private int receivedBytes;
 	}
 
 	////////////////////////
@@ -88,6 +122,21 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
 
 	public static int MAX_MESSAGE_SIZE = 100000;
 
+	// The number of chunks that a sender may have in flight before it waits for an acknowledgement
+	public static int WINDOW_SIZE = 8;
+
+	// The number of serialization buffers that each proxy keeps for reuse
+	public static int BUFFER_POOL_SIZE = 4;
+	// The largest buffer that a proxy keeps for reuse, in chunks of MAX_MESSAGE_SIZE; larger messages allocate their buffers anew
+	public static int BUFFER_POOL_MAX_CHUNKS = 4;
+
+	// The codec that compresses serialized messages spanning several chunks; NONE disables compression
+	public static CompressionCodec COMPRESSION_CODEC = CompressionCodec.LZ4;
+	public static int COMPRESSION_LEVEL = 1;
+
+	private static final int COMPRESSION_PROBE_INTERVAL = 16;
+	private static final double ESTIMATE_WEIGHT = 0.3;
+
 	public static Behavior<Message> create(ActorRef<LargeMessage> parent) {
 		return Behaviors.setup(context -> new LargeMessageProxy(context, parent));
 	}
@@ -96,6 +145,13 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
 		super(context);
 
 		this.parent = parent;
+		this.adaptiveCompression = SystemConfigurationSingleton.get().isAdaptiveCompression();
+
+		Metrics.Group metrics = MetricsSingleton.get().group("LargeMessageProxy", context.getSelf().path().toStringWithoutAddress());
+		this.sentBytesMeter = metrics.meter("sentBytes");
+		this.receivedBytesMeter = metrics.meter("receivedBytes");
+		this.handedOverMeter = metrics.meter("handedOverMessages");
+		this.chunkRoundTrip = metrics.histogram("chunkRoundTripMicros");
 	}
 
 	/////////////////
@@ -104,6 +160,9 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
 
 	private final ActorRef<LargeMessage> parent;
 
+	// Compress only while the measured bandwidth to the receiver, not the compression speed, limits the transfer time
+	private final boolean adaptiveCompression;
+
 	private int messageCounter = 0;
 
 	private final Map<Integer, SendState> pendingSends = new HashMap<>();
@@ -111,22 +170,57 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
 
 	private final Serialization serialization = SerializationExtension.get(this.getContext().getSystem());
 
+	private final BufferPool bufferPool = new BufferPool(BUFFER_POOL_SIZE, BUFFER_POOL_MAX_CHUNKS * MAX_MESSAGE_SIZE);
+	private int lastSerializedSize = MAX_MESSAGE_SIZE;
+	private long sentBytes = 0;
+	private long receivedBytes = 0;
+	private long handedOverMessages = 0;
+
+	private final Metrics.Meter sentBytesMeter;
+	private final Metrics.Meter receivedBytesMeter;
+	private final Metrics.Meter handedOverMeter;
+	private final Metrics.Histogram chunkRoundTrip;
+
+	// Exponential moving averages in bytes per nanosecond and compressed per uncompressed byte; negative if not yet measured.
+	// The bandwidth depends on the link to the receiver, so it is estimated per receiver address.
+	private final Map<Address, BandwidthEstimate> bandwidthEstimates = new HashMap<>();
+	private double compressionSpeedEstimate = -1;
+	private double compressionRatioEstimate = 1;
+
+	@Data
+	private static class BandwidthEstimate {
+		private double bytesPerNano = -1;
+		private int sendsSinceCompressionProbe = 0;
+	}
+
 	@Data
 	@AllArgsConstructor
 	private static class SendState {
 		private byte[] bytes;
+		private int length;
 		private int offset;
+		private int acknowledgedOffset;
+		private int windowSize;
 		private ActorRef<Message> receiverProxy;
+		private ByteBuffer pooledBuffer;
+		private long startTime;			// The send time of the first chunk, so that the handshake does not count towards the bandwidth
+		private long[] chunkSendTimes;	// The send times of the chunks in the window, indexed by chunk number modulo the window size
 	}
 
 	@Data
 	@AllArgsConstructor
 	private static class ReceiveState {
 		private byte[] bytes;
-		private int offset;
+		private int length;
+		private int receivedBytes;
+		private int chunksSinceAck;
+		private int ackInterval;
 		private ActorRef<Message> senderProxy;
 		private int serializerId;
 		private String manifest;
+		private ByteBuffer pooledBuffer;
+		private CompressionCodec codec;
+		private int uncompressedLength;
 	}
 
 	////////////////////
@@ -137,83 +231,263 @@ public class LargeMessageProxy extends AbstractBehavior<LargeMessageProxy.Messag
 	public Receive<Message> createReceive() {
 		return newReceiveBuilder()
 				.onMessage(SendMessage.class, this::handle)
+				.onMessage(HandOverMessage.class, this::handle)
 				.onMessage(ConnectMessage.class, this::handle)
 				.onMessage(ConnectAckMessage.class, this::handle)
 				.onMessage(BytesMessage.class, this::handle)
 				.onMessage(BytesAckMessage.class, this::handle)
+				.onSignal(PostStop.class, this::handle)
 				.build();
 	}
 
 	private Behavior<Message> handle(SendMessage message) {
 		LargeMessage largeMessage = message.getMessage();
 
-		byte[] bytes = this.serialization.serialize(largeMessage).get();
-		int serializerId = this.serialization.findSerializerFor(largeMessage).identifier();
-		String manifest = Serializers.manifestFor(this.serialization.findSerializerFor(largeMessage), largeMessage);
+		if (largeMessage instanceof ImmutableLargeMessage && message.getReceiverProxy().path().address().hasLocalScope()) {
+			this.handedOverMessages++;
+			this.handedOverMeter.mark(1);
+			message.getReceiverProxy().tell(new HandOverMessage((ImmutableLargeMessage) largeMessage));
+			return this;
+		}
+
+		Serializer serializer = this.serialization.findSerializerFor(largeMessage);
+		int serializerId = serializer.identifier();
+		String manifest = Serializers.manifestFor(serializer, largeMessage);
+
+		byte[] bytes;
+		int length;
+		ByteBuffer pooledBuffer = null;
+		if (serializer instanceof ByteBufferSerializer) {
+			pooledBuffer = this.serializeIntoPooledBuffer((ByteBufferSerializer) serializer, largeMessage);
+			bytes = pooledBuffer.array();
+			length = pooledBuffer.position();
+		} else {
+			bytes = this.serialization.serialize(largeMessage).get();
+			length = bytes.length;
+			this.bufferPool.recordAllocation(length);
+		}
+
+		CompressionCodec codec = CompressionCodec.NONE;
+		int uncompressedSize = length;
+		if (this.shouldCompress(length, message.getReceiverProxy().path().address())) {
+			long compressionStart = System.nanoTime();
+			byte[] compressed = COMPRESSION_CODEC.compress(bytes, length, COMPRESSION_LEVEL);
+			this.recordCompression(length, compressed.length, System.nanoTime() - compressionStart);
+			this.bufferPool.recordAllocation(compressed.length);
+
+			if (compressed.length < length) {
+				if (pooledBuffer != null)
+					this.bufferPool.release(pooledBuffer);
+				pooledBuffer = null;
+				bytes = compressed;
+				length = compressed.length;
+				codec = COMPRESSION_CODEC;
+			}
+		}
 
 		int senderTransmissionKey = this.messageCounter++;
-		this.pendingSends.put(senderTransmissionKey, new SendState(bytes, 0, message.getReceiverProxy()));
+		int windowSize = Math.max(1, WINDOW_SIZE);
+		this.pendingSends.put(senderTransmissionKey, new SendState(bytes, length, 0, 0, windowSize, message.getReceiverProxy(), pooledBuffer, 0, new long[windowSize]));
 
-		message.getReceiverProxy().tell(new ConnectMessage(senderTransmissionKey, this.getContext().getSelf(), bytes.length, serializerId, manifest));
+		message.getReceiverProxy().tell(new ConnectMessage(senderTransmissionKey, this.getContext().getSelf(), length, serializerId, manifest, windowSize, codec, COMPRESSION_LEVEL, uncompressedSize));
 		return this;
 	}
 
+	private boolean shouldCompress(int length, Address receiver) {
+		if (COMPRESSION_CODEC == CompressionCodec.NONE || length <= MAX_MESSAGE_SIZE)
+			return false;
+		if (!this.adaptiveCompression)
+			return true;
+
+		// Without estimates for both sides of the trade-off, and every now and then to refresh them, compress to measure.
+		BandwidthEstimate bandwidth = this.bandwidthEstimates.computeIfAbsent(receiver, address -> new BandwidthEstimate());
+		if (bandwidth.getBytesPerNano() < 0 || this.compressionSpeedEstimate < 0 || bandwidth.getSendsSinceCompressionProbe() + 1 >= COMPRESSION_PROBE_INTERVAL) {
+			bandwidth.setSendsSinceCompressionProbe(0);
+			return true;
+		}
+		bandwidth.setSendsSinceCompressionProbe(bandwidth.getSendsSinceCompressionProbe() + 1);
+
+		// Compression pays off if it saves more transfer time than compressing and decompressing costs; decompression is
+		// conservatively assumed to be as slow as compression.
+		double savedTransferTime = length * (1 - this.compressionRatioEstimate) / bandwidth.getBytesPerNano();
+		double codingTime = 2 * length / this.compressionSpeedEstimate;
+		return savedTransferTime > codingTime;
+	}
+
+	private void recordCompression(int uncompressedLength, int compressedLength, long duration) {
+		double speed = uncompressedLength / (double) Math.max(1, duration);
+		double ratio = compressedLength / (double) uncompressedLength;
+		this.compressionSpeedEstimate = this.compressionSpeedEstimate < 0 ? speed : (1 - ESTIMATE_WEIGHT) * this.compressionSpeedEstimate + ESTIMATE_WEIGHT * speed;
+		this.compressionRatioEstimate = (1 - ESTIMATE_WEIGHT) * this.compressionRatioEstimate + ESTIMATE_WEIGHT * Math.min(1, ratio);
+	}
+
+	private void recordTransfer(Address receiver, int length, long duration) {
+		double bytesPerNano = length / (double) Math.max(1, duration);
+		BandwidthEstimate bandwidth = this.bandwidthEstimates.computeIfAbsent(receiver, address -> new BandwidthEstimate());
+		bandwidth.setBytesPerNano(bandwidth.getBytesPerNano() < 0 ? bytesPerNano : (1 - ESTIMATE_WEIGHT) * bandwidth.getBytesPerNano() + ESTIMATE_WEIGHT * bytesPerNano);
+	}
+
+	private boolean isByteBufferSerializer(int serializerId) {
+		return this.serialization.serializerByIdentity().get(serializerId).get() instanceof ByteBufferSerializer;
+	}
+
+	private Behavior<Message> handle(HandOverMessage message) {
+		this.parent.tell(message.getMessage());
+		return this;
+	}
+
+	private ByteBuffer serializeIntoPooledBuffer(ByteBufferSerializer serializer, LargeMessage largeMessage) {
+		int capacity = this.lastSerializedSize;
+		while (true) {
+			ByteBuffer buffer = this.bufferPool.acquire(capacity);
+			try {
+				serializer.toBinary(largeMessage, buffer);
+				this.lastSerializedSize = Math.max(buffer.position(), MAX_MESSAGE_SIZE);
+				return buffer;
+			} catch (BufferOverflowException e) {
+				this.bufferPool.release(buffer);
+				capacity = (int) Math.min(Integer.MAX_VALUE - 8, 2L * capacity);
+			}
+		}
+	}
+
 	private Behavior<Message> handle(ConnectMessage message) {
 		int receiverTransmissionKey = this.messageCounter++;
-		this.pendingReceives.put(receiverTransmissionKey, new ReceiveState(new byte[message.getLargeMessageSize()], 0, message.getSenderProxy(), message.getSerializerId(), message.getManifest()));
+		// Acknowledging every half window keeps the sender's window open without acknowledging every single chunk.
+		int ackInterval = Math.max(1, message.getWindowSize() / 2);
+
+		// Compressed messages and serializers that read from ByteBuffers can work on a pooled buffer; all others need an
+		// array of the exact size.
+		int length = message.getLargeMessageSize();
+		byte[] bytes;
+		ByteBuffer pooledBuffer = null;
+		if (message.getCodec() != CompressionCodec.NONE || this.isByteBufferSerializer(message.getSerializerId())) {
+			pooledBuffer = this.bufferPool.acquire(length);
+			bytes = pooledBuffer.array();
+		} else {
+			bytes = new byte[length];
+			this.bufferPool.recordAllocation(length);
+		}
+		this.pendingReceives.put(receiverTransmissionKey, new ReceiveState(bytes, length, 0, 0, ackInterval, message.getSenderProxy(), message.getSerializerId(), message.getManifest(), pooledBuffer, message.getCodec(), message.getUncompressedSize()));
 
 		message.getSenderProxy().tell(new ConnectAckMessage(message.getSenderTransmissionKey(), receiverTransmissionKey));
 		return this;
 	}
 
 	private Behavior<Message> handle(ConnectAckMessage message) {
+		this.pendingSends.get(message.getSenderTransmissionKey()).setStartTime(System.nanoTime());
 		return this.sendNext(message.getSenderTransmissionKey(), message.getReceiverTransmissionKey());
 	}
 
 	private Behavior<Message> handle(BytesAckMessage message) {
+		SendState state = this.pendingSends.get(message.getSenderTransmissionKey());
+		if (state == null)
+			return this;
+
+		// Acknowledgements carry the end of the last received chunk, whose send time is still in the window.
+		if (message.getReceivedBytes() > 0)
+			this.chunkRoundTrip.record((System.nanoTime() - state.getChunkSendTimes()[((message.getReceivedBytes() - 1) / MAX_MESSAGE_SIZE) % state.getWindowSize()]) / 1000);
+
+		// The receiver acknowledges the complete message, because only then the sender's buffer is no longer referenced.
+		if (message.getReceivedBytes() >= state.getLength()) {
+			this.pendingSends.remove(message.getSenderTransmissionKey());
+			this.sentBytes += state.getLength();
+			this.recordTransfer(state.getReceiverProxy().path().address(), state.getLength(), System.nanoTime() - state.getStartTime());
+			if (state.getPooledBuffer() != null)
+				this.bufferPool.release(state.getPooledBuffer());
+			return this;
+		}
+
+		state.setAcknowledgedOffset(Math.max(state.getAcknowledgedOffset(), message.getReceivedBytes()));
 		return this.sendNext(message.getSenderTransmissionKey(), message.getReceiverTransmissionKey());
 	}
 
 	private Behavior<Message> sendNext(int senderTransmissionKey, int receiverTransmissionKey) {
-		ActorRef<Message> receiverProxy = this.pendingSends.get(senderTransmissionKey).getReceiverProxy();
-
 		SendState state = this.pendingSends.get(senderTransmissionKey);
+		ActorRef<Message> receiverProxy = state.getReceiverProxy();
 
-		byte[] bytes = state.getBytes();
-		int startOffset = state.getOffset();
-		int endOffset = Math.min(startOffset + MAX_MESSAGE_SIZE, bytes.length);
+		int length = state.getLength();
+		long windowEnd = state.getAcknowledgedOffset() + (long) state.getWindowSize() * MAX_MESSAGE_SIZE;
 
-		byte[] nextBytes = Arrays.copyOfRange(bytes, startOffset, endOffset);
-		state.setOffset(endOffset);
+		if (length == 0)
+			receiverProxy.tell(new BytesMessage(state.getBytes(), 0, 0, 0, senderTransmissionKey, receiverTransmissionKey));
 
-		if (endOffset == bytes.length)
-			this.pendingSends.remove(senderTransmissionKey);
+		while (state.getOffset() < length && state.getOffset() < windowEnd) {
+			int startOffset = state.getOffset();
+			int endOffset = Math.min(startOffset + MAX_MESSAGE_SIZE, length);
+			state.setOffset(endOffset);
+			state.getChunkSendTimes()[(startOffset / MAX_MESSAGE_SIZE) % state.getWindowSize()] = System.nanoTime();
+			this.sentBytesMeter.mark(endOffset - startOffset);
 
-		receiverProxy.tell(new BytesMessage(nextBytes, senderTransmissionKey, receiverTransmissionKey));
+			receiverProxy.tell(new BytesMessage(state.getBytes(), startOffset, endOffset - startOffset, startOffset, senderTransmissionKey, receiverTransmissionKey));
+		}
 		return this;
 	}
 
-	private Behavior<Message> handle(BytesMessage message) {
+	private Behavior<Message> handle(BytesMessage message) throws NotSerializableException {
 		ReceiveState receiveState = this.pendingReceives.get(message.getReceiverTransmissionKey());
 
-		byte[] bytes = receiveState.getBytes();
-		int offset = receiveState.getOffset();
-
-		System.arraycopy(message.getBytes(), 0, bytes, offset, message.getBytes().length);
+		// Chunks carry their offset, so reassembly does not depend on the order in which they arrive.
+		System.arraycopy(message.getBytes(), message.getBytesOffset(), receiveState.getBytes(), message.getOffset(), message.getLength());
 
-		receiveState.setOffset(offset + message.getBytes().length);
+		receiveState.setReceivedBytes(receiveState.getReceivedBytes() + message.getLength());
+		this.receivedBytesMeter.mark(message.getLength());
 
-		if (receiveState.getOffset() != bytes.length) {
-			receiveState.getSenderProxy().tell(new BytesAckMessage(message.getSenderTransmissionKey(), message.getReceiverTransmissionKey()));
+		if (receiveState.getReceivedBytes() != receiveState.getLength()) {
+			receiveState.setChunksSinceAck(receiveState.getChunksSinceAck() + 1);
+			if (receiveState.getChunksSinceAck() >= receiveState.getAckInterval()) {
+				receiveState.setChunksSinceAck(0);
+				receiveState.getSenderProxy().tell(new BytesAckMessage(message.getSenderTransmissionKey(), message.getReceiverTransmissionKey(), receiveState.getReceivedBytes()));
+			}
 			return this;
 		}
 
 		this.pendingReceives.remove(message.getReceiverTransmissionKey());
+		receiveState.getSenderProxy().tell(new BytesAckMessage(message.getSenderTransmissionKey(), message.getReceiverTransmissionKey(), receiveState.getReceivedBytes()));
+		this.receivedBytes += receiveState.getLength();
 
-		LargeMessage largeMessage = (LargeMessage) this.serialization.deserialize(bytes, receiveState.getSerializerId(), receiveState.getManifest()).get();
+		byte[] bytes = receiveState.getBytes();
+		int length = receiveState.getLength();
+		ByteBuffer pooledBuffer = receiveState.getPooledBuffer();
+
+		if (receiveState.getCodec() != CompressionCodec.NONE) {
+			int uncompressedLength = receiveState.getUncompressedLength();
+			ByteBuffer uncompressedBuffer = null;
+			byte[] uncompressed;
+			if (this.isByteBufferSerializer(receiveState.getSerializerId())) {
+				uncompressedBuffer = this.bufferPool.acquire(uncompressedLength);
+				uncompressed = uncompressedBuffer.array();
+			} else {
+				uncompressed = new byte[uncompressedLength];
+				this.bufferPool.recordAllocation(uncompressedLength);
+			}
+			receiveState.getCodec().decompress(bytes, length, uncompressed, uncompressedLength);
+
+			if (pooledBuffer != null)
+				this.bufferPool.release(pooledBuffer);
+			bytes = uncompressed;
+			length = uncompressedLength;
+			pooledBuffer = uncompressedBuffer;
+		}
+
+		LargeMessage largeMessage;
+		if (pooledBuffer != null) {
+			pooledBuffer.limit(length);
+			largeMessage = (LargeMessage) this.serialization.deserializeByteBuffer(pooledBuffer, receiveState.getSerializerId(), receiveState.getManifest());
+			this.bufferPool.release(pooledBuffer);
+		} else {
+			largeMessage = (LargeMessage) this.serialization.deserialize(bytes, receiveState.getSerializerId(), receiveState.getManifest()).get();
+		}
 
 		this.parent.tell(largeMessage);
 		return this;
 	}
 
-}
\ No newline at end of file
+	private Behavior<Message> handle(PostStop signal) {
+		if (this.sentBytes + this.receivedBytes + this.handedOverMessages > 0)
+			this.getContext().getLog().info("Sent {} and received {} bytes; handed over {} messages locally; allocated {} bytes in {} buffers and reused {} bytes in {} pooled buffers.",
+					this.sentBytes, this.receivedBytes, this.handedOverMessages, this.bufferPool.getAllocatedBytes(), this.bufferPool.getAllocations(), this.bufferPool.getReusedBytes(), this.bufferPool.getReuses());
+		MetricsSingleton.get().remove("LargeMessageProxy", this.getContext().getSelf().path().toStringWithoutAddress());
+		return this;
+	}
+}
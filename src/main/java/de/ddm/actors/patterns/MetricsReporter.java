@@ -0,0 +1,96 @@
+package de.ddm.actors.patterns;
+
+import akka.actor.typed.Behavior;
+import akka.actor.typed.PostStop;
+import akka.actor.typed.javadsl.AbstractBehavior;
+import akka.actor.typed.javadsl.ActorContext;
+import akka.actor.typed.javadsl.Behaviors;
+import akka.actor.typed.javadsl.Receive;
+import akka.actor.typed.javadsl.TimerScheduler;
+import de.ddm.metrics.Metrics;
+import de.ddm.serialization.AkkaSerializable;
+import de.ddm.singletons.DomainConfigurationSingleton;
+import de.ddm.singletons.MetricsSingleton;
+import lombok.NoArgsConstructor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+
+/**
+ * Ticks the metrics of this JVM at a fixed rate, which turns their counts into rates, and logs a summary line for every
+ * metric group that changed since the previous tick. The same values are available at any time over JMX.
+ */
+public class MetricsReporter extends AbstractBehavior<MetricsReporter.Message> {
+
+	////////////////////
+	// Actor Messages //
+	////////////////////
+
+	public interface Message extends AkkaSerializable {
+	}
+
+	@NoArgsConstructor
+	public static class ReportMessage implements Message {
+		private static final long serialVersionUID = -3329216421950613383L;
+	}
+
+	////////////////////////
+	// Actor Construction //
+	////////////////////////
+
+	public static final String DEFAULT_NAME = "metricsReporter";
+
+	public static Behavior<Message> create() {
+		return Behaviors.setup(
+				context -> Behaviors.withTimers(timers -> new MetricsReporter(context, timers)));
+	}
+
+	private MetricsReporter(ActorContext<Message> context, TimerScheduler<Message> timers) {
+		super(context);
+
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		Metrics.Group jvm = this.metrics.group("JVM", null);
+		jvm.gauge("heapUsedBytes", () -> memory.getHeapMemoryUsage().getUsed());
+		jvm.gauge("heapMaxBytes", () -> memory.getHeapMemoryUsage().getMax());
+
+		Duration interval = Duration.ofMillis(Math.max(1, DomainConfigurationSingleton.get().getMetricsReportInterval()));
+		timers.startTimerAtFixedRate("Report", new ReportMessage(), interval, interval);
+	}
+
+	/////////////////
+	// Actor State //
+	/////////////////
+
+	private final Metrics metrics = MetricsSingleton.get();
+
+	////////////////////
+	// Actor Behavior //
+	////////////////////
+
+	@Override
+	public Receive<Message> createReceive() {
+		return newReceiveBuilder()
+				.onMessage(ReportMessage.class, this::handle)
+				.onSignal(PostStop.class, this::handle)
+				.build();
+	}
+
+	private Behavior<Message> handle(ReportMessage message) {
+		this.report();
+		return this;
+	}
+
+	private Behavior<Message> handle(PostStop signal) {
+		this.report();
+		this.metrics.remove("JVM", null);
+		return this;
+	}
+
+	private void report() {
+		this.metrics.tick();
+		for (Metrics.Group group : this.metrics.getGroups())
+			if (group.hasChanged())
+				this.getContext().getLog().info("Metrics: {}", group);
+	}
+}
@@ -0,0 +1,131 @@
+package de.ddm.actors.profiling;
+
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.Behavior;
+import akka.actor.typed.javadsl.AbstractBehavior;
+import akka.actor.typed.javadsl.ActorContext;
+import akka.actor.typed.javadsl.Behaviors;
+import akka.actor.typed.javadsl.Receive;
+import com.opencsv.exceptions.CsvValidationException;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.configuration.ParserConfiguration;
+import de.ddm.serialization.AkkaSerializable;
+import de.ddm.structures.InputFileCache;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the distinct values of every column of one input file from the batches of its InputReader. Builders of
+ * different files run in parallel on the worker pool, so the miner only receives each file's distinct values once.
+ * The values travel through the large message proxies, which hand them over by reference if the miner is local.
+ */
+public class ColumnBuilder extends AbstractBehavior<ColumnBuilder.Message> {
+
+	////////////////////
+	// Actor Messages //
+	////////////////////
+
+	public interface Message extends AkkaSerializable {
+	}
+
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class BatchMessage implements Message {
+		private static final long serialVersionUID = 4591192372652568030L;
+		int id;
+		List<String[]> batch;
+	}
+
+	////////////////////////
+	// Actor Construction //
+	////////////////////////
+
+	public static final String DEFAULT_NAME = "columnBuilder";
+
+	public static Behavior<Message> create(final int id, final File inputFile, final ParserConfiguration parserConfiguration, final ActorRef<InputReader.Message> inputReader, final ActorRef<LargeMessageProxy.Message> largeMessageProxy, final ActorRef<LargeMessageProxy.Message> dependencyMinerProxy) {
+		return Behaviors.setup(context -> new ColumnBuilder(context, id, inputFile, parserConfiguration, inputReader, largeMessageProxy, dependencyMinerProxy));
+	}
+
+	private ColumnBuilder(ActorContext<Message> context, final int id, final File inputFile, final ParserConfiguration parserConfiguration, final ActorRef<InputReader.Message> inputReader, final ActorRef<LargeMessageProxy.Message> largeMessageProxy, final ActorRef<LargeMessageProxy.Message> dependencyMinerProxy) {
+		super(context);
+		this.id = id;
+		this.inputFile = inputFile;
+		this.parserConfiguration = parserConfiguration;
+		this.inputFileCache = parserConfiguration.createInputFileCache();
+		this.inputReader = inputReader;
+		this.largeMessageProxy = largeMessageProxy;
+		this.dependencyMinerProxy = dependencyMinerProxy;
+	}
+
+	/////////////////
+	// Actor State //
+	/////////////////
+
+	private final int id;
+	private final File inputFile;
+	private final ParserConfiguration parserConfiguration;
+	private final InputFileCache inputFileCache;
+	private long numRows = 0;
+	private final ActorRef<InputReader.Message> inputReader;
+	private final ActorRef<LargeMessageProxy.Message> largeMessageProxy;
+	private final ActorRef<LargeMessageProxy.Message> dependencyMinerProxy;
+	private final List<ObjectOpenHashSet<String>> columns = new ArrayList<>();
+
+	////////////////////
+	// Actor Behavior //
+	////////////////////
+
+	@Override
+	public Receive<Message> createReceive() {
+		return newReceiveBuilder()
+				.onMessage(BatchMessage.class, this::handle)
+				.build();
+	}
+
+	private Behavior<Message> handle(BatchMessage message) {
+		if (message.getBatch().isEmpty()) {
+			List<String[]> distinctValues = new ArrayList<>(this.columns.size());
+			for (ObjectOpenHashSet<String> column : this.columns)
+				distinctValues.add(column.toArray(new String[0]));
+			// The cache entry is written before the values are sent, because a local miner receives the arrays by reference.
+			if (this.inputFileCache != null)
+				this.cache(distinctValues);
+			this.largeMessageProxy.tell(new LargeMessageProxy.SendMessage(new DependencyMiner.ColumnsMessage(this.id, distinctValues), this.dependencyMinerProxy));
+			return Behaviors.stopped();
+		}
+
+		this.numRows += message.getBatch().size();
+		collect(this.columns, message.getBatch());
+
+		this.inputReader.tell(new InputReader.ReadBatchMessage(this.getContext().getSelf(), 1));
+		return this;
+	}
+
+	/**
+	 * Adds the values of every row of the batch to the distinct values of their columns, adding columns as needed.
+	 */
+	public static void collect(List<ObjectOpenHashSet<String>> columns, List<String[]> batch) {
+		for (String[] row : batch) {
+			while (columns.size() < row.length)
+				columns.add(new ObjectOpenHashSet<>());
+			for (int column = 0; column < row.length; column++)
+				columns.get(column).add(row[column]);
+		}
+	}
+
+	private void cache(List<String[]> distinctValues) {
+		try {
+			this.inputFileCache.store(this.inputFile, this.parserConfiguration.getHeader(this.inputFile), this.numRows, distinctValues);
+		} catch (IOException | CsvValidationException e) {
+			this.getContext().getLog().warn("Could not cache the columns of {}: {}", this.inputFile, e.getMessage());
+		}
+	}
+}
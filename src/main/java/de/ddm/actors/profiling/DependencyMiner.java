@@ -7,19 +7,34 @@ import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
+import akka.actor.typed.javadsl.TimerScheduler;
 import akka.actor.typed.receptionist.Receptionist;
 import akka.actor.typed.receptionist.ServiceKey;
+import de.ddm.actors.Worker;
 import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.algorithms.BinderPartition;
+import de.ddm.algorithms.Spider;
+import de.ddm.configuration.ParserConfiguration;
+import de.ddm.configuration.SystemConfiguration;
+import de.ddm.metrics.Metrics;
 import de.ddm.serialization.AkkaSerializable;
+import de.ddm.singletons.DomainConfigurationSingleton;
 import de.ddm.singletons.InputConfigurationSingleton;
+import de.ddm.singletons.MetricsSingleton;
 import de.ddm.singletons.SystemConfigurationSingleton;
 import de.ddm.structures.InclusionDependency;
 import de.ddm.structures.Task;
+import de.ddm.structures.ValueRunStore;
+import de.ddm.structures.ColumnStore;
+import de.ddm.structures.CheckpointLog;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import java.io.File;
-import java.lang.reflect.Array;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
 
 public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
@@ -48,10 +63,10 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
 	@Getter
 	@NoArgsConstructor
 	@AllArgsConstructor
-	public static class BatchMessage implements Message {
-		private static final long serialVersionUID = 4591192372652568030L;
+	public static class ColumnsMessage implements Message, LargeMessageProxy.ImmutableLargeMessage {
+		private static final long serialVersionUID = 1208755140397127614L;
 		int id;
-		List<String[]> batch;
+		List<String[]> distinctValues;	// The distinct values of each column of the file
 	}
 
 	@Getter
@@ -60,7 +75,17 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
 	public static class RegistrationMessage implements Message {
 		private static final long serialVersionUID = -4025238529984914107L;
 		ActorRef<DependencyWorker.Message> dependencyWorker;
-		private ActorRef<LargeMessageProxy.Message> workerLMP;
+		ActorRef<Worker.Message> worker;	// The node of the dependency worker, which reads input files in distributed mode
+		ActorRef<LargeMessageProxy.Message> largeMessageProxy;
+	}
+
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class ColumnRequestMessage implements Message {
+		private static final long serialVersionUID = 2958371054217763120L;
+		int columnId;
+		ActorRef<LargeMessageProxy.Message> receiverProxy;
 	}
 
 	@Getter
@@ -69,9 +94,40 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
 	public static class CompletionMessage implements Message {
 		private static final long serialVersionUID = -7642425159675583598L;
 		ActorRef<DependencyWorker.Message> dependencyWorker;
-		String referencedAttribute;
-		String dependentAttribute;
-		boolean result;
+		int taskId;
+		int dependentColumnId;
+		int[] referencedColumnIds;
+		long[] results;
+		long checkNanos;	// The time that the worker spent on the containment checks, excluding the column transfer
+	}
+
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class PartitionResultMessage implements Message {
+		private static final long serialVersionUID = 5519634021772630146L;
+		ActorRef<DependencyWorker.Message> dependencyWorker;
+		int numValues;
+		long[][] referenced;	// The referenced columns of each dependent column that the worker's partition did not refute
+	}
+
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class LeaseRenewalMessage implements Message {
+		private static final long serialVersionUID = 2871537170498232169L;
+		ActorRef<Worker.Message> worker;	// The renewing node
+		List<ActorRef<DependencyWorker.Message>> dependencyWorkers;	// All dependency workers of the renewing node
+	}
+
+	@NoArgsConstructor
+	public static class ExpireLeasesMessage implements Message {
+		private static final long serialVersionUID = -1588412370954207786L;
+	}
+
+	@NoArgsConstructor
+	public static class SpeculationMessage implements Message {
+		private static final long serialVersionUID = -5384716251709923604L;
 	}
 
 	////////////////////////
@@ -83,23 +139,37 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
 	public static final ServiceKey<DependencyMiner.Message> dependencyMinerService = ServiceKey.create(DependencyMiner.Message.class, DEFAULT_NAME + "Service");
 
 	public static Behavior<Message> create() {
-		return Behaviors.setup(DependencyMiner::new);
+		return create(ResultCollector.create());
 	}
 
-	private DependencyMiner(ActorContext<Message> context) {
+	public static Behavior<Message> create(Behavior<ResultCollector.Message> resultCollector) {
+		return Behaviors.setup(
+				context -> Behaviors.withTimers(timers -> new DependencyMiner(context, timers, resultCollector)));
+	}
+
+	private DependencyMiner(ActorContext<Message> context, TimerScheduler<Message> timers, Behavior<ResultCollector.Message> resultCollector) {
 		super(context);
+		this.timers = timers;
 		this.discoverNaryDependencies = SystemConfigurationSingleton.get().isHardMode();
+		this.engine = SystemConfigurationSingleton.get().getEngine();
 		this.inputFiles = InputConfigurationSingleton.get().getInputFiles();
+		this.parserConfiguration = new ParserConfiguration(InputConfigurationSingleton.get());
 		this.headerLines = new String[this.inputFiles.length][];
 		this.filesRead = new boolean[this.inputFiles.length];
 		this.headersRead = new boolean[this.inputFiles.length];
-
-		this.inputReaders = new ArrayList<>(inputFiles.length);
+		this.fileColumns = new ArrayList<>(Collections.nCopies(this.inputFiles.length, (List<String[]>) null));
+		this.fileColumnIds = new int[this.inputFiles.length][];
+		this.fileRuns = new int[this.inputFiles.length][];
+		this.distributedReading = SystemConfigurationSingleton.get().isDistributedReading();
+		this.expectedWorkers = Math.max(1, SystemConfigurationSingleton.get().getExpectedWorkers() > 0 ? SystemConfigurationSingleton.get().getExpectedWorkers() : SystemConfigurationSingleton.get().getNumWorkers());
 		for (int id = 0; id < this.inputFiles.length; id++)
-			this.inputReaders.add(context.spawn(InputReader.create(id, this.inputFiles[id]), InputReader.DEFAULT_NAME + "_" + id));
-		this.resultCollector = context.spawn(ResultCollector.create(), ResultCollector.DEFAULT_NAME);
+			this.pendingFiles.add(id);
+		this.checkpointLog = this.openCheckpointLog();
+
+		this.resultCollector = context.spawn(resultCollector, ResultCollector.DEFAULT_NAME);
 		this.largeMessageProxy = this.getContext().spawn(LargeMessageProxy.create(this.getContext().getSelf().unsafeUpcast()), LargeMessageProxy.DEFAULT_NAME);
 
+
 		this.dependencyWorkers = new ArrayList<>();
 
 		context.getSystem().receptionist().tell(Receptionist.register(dependencyMinerService, context.getSelf()));
@@ -109,23 +179,68 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
 	// Actor State //
 	/////////////////
 
+	private final TimerScheduler<Message> timers;
 	private long startTime;
-	private final HashMap<ActorRef<DependencyWorker.Message>,ActorRef<LargeMessageProxy.Message>> workerLMPs = new HashMap<>();
+	private boolean started = false;
+	private final boolean distributedReading;
+	private final List<ActorRef<Worker.Message>> readingSlots = new ArrayList<>();
+	private final Map<Integer, ActorRef<Worker.Message>> fileReaders = new HashMap<>();
+	private final Deque<Integer> pendingFiles = new ArrayDeque<>();	// The files that no node reads yet, including those of nodes that died while reading them
+	private final Map<ActorRef<DependencyWorker.Message>, ActorRef<LargeMessageProxy.Message>> dependencyWorkerProxies = new HashMap<>();
+	private final int[][] fileColumnIds;
+	private final int expectedWorkers;
+	private List<ActorRef<DependencyWorker.Message>> partitionOwners;
+	private int[] partitionMessages;
+	private BitSet[] binderReferenced;
+	private int pendingPartitions;
+	private final Set<ActorRef<DependencyWorker.Message>> reportedPartitions = new HashSet<>();
+	private boolean aborted = false;
+	private long partitionedValues = 0;
 	private final boolean discoverNaryDependencies;
+	private final SystemConfiguration.DiscoveryEngine engine;
 	private final File[] inputFiles;
+	private final ParserConfiguration parserConfiguration;	// A plain copy of the input settings, which file assignments carry to the worker nodes
 	private final String[][] headerLines;
-	private final HashMap<String, Set<String>> columnMap = new HashMap<>();
+	private final List<List<String[]>> fileColumns;	// The values of the files that BINDER has yet to partition
+	private final int[][] fileRuns;		// The value runs of the files whose columns have yet to be numbered
+	private final List<String> columnNames = new ArrayList<>();
+	private final List<Integer> columnRuns = new ArrayList<>();
+	// The value runs and the encoded columns share the column store budget, which the runs count in bytes; the runs are gone before the columns fill up.
+	private final ValueRunStore values = new ValueRunStore(Math.min(SystemConfigurationSingleton.get().getColumnStoreBudget(), Long.MAX_VALUE / Integer.BYTES) * Integer.BYTES, new File(SystemConfigurationSingleton.get().getSpillDirectory()));
+	private final ColumnStore columns = new ColumnStore(SystemConfigurationSingleton.get().getColumnStoreBudget(), new File(SystemConfigurationSingleton.get().getSpillDirectory()));
+	private long shippedColumns = 0;
+	private long shippedValues = 0;
 	private final boolean[] filesRead;
 	private final boolean[] headersRead;
-	private final List<ActorRef<InputReader.Message>> inputReaders;
 	private final ActorRef<ResultCollector.Message> resultCollector;
 	private final ActorRef<LargeMessageProxy.Message> largeMessageProxy;
-	private Stack<Task> tasks;
-	private final Map<ActorRef<DependencyWorker.Message>, Task> currentTasks = new HashMap<ActorRef<DependencyWorker.Message>, Task>();
+	private PriorityQueue<Task> tasks;
+	private final Map<ActorRef<DependencyWorker.Message>, LinkedHashMap<Integer, Task>> currentTasks = new HashMap<>();	// The running and prefetched tasks of every worker in assignment order
+	private final BitSet completedTasks = new BitSet();
+	private final BitSet speculatedTasks = new BitSet();
+	private final Map<ActorRef<DependencyWorker.Message>, Long> runningSince = new HashMap<>();	// When each worker started the first task of its queue
+	private final Map<ActorRef<DependencyWorker.Message>, Long> leaseRenewals = new HashMap<>();	// When the miner last heard from each worker or its node
+	private final Set<ActorRef<DependencyWorker.Message>> expiredWorkers = new HashSet<>();	// Workers that lost their tasks and get none until they renew their lease
+	private final Map<ActorRef<DependencyWorker.Message>, Long> idleSince = new HashMap<>();
+	private long validationStartTime;
+	private long checkedCost = 0;
+	private long checkNanos = 0;
+	private int stolenTasks = 0;
+	private CheckpointLog checkpointLog;	// null, if checkpointing is disabled or the log could not be written
+	private long lastCheckpoint = 0;
+	private int speculativeTasks = 0;
 	private int totalTasks = -1;
 	private int tasksDone = 0;
 	private long dataReadingTime;
 	private final List<ActorRef<DependencyWorker.Message>> dependencyWorkers;
+	private final int taskBatchSize = DomainConfigurationSingleton.get().getTaskBatchSize();
+	private final int minTasksPerWorker = DomainConfigurationSingleton.get().getMinTasksPerWorker();
+	private final int workerTaskQueueSize = Math.max(1, DomainConfigurationSingleton.get().getWorkerTaskQueueSize());
+	private final double speculationFactor = DomainConfigurationSingleton.get().getSpeculationFactor();
+	private final long speculationDelay = DomainConfigurationSingleton.get().getSpeculationDelay();
+	private final long checkpointInterval = DomainConfigurationSingleton.get().getCheckpointInterval();
+	private final long leaseTimeout = SystemConfigurationSingleton.get().getLeaseTimeout();
+	private final Metrics.Group metrics = MetricsSingleton.get().group("DependencyMiner", null);
 
 	////////////////////
 	// Actor Behavior //
@@ -135,74 +250,228 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
 	public Receive<Message> createReceive() {
 		return newReceiveBuilder()
 				.onMessage(StartMessage.class, this::handle)
-				.onMessage(BatchMessage.class, this::handle)
+				.onMessage(ColumnsMessage.class, this::handle)
 				.onMessage(HeaderMessage.class, this::handle)
 				.onMessage(RegistrationMessage.class, this::handle)
+				.onMessage(ColumnRequestMessage.class, this::handle)
 				.onMessage(CompletionMessage.class, this::handle)
+				.onMessage(PartitionResultMessage.class, this::handle)
+				.onMessage(SpeculationMessage.class, this::handle)
+				.onMessage(LeaseRenewalMessage.class, this::handle)
+				.onMessage(ExpireLeasesMessage.class, this::handle)
 				.onSignal(Terminated.class, this::handle)
 				.build();
 	}
 
 	private Behavior<Message> handle(StartMessage message) {
-		for (ActorRef<InputReader.Message> inputReader : this.inputReaders)
-			inputReader.tell(new InputReader.ReadHeaderMessage(this.getContext().getSelf()));
-		for (ActorRef<InputReader.Message> inputReader : this.inputReaders)
-			inputReader.tell(new InputReader.ReadBatchMessage(this.getContext().getSelf()));
+		// In distributed mode, the worker nodes read the files that they get assigned.
+		if (!this.distributedReading)
+			for (int id = 0; id < this.inputFiles.length; id++)
+				InputReader.startReading(this.getContext(), id, this.inputFiles[id], this.parserConfiguration, this.getContext().getSelf(), this.largeMessageProxy, this.largeMessageProxy);
 		this.startTime = System.currentTimeMillis();
+		this.started = true;
+		for (ActorRef<Worker.Message> worker : this.readingSlots)
+			this.assignNextFile(worker);
 		return this;
 	}
 
+	private void assignNextFile(ActorRef<Worker.Message> worker) {
+		// Nodes pull files: each registered dependency worker is one reading slot of its node, and a node gets its next file
+		// whenever it delivers the columns of a previous one, so nodes that join late or read fast take over more files.
+		if (!this.distributedReading || !this.started || this.pendingFiles.isEmpty())
+			return;
+
+		int id = this.pendingFiles.poll();
+		this.fileReaders.put(id, worker);
+		worker.tell(new Worker.ReadFileMessage(this.getContext().getSelf(), this.largeMessageProxy, id, this.inputFiles[id].getPath(), this.parserConfiguration));
+	}
+
 	private Behavior<Message> handle(HeaderMessage message) {
 		this.headerLines[message.getId()] = message.getHeader();
 		this.headersRead[message.getId()] = true;
+		this.encodeIfReady(message.getId());
 		this.advanceIfReady();
 		return this;
 	}
 
-	private Behavior<Message> handle(BatchMessage message) {
-		// Ignoring batch content for now ... but I could do so much with it.
-		if (message.getBatch().size() != 0){
-			int id = message.getId();
-			System.out.println("Got Batch of File : " + inputFiles[id].toString());
-			String filename = inputFiles[id].toString();
-			for (int column = 0; column < Array.getLength(headerLines[id]); column++){
-				String key = filename.substring(10) + "_" + headerLines[id][column];
-				if(!columnMap.containsKey(key))
-					columnMap.put(key,new HashSet<>());
-				for (int row = 0; row < message.getBatch().size() ; row++) {
-					columnMap.get(key).add(message.getBatch().get(row)[column]);
-				}
-			}
-			this.inputReaders.get(message.getId()).tell(new InputReader.ReadBatchMessage(this.getContext().getSelf()));
-		}else{
-			this.filesRead[message.getId()] =true;
-			this.advanceIfReady();
+	private Behavior<Message> handle(ColumnsMessage message) {
+		this.getContext().getLog().debug("Got columns of file {}", inputFiles[message.getId()]);
+		if (this.fileReaders.containsKey(message.getId()))
+			this.assignNextFile(this.fileReaders.remove(message.getId()));
+		// A node that the miner took for dead may still deliver its file, which then need not be read again; if another node
+		// already delivered it, the late copy is dropped.
+		this.pendingFiles.remove(message.getId());
+		if (this.filesRead[message.getId()] || this.fileColumns.get(message.getId()) != null || this.fileRuns[message.getId()] != null)
+			return this;
+		if (this.engine == SystemConfiguration.DiscoveryEngine.BINDER) {
+			this.fileColumns.set(message.getId(), message.getDistinctValues());
+		} else {
+			// The values wait for the end of reading as sorted runs, which the run store spills if memory runs short.
+			List<String[]> distinctValues = message.getDistinctValues();
+			int[] runs = new int[distinctValues.size()];
+			for (int column = 0; column < runs.length; column++)
+				runs[column] = this.values.add(distinctValues.get(column));
+			this.fileRuns[message.getId()] = runs;
+			this.updateColumnStoreMetrics();
 		}
+		this.encodeIfReady(message.getId());
+		this.advanceIfReady();
 		return this;
 	}
 
+	private void encodeIfReady(int id) {
+		// The column builders already removed duplicates, so only distinct values of each column need to be encoded here.
+		if (!this.headersRead[id])
+			return;
+
+		if (this.engine == SystemConfiguration.DiscoveryEngine.BINDER) {
+			if (this.fileColumns.get(id) == null)
+				return;
+			this.assignColumnIds(id, this.fileColumns.get(id).size());
+			this.shipPartitions();
+			this.filesRead[id] = true;
+			return;
+		}
+
+		// The columns are only numbered here; their values are encoded once all files are read, see encodeColumns().
+		if (this.fileRuns[id] == null)
+			return;
+		this.assignColumnIds(id, this.fileRuns[id].length);
+		for (int column = 0; column < this.fileRuns[id].length; column++) {
+			if (column < this.fileColumnIds[id].length)
+				this.columnRuns.add(this.fileRuns[id][column]);
+			else
+				this.values.release(this.fileRuns[id][column]);
+		}
+		this.updateColumnStoreMetrics();
+		this.filesRead[id] = true;
+	}
+
+	private void updateColumnStoreMetrics() {
+		this.metrics.gauge("columnStoreHeapBytes").set(this.values.getBytesInMemory() + this.columns.getValuesInMemory() * Integer.BYTES);
+		this.metrics.gauge("columnStoreSpilledValues").set(this.values.getSpilledValues() + this.columns.getSpilledValues());
+	}
+
+	private void assignColumnIds(int id, int numValueColumns) {
+		String filename = inputFiles[id].toString();
+		int numColumns = Math.min(headerLines[id].length, numValueColumns);
+		this.fileColumnIds[id] = new int[numColumns];
+		for (int column = 0; column < numColumns; column++) {
+			this.fileColumnIds[id][column] = columnNames.size();
+			columnNames.add(filename.substring(10) + "_" + headerLines[id][column]);
+		}
+	}
+
+	private void shipPartitions() {
+		// Every value goes to the dependency worker that owns its hash partition, so the master never holds more than the
+		// distinct values of the file at hand. The owners are fixed once the expected number of workers has registered and stay
+		// the same for all files, because every partition must see all columns; workers that join later get no partition.
+		if (this.partitionOwners == null) {
+			if (this.dependencyWorkers.size() < this.expectedWorkers)
+				return;
+			this.partitionOwners = new ArrayList<>(this.dependencyWorkers);
+			this.partitionMessages = new int[this.partitionOwners.size()];
+			this.getContext().getLog().info("Partitioning the values across {} dependency workers.", this.partitionOwners.size());
+		}
+
+		int numPartitions = this.partitionOwners.size();
+		for (int id = 0; id < this.inputFiles.length; id++) {
+			if (this.fileColumns.get(id) == null || this.fileColumnIds[id] == null)
+				continue;
+
+			int[] columnIds = this.fileColumnIds[id];
+			List<List<String[]>> partitions = new ArrayList<>(numPartitions);
+			for (int partition = 0; partition < numPartitions; partition++)
+				partitions.add(new ArrayList<>(columnIds.length));
+			for (int column = 0; column < columnIds.length; column++) {
+				String[] distinctValues = this.fileColumns.get(id).get(column);
+				int[] partitionSizes = new int[numPartitions];
+				int[] valuePartitions = new int[distinctValues.length];
+				for (int i = 0; i < distinctValues.length; i++)
+					partitionSizes[valuePartitions[i] = BinderPartition.partitionOf(distinctValues[i], numPartitions)]++;
+				String[][] partitionValues = new String[numPartitions][];
+				for (int partition = 0; partition < numPartitions; partition++)
+					partitionValues[partition] = new String[partitionSizes[partition]];
+				Arrays.fill(partitionSizes, 0);
+				for (int i = 0; i < distinctValues.length; i++)
+					partitionValues[valuePartitions[i]][partitionSizes[valuePartitions[i]]++] = distinctValues[i];
+				for (int partition = 0; partition < numPartitions; partition++)
+					partitions.get(partition).add(partitionValues[partition]);
+				this.partitionedValues += distinctValues.length;
+			}
+
+			for (int partition = 0; partition < numPartitions; partition++) {
+				ActorRef<DependencyWorker.Message> owner = this.partitionOwners.get(partition);
+				DependencyWorker.PartitionMessage partitionMessage = new DependencyWorker.PartitionMessage(columnIds, partitions.get(partition));
+				this.largeMessageProxy.tell(new LargeMessageProxy.SendMessage(partitionMessage, this.dependencyWorkerProxies.get(owner)));
+				this.partitionMessages[partition]++;
+			}
+			this.fileColumns.set(id, null);
+		}
+	}
+
 	private Behavior<Message> handle(RegistrationMessage message) {
 		ActorRef<DependencyWorker.Message> dependencyWorker = message.getDependencyWorker();
 		if (!this.dependencyWorkers.contains(dependencyWorker)) {
 			this.dependencyWorkers.add(dependencyWorker);
 			this.getContext().watch(dependencyWorker);
-			workerLMPs.put(message.getDependencyWorker(), message.getWorkerLMP());
-			if(readyCheck())
-				sendNextTask(dependencyWorker);
-				if(tasksDone == totalTasks) end();
+			this.dependencyWorkerProxies.put(dependencyWorker, message.getLargeMessageProxy());
+			if (this.engine == SystemConfiguration.DiscoveryEngine.BINDER && this.partitionOwners == null) {
+				this.shipPartitions();
+				this.advanceIfReady();
+			}
+			this.readingSlots.add(message.getWorker());
+			this.getContext().watch(message.getWorker());
+			this.assignNextFile(message.getWorker());
+			if (this.isValidating())
+				assignTasks(dependencyWorker);
+		} else {
+			// A known worker registers again after its node was unreachable for a while.
+			this.renewLease(dependencyWorker);
 		}
 		return this;
 	}
 
+	private Behavior<Message> handle(ColumnRequestMessage message) {
+		// Workers cache columns per node, so a column is only requested if the requesting node does not hold it (anymore).
+		int[] column = columns.get(message.getColumnId());
+		shippedColumns += 1;
+		shippedValues += column.length;
+		this.largeMessageProxy.tell(new LargeMessageProxy.SendMessage(new Worker.ColumnMessage(message.getColumnId(), column), message.getReceiverProxy()));
+		return this;
+	}
+
 	private Behavior<Message> handle(CompletionMessage message) {
 		ActorRef<DependencyWorker.Message> dependencyWorker = message.getDependencyWorker();
+		if (this.dependencyWorkers.contains(dependencyWorker))
+			this.renewLease(dependencyWorker);
+		Task task = this.assignedTasks(dependencyWorker).remove(message.getTaskId());
+		if (task != null)
+			this.recordLatency(dependencyWorker, message.getCheckNanos());
+		if (this.assignedTasks(dependencyWorker).isEmpty())
+			this.runningSince.remove(dependencyWorker);
+		else
+			this.runningSince.put(dependencyWorker, System.currentTimeMillis());
+		// Stolen and speculatively duplicated tasks may complete on two workers; only the first completion counts.
+		if (this.completedTasks.get(message.getTaskId())) {
+			assignTasks(dependencyWorker);
+			return this;
+		}
+		this.completedTasks.set(message.getTaskId());
 		tasksDone += 1;
-		if (message.result) {
-			List<InclusionDependency> inds = new ArrayList<>(1);
-			inds.add(new InclusionDependency(new File(message.dependentAttribute),new String[] {message.dependentAttribute.substring(message.dependentAttribute.indexOf(".")+5)} , new File(message.referencedAttribute),new String[] {message.referencedAttribute.substring(message.referencedAttribute.indexOf(".")+5)} ));
-			this.resultCollector.tell(new ResultCollector.ResultMessage(inds, message.result));
+		if (task != null) {
+			checkedCost += task.getCost();
+			checkNanos += message.getCheckNanos();
+		}
+		this.checkpoint(message);
+		BitSet results = BitSet.valueOf(message.getResults());
+		if (!results.isEmpty()) {
+			List<InclusionDependency> inds = new ArrayList<>(results.cardinality());
+			for (int i = results.nextSetBit(0); i >= 0; i = results.nextSetBit(i + 1))
+				inds.add(toInclusionDependency(columnNames.get(message.getDependentColumnId()), columnNames.get(message.getReferencedColumnIds()[i])));
+			this.resultCollector.tell(new ResultCollector.ResultMessage(inds, true));
 		}
-		sendNextTask(dependencyWorker);
+		assignTasks(dependencyWorker);
 		if (tasksDone == totalTasks)
 			this.end(); // Once I found all unary INDs, I could check if this.discoverNaryDependencies is set to true and try to detect n-ary INDs as well!
 
@@ -218,72 +487,500 @@ public class DependencyMiner extends AbstractBehavior<DependencyMiner.Message> {
 	}
 
 	private void advanceIfReady(){
-		if(this.readyCheck()){
+		if(this.readyCheck() && this.partitionsShipped()){
 			dataReadingTime = System.currentTimeMillis() - this.startTime;
 			this.getContext().getLog().info("Finished reading data within {} ms!", dataReadingTime);
-			Set<String> keys = columnMap.keySet();
-			for (String key : keys) {
-				System.out.println("Column: "+ key + " with " + columnMap.get(key).size() + " unique entries.");
+
+			if (this.engine == SystemConfiguration.DiscoveryEngine.BINDER) {
+				tasks = new PriorityQueue<>();
+				validatePartitions();
+				return;
 			}
 
-			tasks = createTasks(keys);
+			encodeColumns();
+			for (int columnId = 0; columnId < columns.numColumns(); columnId++) {
+				this.getContext().getLog().debug("Column {} with {} unique entries.", columnNames.get(columnId), columns.size(columnId));
+			}
+
+			if (this.engine == SystemConfiguration.DiscoveryEngine.SPIDER) {
+				tasks = new PriorityQueue<>();
+				discoverWithSpider();
+				end();
+				return;
+			}
+
+			validationStartTime = System.currentTimeMillis();
+			this.restoreCheckpoint();
+			tasks = createTasks();
 			totalTasks = tasks.size();
+			this.timers.startTimerAtFixedRate("Leases", new ExpireLeasesMessage(), Duration.ofMillis(Math.max(1, this.leaseTimeout / 4)));
 
 			for(ActorRef<DependencyWorker.Message> dependencyWorker : this.dependencyWorkers){
-				sendNextTask(dependencyWorker);
+				assignTasks(dependencyWorker);
 			}
 			if(tasksDone == totalTasks) end();
 		}
 	}
 
-	private void sendNextTask(ActorRef<DependencyWorker.Message> dependencyWorker) {
-		while(!tasks.empty()){
-			Task task = tasks.pop();
-			if(task.getNumUniqueDependent()> task.getNumUniqueReferenced()){
-				tasksDone += 1;
-			}else{
-				LargeMessageProxy.LargeMessage taskMessage = new DependencyWorker.TaskMessage(this.largeMessageProxy, task,columnMap.get(task.getDependentAttribute()),columnMap.get(task.getReferencedAttribute()));
-				this.largeMessageProxy.tell(new LargeMessageProxy.SendMessage(taskMessage, workerLMPs.get(dependencyWorker)));
+	private boolean partitionsShipped() {
+		return this.engine != SystemConfiguration.DiscoveryEngine.BINDER || this.partitionOwners != null;
+	}
+
+	private void validatePartitions() {
+		this.getContext().getLog().info("Partitioned {} distinct column values of {} columns across {} dependency workers.", partitionedValues, columnNames.size(), partitionOwners.size());
+		this.pendingPartitions = this.partitionOwners.size();
+		for (int partition = 0; partition < this.partitionOwners.size(); partition++)
+			this.partitionOwners.get(partition).tell(new DependencyWorker.ValidatePartitionMessage(this.getContext().getSelf(), columnNames.size(), this.partitionMessages[partition]));
+	}
 
+	private Behavior<Message> handle(PartitionResultMessage message) {
+		// A candidate survives only if no partition refuted it, so the surviving candidates of all partitions are intersected.
+		if (!this.reportedPartitions.add(message.getDependencyWorker()))
+			return this;
+		long[][] referenced = message.getReferenced();
+		if (this.binderReferenced == null) {
+			this.binderReferenced = new BitSet[referenced.length];
+			for (int column = 0; column < referenced.length; column++)
+				this.binderReferenced[column] = BitSet.valueOf(referenced[column]);
+		} else {
+			for (int column = 0; column < referenced.length; column++)
+				this.binderReferenced[column].and(BitSet.valueOf(referenced[column]));
+		}
 
-				//   workerLMP.get(dependencyWorker).tell(taskMessage);
-				/*using large message proxy: look at large message proxy test!
+		if (--this.pendingPartitions > 0)
+			return this;
 
-				get both large message proxies. if sender wants to send large message
-				send message to own large message proxy with taskmessage
-				specifiy large message proxy of receiver process.
-				sender tells own proxy,: lmp.sendmessage(message, and receiver)
-				will send it to receiver, which will forwarded it to the parent.
-				*/
-				currentTasks.put(dependencyWorker,task);
+		List<InclusionDependency> inds = new ArrayList<>();
+		for (int dependent = 0; dependent < this.binderReferenced.length; dependent++)
+			for (int referencedColumn = this.binderReferenced[dependent].nextSetBit(0); referencedColumn >= 0; referencedColumn = this.binderReferenced[dependent].nextSetBit(referencedColumn + 1))
+				inds.add(toInclusionDependency(columnNames.get(dependent), columnNames.get(referencedColumn)));
+
+		this.getContext().getLog().info("BINDER settled {} candidates on {} partitions and found {} INDs.", columnNames.size() * (columnNames.size() - 1), partitionOwners.size(), inds.size());
+		if (!inds.isEmpty())
+			this.resultCollector.tell(new ResultCollector.ResultMessage(inds, true));
+		end();
+		return this;
+	}
+
+	private void encodeColumns() {
+		// A merge of the sorted runs numbers the distinct values in ascending order, so equal values get equal ids without a
+		// dictionary of all values, and every encoded column comes out sorted and goes straight into the column store.
+		int[] runIds = new int[this.columnRuns.size()];
+		int[] sizes = new int[runIds.length];
+		for (int columnId = 0; columnId < runIds.length; columnId++) {
+			runIds[columnId] = this.columnRuns.get(columnId);
+			sizes[columnId] = this.values.size(runIds[columnId]);
+		}
+		ColumnStore.ColumnWriter writer = this.columns.addColumns(sizes, this.values.getBytesInMemory() / Integer.BYTES);
+		int distinctValues = this.values.encode(runIds, writer);
+		writer.close();
+
+		this.getContext().getLog().info("Encoded all columns through a merge of their sorted runs, which hold {} distinct values.", distinctValues);
+		this.getContext().getLog().info("Spilled {} value runs with {} values and {} columns with {} values to disk to stay within the column store budget.",
+				values.getSpilledRuns(), values.getSpilledValues(), columns.getSpilledColumns(), columns.getSpilledValues());
+		try {
+			this.values.close();
+		} catch (IOException e) {
+			this.getContext().getLog().error("Could not delete the spilled value runs: {}", e.getMessage());
+		}
+		this.updateColumnStoreMetrics();
+	}
+
+	private LinkedHashMap<Integer, Task> assignedTasks(ActorRef<DependencyWorker.Message> dependencyWorker) {
+		return this.currentTasks.computeIfAbsent(dependencyWorker, k -> new LinkedHashMap<>());
+	}
+
+	private void assignTasks(ActorRef<DependencyWorker.Message> dependencyWorker) {
+		// Every worker holds a few tasks, so that it can fetch the columns of the next task while it checks the current one
+		// and never waits for a round trip to the miner; each completion refills its queue.
+		if (!this.dependencyWorkers.contains(dependencyWorker) || this.expiredWorkers.contains(dependencyWorker))
+			return;
+		LinkedHashMap<Integer, Task> assigned = this.assignedTasks(dependencyWorker);
+		while (assigned.size() < this.workerTaskQueueSize && !tasks.isEmpty())
+			this.sendTask(dependencyWorker, tasks.poll());
+
+		if (assigned.isEmpty())
+			this.stealTask(dependencyWorker);
+
+		if (assigned.isEmpty()) {
+			idleSince.putIfAbsent(dependencyWorker, System.currentTimeMillis());
+			if (!this.timers.isTimerActive("Speculation") && tasksDone < totalTasks)
+				this.timers.startSingleTimer("Speculation", new SpeculationMessage(), Duration.ofMillis(this.speculationDelay));
+		} else {
+			idleSince.remove(dependencyWorker);
+		}
+		this.updateTaskMetrics();
+	}
+
+	private void recordLatency(ActorRef<DependencyWorker.Message> dependencyWorker, long checkNanos) {
+		// The latency runs from when the worker started the task, i.e. from its assignment or from the worker's previous
+		// completion, and also covers fetching the columns; the check time is what the worker measured for the check alone.
+		Metrics.Group workerMetrics = MetricsSingleton.get().group("DependencyWorker", dependencyWorker.path().toString());
+		Long since = this.runningSince.get(dependencyWorker);
+		if (since != null)
+			workerMetrics.histogram("taskLatencyMicros").record((System.currentTimeMillis() - since) * 1000);
+		workerMetrics.histogram("checkMicros").record(checkNanos / 1000);
+	}
+
+	private void updateTaskMetrics() {
+		int inFlight = 0;
+		for (LinkedHashMap<Integer, Task> assigned : this.currentTasks.values())
+			inFlight += assigned.size();
+		this.metrics.gauge("tasksQueued").set(this.tasks == null ? 0 : this.tasks.size());
+		this.metrics.gauge("tasksInFlight").set(inFlight);
+		this.metrics.gauge("tasksDone").set(this.tasksDone);
+	}
+
+	private void sendTask(ActorRef<DependencyWorker.Message> dependencyWorker, Task task) {
+		// Tasks only carry column ids; the columns themselves are pulled through the large message proxy of the worker's node cache.
+		dependencyWorker.tell(new DependencyWorker.TaskMessage(this.getContext().getSelf(), task));
+		if (this.assignedTasks(dependencyWorker).isEmpty()) {
+			this.runningSince.put(dependencyWorker, System.currentTimeMillis());
+			this.leaseRenewals.put(dependencyWorker, System.currentTimeMillis());
+		}
+		this.assignedTasks(dependencyWorker).put(task.getId(), task);
+	}
+
+	private boolean isValidating() {
+		return this.tasks != null && tasksDone < totalTasks;
+	}
+
+	private Behavior<Message> handle(LeaseRenewalMessage message) {
+		boolean unknownWorkers = false;
+		for (ActorRef<DependencyWorker.Message> dependencyWorker : message.getDependencyWorkers()) {
+			if (this.dependencyWorkers.contains(dependencyWorker))
+				this.renewLease(dependencyWorker);
+			else
+				unknownWorkers = true;
+		}
+
+		// The miner forgets the workers that it saw terminate, e.g. because their node was unreachable for too long. If the
+		// node is still around, its workers register again and take tasks like new ones.
+		if (unknownWorkers) {
+			this.getContext().getLog().info("{} renews the leases of unregistered dependency workers, so it is asked to register them again.", message.getWorker().path());
+			message.getWorker().tell(new Worker.RegistrationRequestMessage(this.getContext().getSelf()));
+		}
+		return this;
+	}
+
+	private void renewLease(ActorRef<DependencyWorker.Message> dependencyWorker) {
+		this.leaseRenewals.put(dependencyWorker, System.currentTimeMillis());
+		if (this.expiredWorkers.remove(dependencyWorker)) {
+			this.getContext().getLog().info("{} is back and takes tasks again.", dependencyWorker.path());
+			if (this.isValidating())
+				this.assignTasks(dependencyWorker);
+		}
+	}
+
+	private Behavior<Message> handle(ExpireLeasesMessage message) {
+		// Workers own their tasks only for as long as they or their node keep renewing the lease. Expired tasks go to other
+		// workers, which is safe even if the old owner is only slow, because only the first completion of a task counts.
+		if (!this.isValidating())
+			return this;
+
+		long now = System.currentTimeMillis();
+		for (ActorRef<DependencyWorker.Message> dependencyWorker : new ArrayList<>(this.currentTasks.keySet())) {
+			int numTasks = this.currentTasks.get(dependencyWorker).size();
+			if (numTasks > 0 && now - this.leaseRenewals.getOrDefault(dependencyWorker, 0L) > this.leaseTimeout) {
+				this.getContext().getLog().warn("The lease of {} on {} tasks expired, so other workers take them over.", dependencyWorker.path(), numTasks);
+				this.reclaimTasks(dependencyWorker);
+				this.expiredWorkers.add(dependencyWorker);
+			}
+		}
+		this.assignIdleWorkers();
+		return this;
+	}
+
+	private void reclaimTasks(ActorRef<DependencyWorker.Message> dependencyWorker) {
+		LinkedHashMap<Integer, Task> assigned = this.currentTasks.remove(dependencyWorker);
+		if (assigned != null)
+			for (Task task : assigned.values())
+				if (!this.completedTasks.get(task.getId()))
+					this.tasks.add(task);
+		this.runningSince.remove(dependencyWorker);
+		this.idleSince.remove(dependencyWorker);
+		this.updateTaskMetrics();
+	}
+
+	private void assignIdleWorkers() {
+		if (!this.isValidating())
+			return;
+		for (ActorRef<DependencyWorker.Message> dependencyWorker : this.dependencyWorkers)
+			if (this.assignedTasks(dependencyWorker).isEmpty())
+				this.assignTasks(dependencyWorker);
+	}
+
+	private Behavior<Message> handle(SpeculationMessage message) {
+		// Once no task is left to hand out or steal, idle workers duplicate the running tasks that are far overdue, e.g. because
+		// their worker is stuck in a GC pause. Whichever copy completes first counts; the late one is ignored.
+		if (tasksDone == totalTasks || this.checkedCost == 0)
+			return this;
+
+		double nanosPerCost = (double) this.checkNanos / this.checkedCost;
+		long now = System.currentTimeMillis();
+		for (ActorRef<DependencyWorker.Message> idleWorker : new ArrayList<>(this.idleSince.keySet())) {
+			ActorRef<DependencyWorker.Message> straggler = null;
+			long maxOverdue = 0;
+			for (Map.Entry<ActorRef<DependencyWorker.Message>, Long> entry : this.runningSince.entrySet()) {
+				Task running = this.currentTasks.get(entry.getKey()).values().iterator().next();
+				if (this.speculatedTasks.get(running.getId()))
+					continue;
+				long overdue = now - entry.getValue() - this.speculationDelay - (long) (this.speculationFactor * running.getCost() * nanosPerCost / 1000000);
+				if (overdue > maxOverdue) {
+					straggler = entry.getKey();
+					maxOverdue = overdue;
+				}
+			}
+			if (straggler == null)
 				break;
+
+			Task task = this.currentTasks.get(straggler).values().iterator().next();
+			this.getContext().getLog().info("Task {} is {} ms overdue on {}; starting a duplicate on an idle worker.", task.getId(), maxOverdue, straggler.path());
+			this.speculatedTasks.set(task.getId());
+			this.speculativeTasks++;
+			this.sendTask(idleWorker, task);
+			this.idleSince.remove(idleWorker);
+		}
+
+		if (!this.idleSince.isEmpty())
+			this.timers.startSingleTimer("Speculation", new SpeculationMessage(), Duration.ofMillis(this.speculationDelay));
+		return this;
+	}
+
+	private void stealTask(ActorRef<DependencyWorker.Message> thief) {
+		// An idle worker takes the most recently queued task of the worker with the longest queue. The victim drops the task
+		// if it has not started it yet; otherwise both run it and the later completion is ignored.
+		ActorRef<DependencyWorker.Message> victim = null;
+		for (Map.Entry<ActorRef<DependencyWorker.Message>, LinkedHashMap<Integer, Task>> entry : this.currentTasks.entrySet())
+			if (entry.getValue().size() > 1 && (victim == null || entry.getValue().size() > this.currentTasks.get(victim).size()))
+				victim = entry.getKey();
+		if (victim == null)
+			return;
+
+		Task task = null;
+		for (Task queued : this.currentTasks.get(victim).values())
+			task = queued;
+		this.currentTasks.get(victim).remove(task.getId());
+		victim.tell(new DependencyWorker.RevokeTaskMessage(task.getId()));
+		this.sendTask(thief, task);
+		stolenTasks++;
+	}
+
+	private CheckpointLog openCheckpointLog() {
+		String checkpointPath = SystemConfigurationSingleton.get().getCheckpointPath();
+		if (checkpointPath == null)
+			return null;
+		try {
+			return new CheckpointLog(new File(checkpointPath), SystemConfigurationSingleton.get().isResume());
+		} catch (IOException e) {
+			this.getContext().getLog().error("Could not open the checkpoint log {}, so this run cannot be resumed: {}", checkpointPath, e.getMessage());
+			return null;
+		}
+	}
+
+	private void restoreCheckpoint() {
+		// The log only applies to a run over exactly the same columns; all other runs start over.
+		if (this.checkpointLog == null)
+			return;
+		int[] sizes = new int[columns.numColumns()];
+		for (int columnId = 0; columnId < sizes.length; columnId++)
+			sizes[columnId] = columns.size(columnId);
+
+		try {
+			if (this.checkpointLog.restore(this.columnNames, sizes)) {
+				List<InclusionDependency> inds = new ArrayList<>();
+				for (int dependent = 0; dependent < sizes.length; dependent++) {
+					BitSet included = this.checkpointLog.getIncluded(dependent);
+					for (int referenced = included.nextSetBit(0); referenced >= 0; referenced = included.nextSetBit(referenced + 1))
+						inds.add(toInclusionDependency(columnNames.get(dependent), columnNames.get(referenced)));
+				}
+				this.getContext().getLog().info("Resuming from the checkpoint log with {} decided candidates and {} INDs.", this.checkpointLog.getNumDecided(), inds.size());
+				if (!inds.isEmpty())
+					this.resultCollector.tell(new ResultCollector.ResultMessage(inds, true));
+			} else if (SystemConfigurationSingleton.get().isResume()) {
+				this.getContext().getLog().warn("The checkpoint log does not match the columns of this run, so it starts over.");
 			}
+			this.lastCheckpoint = System.currentTimeMillis();
+		} catch (IOException e) {
+			this.getContext().getLog().error("Could not rewrite the checkpoint log, so this run cannot be resumed: {}", e.getMessage());
+			this.checkpointLog = null;
 		}
 	}
 
-	private Stack<Task> createTasks(Set<String> keys){
-		Stack<Task> resultingINDs = new Stack<>();
-		for(String key1: keys){
-			for(String key2: keys){
-				if(!key1.equals(key2)){
-					resultingINDs.push(new Task(key1, key2, columnMap.get(key1).size(), columnMap.get(key2).size()));
+	private void checkpoint(CompletionMessage message) {
+		if (this.checkpointLog == null)
+			return;
+		try {
+			this.checkpointLog.writeDecided(message.getDependentColumnId(), message.getReferencedColumnIds(), message.getResults());
+			if (System.currentTimeMillis() - this.lastCheckpoint >= this.checkpointInterval) {
+				this.checkpointLog.sync();
+				this.lastCheckpoint = System.currentTimeMillis();
+			}
+		} catch (IOException e) {
+			this.getContext().getLog().error("Could not write the checkpoint log: {}", e.getMessage());
+		}
+	}
+
+	private PriorityQueue<Task> createTasks(){
+		// A dependent column can only be contained in referenced columns with at least as many distinct values, so all other
+		// candidates are refuted right away; the remaining ones are batched per dependent column to save message round trips.
+		long totalCost = 0;
+		for(int dependent = 0; dependent < columns.numColumns(); dependent++)
+			for(int referenced = 0; referenced < columns.numColumns(); referenced++)
+				if(isCandidate(dependent, referenced))
+					totalCost += columns.size(dependent) + columns.size(referenced);
+		// Batches are also cut by cost, so that no single task is so large that it alone determines the makespan.
+		long maxTaskCost = Math.max(1, totalCost / ((long) Math.max(1, this.dependencyWorkers.size()) * minTasksPerWorker));
+
+		// Longest processing time first: the most expensive tasks go out first, so that the cheap ones fill the gaps at the end.
+		PriorityQueue<Task> resultingINDs = new PriorityQueue<>(Comparator.comparingLong(Task::getCost).reversed());
+		int candidates = 0;
+		for(int dependent = 0; dependent < columns.numColumns(); dependent++){
+			int numUniqueDependent = columns.size(dependent);
+			IntArrayList batch = new IntArrayList(taskBatchSize);
+			int numUniqueReferenced = 0;
+			for(int referenced = 0; referenced < columns.numColumns(); referenced++){
+				if(!isCandidate(dependent, referenced))
+					continue;
+				long batchCost = (long) numUniqueDependent * (batch.size() + 1) + numUniqueReferenced + columns.size(referenced);
+				if(!batch.isEmpty() && batchCost > maxTaskCost){
+					resultingINDs.add(new Task(resultingINDs.size(), dependent, batch.toIntArray(), numUniqueDependent, numUniqueReferenced));
+					batch.clear();
+					numUniqueReferenced = 0;
+				}
+				batch.add(referenced);
+				numUniqueReferenced += columns.size(referenced);
+				candidates++;
+				if(batch.size() == taskBatchSize){
+					resultingINDs.add(new Task(resultingINDs.size(), dependent, batch.toIntArray(), numUniqueDependent, numUniqueReferenced));
+					batch.clear();
+					numUniqueReferenced = 0;
 				}
 			}
+			if(!batch.isEmpty())
+				resultingINDs.add(new Task(resultingINDs.size(), dependent, batch.toIntArray(), numUniqueDependent, numUniqueReferenced));
 		}
-		System.out.println("Got " + resultingINDs.size()+ " tasks.");
+		this.getContext().getLog().info("Got {} tasks with {} candidates.", resultingINDs.size(), candidates);
 		return resultingINDs;
 	}
 
+	private boolean isCandidate(int dependent, int referenced) {
+		// Candidates that a resumed run has already decided are skipped.
+		return dependent != referenced && columns.size(dependent) <= columns.size(referenced)
+				&& (this.checkpointLog == null || !this.checkpointLog.isDecided(dependent, referenced));
+	}
+
+	private void discoverWithSpider() {
+		// Spilled columns are streamed from disk, so the merge holds only one block of every column in memory.
+		List<IntIterator> streams = new ArrayList<>(columns.numColumns());
+		for (int columnId = 0; columnId < columns.numColumns(); columnId++)
+			streams.add(columns.stream(columnId));
+		BitSet[] referencedColumns = Spider.discoverStreams(streams);
+
+		List<InclusionDependency> inds = new ArrayList<>();
+		for (int dependent = 0; dependent < referencedColumns.length; dependent++)
+			for (int referenced = referencedColumns[dependent].nextSetBit(0); referenced >= 0; referenced = referencedColumns[dependent].nextSetBit(referenced + 1))
+				inds.add(toInclusionDependency(columnNames.get(dependent), columnNames.get(referenced)));
+
+		this.getContext().getLog().info("SPIDER settled {} candidates in a single pass and found {} INDs.", columns.numColumns() * (columns.numColumns() - 1), inds.size());
+		if (!inds.isEmpty())
+			this.resultCollector.tell(new ResultCollector.ResultMessage(inds, true));
+	}
+
+	private InclusionDependency toInclusionDependency(String dependentAttribute, String referencedAttribute) {
+		return new InclusionDependency(new File(dependentAttribute),new String[] {dependentAttribute.substring(dependentAttribute.indexOf(".")+5)} , new File(referencedAttribute),new String[] {referencedAttribute.substring(referencedAttribute.indexOf(".")+5)} );
+	}
+
 	private void end() {
+		this.timers.cancelAll();
 		this.resultCollector.tell(new ResultCollector.FinalizeMessage());
 		long discoveryTime = System.currentTimeMillis() - this.startTime;
-		this.getContext().getLog().info("Finished mining within {} ms! It took {} ms to read the Data and {} ms to check dependencies.", discoveryTime, dataReadingTime, (discoveryTime- dataReadingTime));
+		if (!this.aborted)
+			this.getContext().getLog().info("Finished mining within {} ms! It took {} ms to read the Data and {} ms to check dependencies.", discoveryTime, dataReadingTime, (discoveryTime- dataReadingTime));
+		this.getContext().getLog().info("Shipped {} columns with {} values in total to the worker nodes' column caches.", shippedColumns, shippedValues);
+		if (this.validationStartTime > 0)
+			this.logTail();
+		try {
+			this.values.close();
+			this.columns.close();
+		} catch (IOException e) {
+			this.getContext().getLog().error("Could not delete the spilled columns: {}", e.getMessage());
+		}
+		if (this.checkpointLog != null) {
+			try {
+				this.checkpointLog.close();
+			} catch (IOException e) {
+				this.getContext().getLog().error("Could not close the checkpoint log: {}", e.getMessage());
+			}
+		}
+	}
+
+	private Behavior<Message> abort(String reason) {
+		// The miner finalizes the results that it has, which shuts the system down, and ignores the messages of the remaining workers.
+		this.aborted = true;
+		this.getContext().getLog().error("Aborting the discovery, because {}; the results of this run are incomplete.", reason);
+		this.end();
+		return Behaviors.ignore();
+	}
+
+	private void logTail() {
+		// Tail idle time is the time that workers sat without a task while others were still checking; it is zero for a perfect schedule.
+		long endTime = System.currentTimeMillis();
+		long totalIdle = 0;
+		long maxIdle = 0;
+		for (long since : this.idleSince.values()) {
+			totalIdle += endTime - since;
+			maxIdle = Math.max(maxIdle, endTime - since);
+		}
+		this.getContext().getLog().info("Validated {} tasks in a makespan of {} ms; {} workers idled {} ms in total at the tail (at most {} ms each).",
+				tasksDone, endTime - this.validationStartTime, this.idleSince.size(), totalIdle, maxIdle);
+		this.getContext().getLog().info("Idle workers stole {} queued tasks from other workers and ran {} speculative duplicates of overdue tasks.", stolenTasks, speculativeTasks);
+		if (this.checkedCost > 0)
+			this.getContext().getLog().info("Containment checks took {} ns per value on average.", String.format("%.2f", (double) this.checkNanos / this.checkedCost));
 	}
 
 	private Behavior<Message> handle(Terminated signal) {
+		if (this.readingSlots.contains(signal.getRef())) {
+			this.handleNodeTermination(signal.getRef().unsafeUpcast());
+			return this;
+		}
+
 		ActorRef<DependencyWorker.Message> dependencyWorker = signal.getRef().unsafeUpcast();
-		tasks.push(currentTasks.get(dependencyWorker)); //put task of dead Worker back to list
+		this.getContext().getLog().warn("{} terminated.", dependencyWorker.path());
+		// Only the owner of a partition holds its values, so without its result no candidate can be decided.
+		if (this.partitionOwners != null && this.partitionOwners.contains(dependencyWorker) && !this.reportedPartitions.contains(dependencyWorker))
+			return this.abort(dependencyWorker.path() + " terminated before it reported the candidates of its BINDER partition");
+		this.reclaimTasks(dependencyWorker); //put tasks of dead Worker back to list
 		this.dependencyWorkers.remove(dependencyWorker);
+		this.dependencyWorkerProxies.remove(dependencyWorker);
+		this.expiredWorkers.remove(dependencyWorker);
+		this.leaseRenewals.remove(dependencyWorker);
+		MetricsSingleton.get().remove("DependencyWorker", dependencyWorker.path().toString());
+		this.assignIdleWorkers();
 		return this;
 	}
-}
\ No newline at end of file
+
+	private void handleNodeTermination(ActorRef<Worker.Message> worker) {
+		// The files that the node was reading go back to the queue and on to the reading slots of the remaining nodes; its
+		// dependency workers are terminated as well and clean up after themselves.
+		List<Integer> lostFiles = new ArrayList<>();
+		for (Map.Entry<Integer, ActorRef<Worker.Message>> entry : this.fileReaders.entrySet())
+			if (entry.getValue().equals(worker))
+				lostFiles.add(entry.getKey());
+		for (int id : lostFiles)
+			this.fileReaders.remove(id);
+		for (int i = lostFiles.size() - 1; i >= 0; i--)
+			this.pendingFiles.addFirst(lostFiles.get(i));
+		this.readingSlots.removeIf(slot -> slot.equals(worker));
+		if (!lostFiles.isEmpty())
+			this.getContext().getLog().warn("{} terminated while reading {} files, which other nodes read instead.", worker.path(), lostFiles.size());
+
+		// A slot is idle if its node reads fewer files than it has slots, e.g. because the queue was empty when it asked.
+		Map<ActorRef<Worker.Message>, Integer> busySlots = new HashMap<>();
+		for (ActorRef<Worker.Message> reader : this.fileReaders.values())
+			busySlots.merge(reader, 1, Integer::sum);
+		for (ActorRef<Worker.Message> slot : new ArrayList<>(this.readingSlots))
+			if (busySlots.merge(slot, -1, Integer::sum) < 0)
+				this.assignNextFile(slot);
+	}
+}
@@ -7,14 +7,24 @@ import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
 import akka.actor.typed.receptionist.Receptionist;
+import de.ddm.actors.Worker;
 import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.algorithms.BinderPartition;
+import de.ddm.algorithms.ContainmentCheck;
 import de.ddm.serialization.AkkaSerializable;
+import de.ddm.singletons.DomainConfigurationSingleton;
 import de.ddm.structures.InclusionDependency;
 import de.ddm.structures.Task;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class DependencyWorker extends AbstractBehavior<DependencyWorker.Message> {
@@ -34,19 +44,57 @@ public class DependencyWorker extends AbstractBehavior<DependencyWorker.Message>
 		Receptionist.Listing listing;
 	}
 
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class RegistrationRequestMessage implements Message {
+		private static final long serialVersionUID = -8157306249731146958L;
+		ActorRef<DependencyMiner.Message> dependencyMiner;
+	}
+
 	@Getter
 	@NoArgsConstructor
 	@AllArgsConstructor
 	public static class TaskMessage implements Message {
 		private static final long serialVersionUID = -4667745204456518160L;
-		ActorRef<LargeMessageProxy.Message> dependencyMinerLargeMessageProxy;
+		ActorRef<DependencyMiner.Message> dependencyMiner;
 		Task task;
-		Set<String> dependentColumn;
-		Set<String> referencedColumn;
 	}
 
-	public ActorRef<LargeMessageProxy.Message> getLargeMessageProxy(){
-		return this.largeMessageProxy;
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class ColumnsMessage implements Message {
+		private static final long serialVersionUID = 3164913858027349104L;
+		int taskId;
+		int[][] columns;
+	}
+
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class RevokeTaskMessage implements Message {
+		private static final long serialVersionUID = -2261859834310771702L;
+		int taskId;		// A queued task that the miner has handed to an idle worker instead
+	}
+
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class PartitionMessage implements Message, LargeMessageProxy.ImmutableLargeMessage {
+		private static final long serialVersionUID = -3841226607953390414L;
+		int[] columnIds;
+		List<String[]> values;	// The distinct values of each column that hash into this worker's partition
+	}
+
+	@Getter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class ValidatePartitionMessage implements Message {
+		private static final long serialVersionUID = 6014790312286510248L;
+		ActorRef<DependencyMiner.Message> dependencyMiner;
+		int numColumns;
+		int numPartitionMessages;	// Partition messages travel through the large message proxies and may arrive after this one
 	}
 
 	////////////////////////
@@ -55,12 +103,13 @@ public class DependencyWorker extends AbstractBehavior<DependencyWorker.Message>
 
 	public static final String DEFAULT_NAME = "dependencyWorker";
 
-	public static Behavior<Message> create() {
-		return Behaviors.setup(DependencyWorker::new);
+	public static Behavior<Message> create(ActorRef<Worker.Message> columnCache) {
+		return Behaviors.setup(context -> new DependencyWorker(context, columnCache));
 	}
 
-	private DependencyWorker(ActorContext<Message> context) {
+	private DependencyWorker(ActorContext<Message> context, ActorRef<Worker.Message> columnCache) {
 		super(context);
+		this.columnCache = columnCache;
 
 		final ActorRef<Receptionist.Listing> listingResponseAdapter = context.messageAdapter(Receptionist.Listing.class, ReceptionistListingMessage::new);
 		context.getSystem().receptionist().tell(Receptionist.subscribe(DependencyMiner.dependencyMinerService, listingResponseAdapter));
@@ -73,6 +122,15 @@ public class DependencyWorker extends AbstractBehavior<DependencyWorker.Message>
 	/////////////////
 
 	private final ActorRef<LargeMessageProxy.Message> largeMessageProxy;
+	private final ActorRef<Worker.Message> columnCache;
+	private TaskMessage currentTask;
+	private final ArrayDeque<TaskMessage> queuedTasks = new ArrayDeque<>();
+	private final Map<Integer, int[][]> prefetchedColumns = new HashMap<>();
+	private final Set<Integer> requestedTasks = new HashSet<>();
+	private final BinderPartition partition = new BinderPartition();
+	private int receivedPartitionMessages = 0;
+	private ValidatePartitionMessage pendingValidation;
+	private final ContainmentCheck containmentCheck = DomainConfigurationSingleton.get().getContainmentCheck();
 
 	////////////////////
 	// Actor Behavior //
@@ -82,29 +140,127 @@ public class DependencyWorker extends AbstractBehavior<DependencyWorker.Message>
 	public Receive<Message> createReceive() {
 		return newReceiveBuilder()
 				.onMessage(ReceptionistListingMessage.class, this::handle)
+				.onMessage(RegistrationRequestMessage.class, this::handle)
 				.onMessage(TaskMessage.class, this::handle)
+				.onMessage(ColumnsMessage.class, this::handle)
+				.onMessage(RevokeTaskMessage.class, this::handle)
+				.onMessage(PartitionMessage.class, this::handle)
+				.onMessage(ValidatePartitionMessage.class, this::handle)
 				.build();
 	}
 
 	private Behavior<Message> handle(ReceptionistListingMessage message) {
 		Set<ActorRef<DependencyMiner.Message>> dependencyMiners = message.getListing().getServiceInstances(DependencyMiner.dependencyMinerService);
 		for (ActorRef<DependencyMiner.Message> dependencyMiner : dependencyMiners)
-			dependencyMiner.tell(new DependencyMiner.RegistrationMessage(this.getContext().getSelf(), this.largeMessageProxy));
+			this.register(dependencyMiner);
 		return this;
 	}
 
+	private Behavior<Message> handle(RegistrationRequestMessage message) {
+		this.register(message.getDependencyMiner());
+		return this;
+	}
+
+	private void register(ActorRef<DependencyMiner.Message> dependencyMiner) {
+		dependencyMiner.tell(new DependencyMiner.RegistrationMessage(this.getContext().getSelf(), this.columnCache, this.largeMessageProxy));
+	}
+
 	private Behavior<Message> handle(TaskMessage message) {
+		this.queuedTasks.add(message);
+		this.startNextTask();
+		return this;
+	}
 
-		this.getContext().getLog().info("Received a Task! Checking {} c {}", message.task.getDependentAttribute(), message.task.getReferencedAttribute());
-		for(String c1 : message.dependentColumn){
-			if(!message.referencedColumn.contains(c1)){
-				LargeMessageProxy.LargeMessage completionMessage = new DependencyMiner.CompletionMessage(this.getContext().getSelf(), message.task.getReferencedAttribute(), message.task.getDependentAttribute(), false);
-				this.largeMessageProxy.tell(new LargeMessageProxy.SendMessage(completionMessage, message.getDependencyMinerLargeMessageProxy()));
-				return this;
-			}
+	private Behavior<Message> handle(ColumnsMessage message) {
+		if (this.currentTask != null && this.currentTask.getTask().getId() == message.getTaskId()) {
+			this.check(message.getColumns());
+			this.startNextTask();
+		} else if (this.requestedTasks.contains(message.getTaskId())) {
+			this.prefetchedColumns.put(message.getTaskId(), message.getColumns());
 		}
-		LargeMessageProxy.LargeMessage completionMessage = new DependencyMiner.CompletionMessage(this.getContext().getSelf(), message.task.getReferencedAttribute(), message.task.getDependentAttribute(), true);
-		this.largeMessageProxy.tell(new LargeMessageProxy.SendMessage(completionMessage, message.getDependencyMinerLargeMessageProxy()));
 		return this;
 	}
+
+	private Behavior<Message> handle(RevokeTaskMessage message) {
+		// A task that is already running is simply finished; the miner ignores its second completion.
+		this.queuedTasks.removeIf(queued -> queued.getTask().getId() == message.getTaskId());
+		this.requestedTasks.remove(message.getTaskId());
+		this.prefetchedColumns.remove(message.getTaskId());
+		return this;
+	}
+
+	private void startNextTask() {
+		while (this.currentTask == null && !this.queuedTasks.isEmpty()) {
+			this.currentTask = this.queuedTasks.poll();
+			Task task = this.currentTask.getTask();
+			this.getContext().getLog().info("Received a Task! Checking column {} against {} candidates", task.getDependentColumnId(), task.getReferencedColumnIds().length);
+
+			int[][] columns = this.prefetchedColumns.remove(task.getId());
+			if (columns != null)
+				this.check(columns);
+			else
+				this.requestColumns(this.currentTask);
+		}
+
+		// The columns of the next queued task are fetched while the current one is checked, which hides the transfer time.
+		if (!this.queuedTasks.isEmpty())
+			this.requestColumns(this.queuedTasks.peek());
+	}
+
+	private void requestColumns(TaskMessage message) {
+		Task task = message.getTask();
+		if (!this.requestedTasks.add(task.getId()))
+			return;
+
+		int[] columnIds = new int[task.getReferencedColumnIds().length + 1];
+		columnIds[0] = task.getDependentColumnId();
+		System.arraycopy(task.getReferencedColumnIds(), 0, columnIds, 1, task.getReferencedColumnIds().length);
+		this.columnCache.tell(new Worker.ColumnsRequestMessage(this.getContext().getSelf(), message.getDependencyMiner(), task.getId(), columnIds));
+	}
+
+	private void check(int[][] columns) {
+		TaskMessage taskMessage = this.currentTask;
+		this.currentTask = null;
+		this.requestedTasks.remove(taskMessage.getTask().getId());
+
+		long start = System.nanoTime();
+		BitSet results = new BitSet(columns.length - 1);
+		for (int i = 1; i < columns.length; i++)
+			if (this.containmentCheck.isContained(columns[0], columns[i]))
+				results.set(i - 1);
+		long checkNanos = System.nanoTime() - start;
+
+		Task task = taskMessage.getTask();
+		taskMessage.getDependencyMiner().tell(new DependencyMiner.CompletionMessage(this.getContext().getSelf(), task.getId(), task.getDependentColumnId(), task.getReferencedColumnIds(), results.toLongArray(), checkNanos));
+	}
+
+	private Behavior<Message> handle(PartitionMessage message) {
+		for (int i = 0; i < message.getColumnIds().length; i++)
+			this.partition.add(message.getColumnIds()[i], message.getValues().get(i));
+		this.receivedPartitionMessages++;
+		this.validatePartitionIfComplete();
+		return this;
+	}
+
+	private Behavior<Message> handle(ValidatePartitionMessage message) {
+		this.pendingValidation = message;
+		this.validatePartitionIfComplete();
+		return this;
+	}
+
+	private void validatePartitionIfComplete() {
+		if (this.pendingValidation == null || this.receivedPartitionMessages < this.pendingValidation.getNumPartitionMessages())
+			return;
+
+		this.getContext().getLog().info("Validating all candidates on a partition of {} distinct values", this.partition.size());
+		BitSet[] referenced = this.partition.validate(this.pendingValidation.getNumColumns());
+		long[][] results = new long[referenced.length][];
+		for (int column = 0; column < referenced.length; column++)
+			results[column] = referenced[column].toLongArray();
+		this.pendingValidation.getDependencyMiner().tell(new DependencyMiner.PartitionResultMessage(this.getContext().getSelf(), this.partition.size(), results));
+
+		this.partition.clear();
+		this.receivedPartitionMessages = 0;
+		this.pendingValidation = null;
+	}
 }
@@ -2,16 +2,21 @@ package de.ddm.actors.profiling;
 
 import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
+import akka.actor.typed.DispatcherSelector;
 import akka.actor.typed.PostStop;
 import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
-import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.configuration.ParserConfiguration;
+import de.ddm.metrics.Metrics;
 import de.ddm.serialization.AkkaSerializable;
 import de.ddm.singletons.DomainConfigurationSingleton;
-import de.ddm.singletons.InputConfigurationSingleton;
+import de.ddm.singletons.MetricsSingleton;
+import de.ddm.structures.InputFileCache;
+import de.ddm.structures.MappedCSVReader;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -43,7 +48,8 @@ public class InputReader extends AbstractBehavior<InputReader.Message> {
 	@AllArgsConstructor
 	public static class ReadBatchMessage implements Message {
 		private static final long serialVersionUID = -7915854043207237318L;
-		ActorRef<DependencyMiner.Message> replyTo;
+		ActorRef<ColumnBuilder.Message> replyTo;
+		int credits;	// The number of further batches that the receiver is willing to take
 	}
 
 	////////////////////////
@@ -52,17 +58,51 @@ public class InputReader extends AbstractBehavior<InputReader.Message> {
 
 	public static final String DEFAULT_NAME = "inputReader";
 
-	public static Behavior<Message> create(final int id, final File inputFile) {
-		return Behaviors.setup(context -> new InputReader(context, id, inputFile));
+	public static Behavior<Message> create(final int id, final File inputFile, final ParserConfiguration parserConfiguration) {
+		return Behaviors.setup(context -> new InputReader(context, id, inputFile, parserConfiguration));
+	}
+
+	/**
+	 * Delivers the header and the distinct column values of the input file to the miner: straight from the input file cache
+	 * if it holds a valid entry, otherwise through a new InputReader and ColumnBuilder pair spawned as children of the context.
+	 * The file is parsed with the given settings, which on worker nodes are the master's.
+	 */
+	public static void startReading(ActorContext<?> context, int id, File inputFile, ParserConfiguration parserConfiguration, ActorRef<DependencyMiner.Message> dependencyMiner,
+									ActorRef<LargeMessageProxy.Message> largeMessageProxy, ActorRef<LargeMessageProxy.Message> dependencyMinerProxy) {
+		InputFileCache inputFileCache = parserConfiguration.createInputFileCache();
+		if (inputFileCache != null) {
+			try {
+				InputFileCache.CachedFile cachedFile = inputFileCache.load(inputFile);
+				if (cachedFile != null) {
+					context.getLog().info("Loaded {} rows of {} from the input file cache.", cachedFile.getNumRows(), inputFile);
+					dependencyMiner.tell(new DependencyMiner.HeaderMessage(id, cachedFile.getHeader()));
+					largeMessageProxy.tell(new LargeMessageProxy.SendMessage(new DependencyMiner.ColumnsMessage(id, cachedFile.getDistinctValues()), dependencyMinerProxy));
+					return;
+				}
+			} catch (IOException e) {
+				context.getLog().warn("Could not load {} from the input file cache: {}", inputFile, e.getMessage());
+			}
+		}
+
+		// The initial credits are granted on behalf of the column builder, which then returns one credit per batch.
+		int prefetchBatches = Math.max(1, DomainConfigurationSingleton.get().getInputReaderPrefetchBatches());
+		ActorRef<Message> inputReader = context.spawn(create(id, inputFile, parserConfiguration), DEFAULT_NAME + "_" + id);
+		ActorRef<ColumnBuilder.Message> columnBuilder = context.spawn(ColumnBuilder.create(id, inputFile, parserConfiguration, inputReader, largeMessageProxy, dependencyMinerProxy),
+				ColumnBuilder.DEFAULT_NAME + "_" + id, DispatcherSelector.fromConfig("akka.worker-pool-dispatcher"));
+		inputReader.tell(new ReadHeaderMessage(dependencyMiner));
+		inputReader.tell(new ReadBatchMessage(columnBuilder, prefetchBatches));
 	}
 
-	private InputReader(ActorContext<Message> context, final int id, final File inputFile) throws IOException, CsvValidationException {
+	private InputReader(ActorContext<Message> context, final int id, final File inputFile, final ParserConfiguration parserConfiguration) throws IOException, CsvValidationException {
 		super(context);
 		this.id = id;
-		this.reader = InputConfigurationSingleton.get().createCSVReader(inputFile);
-		this.header = InputConfigurationSingleton.get().getHeader(inputFile);
+		this.reader = parserConfiguration.createMappedCSVReader(inputFile,
+				DomainConfigurationSingleton.get().getInputReaderChunkSize(), DomainConfigurationSingleton.get().getInputReaderParallelism());
+		this.header = parserConfiguration.getHeader(inputFile);
+		this.inputFile = inputFile;
+		this.rows = MetricsSingleton.get().group("InputReader", inputFile.getName()).meter("rows");
 		
-		if (InputConfigurationSingleton.get().isFileHasHeader())
+		if (parserConfiguration.isFileHasHeader())
 			this.reader.readNext();
 	}
 
@@ -71,9 +111,13 @@ public class InputReader extends AbstractBehavior<InputReader.Message> {
 	/////////////////
 
 	private final int id;
+	private final File inputFile;
 	private final int batchSize = DomainConfigurationSingleton.get().getInputReaderBatchSize();
-	private final CSVReader reader;
+	private final MappedCSVReader reader;
 	private final String[] header;
+	private final Metrics.Meter rows;
+	private int credits = 0;
+	private boolean exhausted = false;
 
 	////////////////////
 	// Actor Behavior //
@@ -94,19 +138,33 @@ public class InputReader extends AbstractBehavior<InputReader.Message> {
 	}
 
 	private Behavior<Message> handle(ReadBatchMessage message) throws IOException, CsvValidationException {
-		List<String[]> batch = new ArrayList<>(this.batchSize);
-		for (int i = 0; i < this.batchSize; i++) {
-			String[] line = this.reader.readNext();
-			if (line == null)
-				break;
-			batch.add(line);
+		// Every credit allows one more batch in flight, so the reader works ahead of its column builder without flooding its mailbox.
+		this.credits += message.getCredits();
+		while (this.credits > 0 && !this.exhausted) {
+			List<String[]> batch = new ArrayList<>(this.batchSize);
+			for (int i = 0; i < this.batchSize; i++) {
+				String[] line = this.reader.readNext();
+				if (line == null)
+					break;
+				batch.add(line);
+			}
+
+			// The empty batch tells the column builder that the file is done.
+			this.exhausted = batch.isEmpty();
+			this.credits--;
+			this.rows.mark(batch.size());
+			message.getReplyTo().tell(new ColumnBuilder.BatchMessage(this.id, batch));
 		}
 
-		message.getReplyTo().tell(new DependencyMiner.BatchMessage(this.id, batch));
+		// Once the end of the file is sent, the reader stops, so that PostStop closes the file and unmaps its chunks; credits
+		// that the column builder returns afterwards are not needed anymore.
+		if (this.exhausted)
+			return Behaviors.stopped();
 		return this;
 	}
 
 	private Behavior<Message> handle(PostStop signal) throws IOException {
+		MetricsSingleton.get().remove("InputReader", this.inputFile.getName());
 		this.reader.close();
 		return this;
 	}
@@ -1,25 +1,33 @@
 package de.ddm.actors.profiling;
 
+import akka.actor.typed.ActorRef;
 import akka.actor.typed.Behavior;
 import akka.actor.typed.PostStop;
 import akka.actor.typed.javadsl.AbstractBehavior;
 import akka.actor.typed.javadsl.ActorContext;
 import akka.actor.typed.javadsl.Behaviors;
 import akka.actor.typed.javadsl.Receive;
+import akka.actor.typed.javadsl.TimerScheduler;
 import de.ddm.actors.Guardian;
 import de.ddm.serialization.AkkaSerializable;
 import de.ddm.singletons.DomainConfigurationSingleton;
+import de.ddm.singletons.SystemConfigurationSingleton;
 import de.ddm.structures.InclusionDependency;
+import de.ddm.structures.ResultSink;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 
+/**
+ * Collects the discovered INDs and passes them on to a ResultSink, which writes them in the configured format on a
+ * thread of its own. Results that arrive one completed task at a time are batched and handed over once a batch is full
+ * or the flush timer fires, so that neither encoding nor disk I/O delays the collector's mailbox.
+ */
 public class ResultCollector extends AbstractBehavior<ResultCollector.Message> {
 
 	////////////////////
@@ -43,6 +51,11 @@ public class ResultCollector extends AbstractBehavior<ResultCollector.Message> {
 		private static final long serialVersionUID = -6603856949941810321L;
 	}
 
+	@NoArgsConstructor
+	public static class FlushMessage implements Message {
+		private static final long serialVersionUID = 2914582372466092835L;
+	}
+
 	////////////////////////
 	// Actor Construction //
 	////////////////////////
@@ -50,27 +63,39 @@ public class ResultCollector extends AbstractBehavior<ResultCollector.Message> {
 	public static final String DEFAULT_NAME = "resultCollector";
 
 	public static Behavior<Message> create() {
-		return Behaviors.setup(ResultCollector::new);
+		return Behaviors.setup(
+				context -> create(DomainConfigurationSingleton.get().getResultCollectorOutputFileName(), context.getSystem().unsafeUpcast()));
 	}
 
-	private ResultCollector(ActorContext<Message> context) throws IOException {
+	public static Behavior<Message> create(String outputFileName, ActorRef<Guardian.Message> guardian) {
+		return Behaviors.setup(
+				context -> Behaviors.withTimers(timers -> new ResultCollector(context, timers, outputFileName, guardian)));
+	}
+
+	private ResultCollector(ActorContext<Message> context, TimerScheduler<Message> timers, String outputFileName, ActorRef<Guardian.Message> guardian) throws IOException {
 		super(context);
+		this.guardian = guardian;
 
-		File file = new File(DomainConfigurationSingleton.get().getResultCollectorOutputFileName());
+		ResultSink.Encoder encoder = ResultSink.createEncoder(SystemConfigurationSingleton.get().getResultFormat());
+		File file = ResultSink.resultFile(outputFileName, encoder);
 		if (file.exists() && !file.delete())
 			throw new IOException("Could not delete existing result file: " + file.getName());
 		if (!file.createNewFile())
 			throw new IOException("Could not create result file: " + file.getName());
 
-		this.writer = new BufferedWriter(new FileWriter(file));
+		this.sink = new ResultSink(file, encoder, DomainConfigurationSingleton.get().getResultCollectorBatchSize(), DomainConfigurationSingleton.get().getResultCollectorQueueSize());
+		Duration flushInterval = Duration.ofMillis(DomainConfigurationSingleton.get().getResultCollectorFlushInterval());
+		timers.startTimerAtFixedRate("Flush", new FlushMessage(), flushInterval, flushInterval);
+		this.timers = timers;
 	}
 
 	/////////////////
 	// Actor State //
 	/////////////////
 
-	private final BufferedWriter writer;
-	private int countINDs = 0;
+	private final ResultSink sink;
+	private final TimerScheduler<Message> timers;
+	private final ActorRef<Guardian.Message> guardian;	// Shuts the system down once the results are written
 
 	////////////////////
 	// Actor Behavior //
@@ -81,31 +106,36 @@ public class ResultCollector extends AbstractBehavior<ResultCollector.Message> {
 		return newReceiveBuilder()
 				.onMessage(ResultMessage.class, this::handle)
 				.onMessage(FinalizeMessage.class, this::handle)
+				.onMessage(FlushMessage.class, this::handle)
 				.onSignal(PostStop.class, this::handle)
 				.build();
 	}
 
 	private Behavior<Message> handle(ResultMessage message) throws IOException {
-		countINDs += 1;
-		for (InclusionDependency ind : message.getInclusionDependencies()) {
-			this.getContext().getLog().info("Received an IND! {}", ind.toString());
-			this.writer.write(ind.toString());
-			this.writer.newLine();
-		}
+		if (this.getContext().getLog().isDebugEnabled())
+			for (InclusionDependency ind : message.getInclusionDependencies())
+				this.getContext().getLog().debug("Received an IND! {}", ind);
+		this.sink.add(message.getInclusionDependencies());
+		return this;
+	}
 
+	private Behavior<Message> handle(FlushMessage message) throws IOException {
+		this.sink.flush();
 		return this;
 	}
 
 	private Behavior<Message> handle(FinalizeMessage message) throws IOException {
-		this.getContext().getLog().info("Received FinalizeMessage! I collected " + countINDs + " INDs!");
+		this.getContext().getLog().info("Received FinalizeMessage! I collected " + this.sink.getNumResults() + " INDs!");
 
-		this.writer.flush();
-		this.getContext().getSystem().unsafeUpcast().tell(new Guardian.ShutdownMessage());
+		// Closing waits for the writer thread, so the result file is complete before the system shuts down.
+		this.timers.cancelAll();
+		this.sink.close();
+		this.guardian.tell(new Guardian.ShutdownMessage());
 		return this;
 	}
 
 	private Behavior<Message> handle(PostStop signal) throws IOException {
-		this.writer.close();
+		this.sink.close();
 		return this;
 	}
 }
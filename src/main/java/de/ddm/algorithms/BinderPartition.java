@@ -0,0 +1,68 @@
+package de.ddm.algorithms;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+
+import java.util.BitSet;
+
+/**
+ * One hash partition of all input values for validation in the style of BINDER: an inverted index from every value to the
+ * columns that contain it. Equal values always land in the same partition, so a candidate a &sube; b is refuted globally as
+ * soon as any partition holds a value of a that b lacks. Every partition can therefore be validated on its own, and the
+ * surviving candidates of all partitions only need to be intersected.
+ */
+public class BinderPartition {
+
+	private final Object2ObjectOpenHashMap<String, IntArrayList> columnsByValue = new Object2ObjectOpenHashMap<>();
+
+	public static int partitionOf(String value, int numPartitions) {
+		// The hash is mixed so that the partitions do not correlate with the buckets of the hash sets that hold them.
+		return value == null ? 0 : Math.floorMod(HashCommon.murmurHash3(value.hashCode()), numPartitions);
+	}
+
+	/**
+	 * @param values distinct values of the column that fall into this partition; every column may be added only once
+	 */
+	public void add(int columnId, String[] values) {
+		for (String value : values) {
+			IntArrayList columns = this.columnsByValue.get(value);
+			if (columns == null) {
+				columns = new IntArrayList(2);
+				this.columnsByValue.put(value, columns);
+			}
+			columns.add(columnId);
+		}
+	}
+
+	public int size() {
+		return this.columnsByValue.size();
+	}
+
+	/**
+	 * @return for every dependent column index the set of referenced column indexes that are not refuted by this partition
+	 */
+	public BitSet[] validate(int numColumns) {
+		BitSet[] referenced = new BitSet[numColumns];
+		for (int column = 0; column < numColumns; column++) {
+			referenced[column] = new BitSet(numColumns);
+			referenced[column].set(0, numColumns);
+			referenced[column].clear(column);
+		}
+
+		BitSet group = new BitSet(numColumns);
+		for (IntArrayList columns : this.columnsByValue.values()) {
+			group.clear();
+			for (int i = 0; i < columns.size(); i++)
+				group.set(columns.getInt(i));
+			for (int i = 0; i < columns.size(); i++)
+				referenced[columns.getInt(i)].and(group);
+		}
+		return referenced;
+	}
+
+	public void clear() {
+		this.columnsByValue.clear();
+		this.columnsByValue.trim();
+	}
+}
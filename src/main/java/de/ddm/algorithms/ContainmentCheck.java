@@ -0,0 +1,52 @@
+package de.ddm.algorithms;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+/**
+ * Kernels that decide whether all values of a dependent column are contained in a referenced column.
+ * Both columns are expected as sorted arrays of distinct dictionary ids.
+ */
+public enum ContainmentCheck {
+
+	/**
+	 * Builds a hash set over the referenced column and probes it with every dependent value.
+	 */
+	HASH {
+		@Override
+		public boolean isContained(int[] dependentColumn, int[] referencedColumn) {
+			if (dependentColumn.length > referencedColumn.length)
+				return false;
+
+			IntOpenHashSet referencedValues = new IntOpenHashSet(referencedColumn);
+			for (int value : dependentColumn)
+				if (!referencedValues.contains(value))
+					return false;
+			return true;
+		}
+	},
+
+	/**
+	 * Walks both sorted columns in a single linear merge scan and stops at the first dependent value that is missing.
+	 */
+	SORT_MERGE {
+		@Override
+		public boolean isContained(int[] dependentColumn, int[] referencedColumn) {
+			int referencedIndex = 0;
+			for (int dependentIndex = 0; dependentIndex < dependentColumn.length; dependentIndex++) {
+				if (dependentColumn.length - dependentIndex > referencedColumn.length - referencedIndex)
+					return false;
+
+				int value = dependentColumn[dependentIndex];
+				while (referencedIndex < referencedColumn.length && referencedColumn[referencedIndex] < value)
+					referencedIndex++;
+
+				if (referencedIndex == referencedColumn.length || referencedColumn[referencedIndex] != value)
+					return false;
+				referencedIndex++;
+			}
+			return true;
+		}
+	};
+
+	public abstract boolean isContained(int[] dependentColumn, int[] referencedColumn);
+}
@@ -0,0 +1,84 @@
+package de.ddm.algorithms;
+
+import it.unimi.dsi.fastutil.ints.IntHeapPriorityQueue;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntIterators;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Single-pass unary IND discovery in the style of SPIDER: all columns are read as sorted streams of distinct ids and merged
+ * with a priority queue. Every group of columns that share the current minimum value refutes all candidates that point
+ * from a member of the group to a column outside of it, so one merge pass settles every candidate pair.
+ */
+public class Spider {
+
+	/**
+	 * @param columns sorted arrays of distinct dictionary ids, one per attribute
+	 * @return for every dependent column index the set of referenced column indexes that contain it
+	 */
+	public static BitSet[] discover(List<int[]> columns) {
+		List<IntIterator> streams = new ArrayList<>(columns.size());
+		for (int[] column : columns)
+			streams.add(IntIterators.wrap(column));
+		return discoverStreams(streams);
+	}
+
+	/**
+	 * Merges the columns as streams, so that they need not be in memory at once, e.g. if they are read from disk.
+	 *
+	 * @param columns ascending iterators over the distinct dictionary ids of every attribute
+	 * @return for every dependent column index the set of referenced column indexes that contain it
+	 */
+	public static BitSet[] discoverStreams(List<IntIterator> columns) {
+		final int numColumns = columns.size();
+		final IntIterator[] streams = columns.toArray(new IntIterator[numColumns]);
+		final int[] values = new int[numColumns];
+
+		BitSet[] referenced = new BitSet[numColumns];
+		for (int column = 0; column < numColumns; column++) {
+			referenced[column] = new BitSet(numColumns);
+			referenced[column].set(0, numColumns);
+			referenced[column].clear(column);
+		}
+
+		IntHeapPriorityQueue queue = new IntHeapPriorityQueue(numColumns,
+				(a, b) -> Integer.compare(values[a], values[b]));
+		for (int column = 0; column < numColumns; column++) {
+			if (streams[column].hasNext()) {
+				values[column] = streams[column].nextInt();
+				queue.enqueue(column);
+			}
+		}
+
+		BitSet group = new BitSet(numColumns);
+		int[] groupMembers = new int[numColumns];
+		while (!queue.isEmpty()) {
+			int first = queue.dequeueInt();
+			int value = values[first];
+
+			int groupSize = 0;
+			groupMembers[groupSize++] = first;
+			while (!queue.isEmpty() && values[queue.firstInt()] == value)
+				groupMembers[groupSize++] = queue.dequeueInt();
+
+			group.clear();
+			for (int i = 0; i < groupSize; i++)
+				group.set(groupMembers[i]);
+
+			for (int i = 0; i < groupSize; i++) {
+				int column = groupMembers[i];
+				referenced[column].and(group);
+
+				// Current values may only change while the column is out of the queue, because the comparator reads them.
+				if (streams[column].hasNext()) {
+					values[column] = streams[column].nextInt();
+					queue.enqueue(column);
+				}
+			}
+		}
+		return referenced;
+	}
+}
@@ -19,6 +19,15 @@ public abstract class Command {
 	@Parameter(names = {"-w", "--numWorkers"}, description = "The number of workers (indexers/validators) to start locally; should be at least one if the algorithm is started standalone (otherwise there are no workers to run the discovery)", required = false)
 	int numWorkers = SystemConfigurationSingleton.get().getNumWorkers();
 
+	@Parameter(names = {"-lt", "--leaseTimeout"}, description = "The ms after which the master takes the tasks back from a dependency worker whose node it has not heard from; worker nodes renew the leases three times per timeout", required = false)
+	long leaseTimeout = SystemConfigurationSingleton.get().getLeaseTimeout();
+
+	@Parameter(names = {"-cft", "--columnFetchTimeout"}, description = "The ms after which a worker node requests a column again whose transfer through the large message proxies has not arrived; the timeout doubles with every retry", required = false)
+	long columnFetchTimeout = SystemConfigurationSingleton.get().getColumnFetchTimeout();
+
+	@Parameter(names = {"-ac", "--adaptiveCompression"}, description = "Compress large messages only while the measured bandwidth to their receiver, not the compression speed, limits the transfer time; otherwise, compress every message that spans several chunks", required = false, arity = 1)
+	boolean adaptiveCompression = SystemConfigurationSingleton.get().isAdaptiveCompression();
+
 	public static void applyOn(String[] args) {
 		CommandMaster commandMaster = new CommandMaster();
 		CommandWorker commandWorker = new CommandWorker();
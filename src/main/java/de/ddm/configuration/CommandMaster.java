@@ -21,6 +21,30 @@ public class CommandMaster extends Command {
 	@Parameter(names = {"-hm", "--hardMode"}, description = "Solve the hard version of the task", required = false, arity = 1)
 	boolean hardMode = SystemConfigurationSingleton.get().isHardMode();
 
+	@Parameter(names = {"-e", "--engine"}, description = "The discovery engine: TASKS validates candidate pairs on the workers, SPIDER merges all columns in a single pass on the master, BINDER validates hash partitions of the values on the workers", required = false)
+	SystemConfiguration.DiscoveryEngine engine = SystemConfigurationSingleton.get().getEngine();
+
+	@Parameter(names = {"-ew", "--expectedWorkers"}, description = "The number of dependency workers in the whole cluster that BINDER waits for before it partitions the values, because workers that join later get no partition; 0 waits for the master's own workers only", required = false)
+	int expectedWorkers = SystemConfigurationSingleton.get().getExpectedWorkers();
+
+	@Parameter(names = {"-dr", "--distributedReading"}, description = "Let the worker nodes read and deduplicate the input files; all nodes must see the input path under the same name", required = false, arity = 1)
+	boolean distributedReading = SystemConfigurationSingleton.get().isDistributedReading();
+
+	@Parameter(names = {"-csb", "--columnStoreBudget"}, description = "The maximum number of encoded column values that the master keeps in memory, or 4 bytes each of the string values that wait for encoding; larger columns are spilled to disk", required = false, arity = 1)
+	long columnStoreBudget = SystemConfigurationSingleton.get().getColumnStoreBudget();
+
+	@Parameter(names = {"-sd", "--spillDirectory"}, description = "The directory for the master's temporary spill files", required = false, arity = 1)
+	String spillDirectory = SystemConfigurationSingleton.get().getSpillDirectory();
+
+	@Parameter(names = {"-rf", "--resultFormat"}, description = "The format of the result file: TEXT, JSON_LINES or BINARY; the file name's extension follows the format", required = false)
+	SystemConfiguration.ResultFormat resultFormat = SystemConfigurationSingleton.get().getResultFormat();
+
+	@Parameter(names = {"-cp", "--checkpoint"}, description = "File of a log to which the master periodically writes its validation progress; it also caches the parsed input files next to it, unless an input cache is given", required = false, arity = 1)
+	String checkpointPath = SystemConfigurationSingleton.get().getCheckpointPath();
+
+	@Parameter(names = {"-r", "--resume"}, description = "Resume the run recorded in the checkpoint log; runs over changed input start over", required = false, arity = 1)
+	boolean resume = SystemConfigurationSingleton.get().isResume();
+
 	@Parameter(names = {"-ip", "--inputPath"}, description = "Input path for the input data; all files in this folder are considered", required = false, arity = 1)
 	String inputPath = InputConfigurationSingleton.get().getInputPath();
 
@@ -44,4 +68,7 @@ public class CommandMaster extends Command {
 
 	@Parameter(names = {"-viw", "--valueIgnoreLeadingWhitespace"}, description = "Ignore i.e. delete all whitespaces preceding any read value", required = false, arity = 1)
 	boolean attributeIgnoreLeadingWhitespace = InputConfigurationSingleton.get().isValueIgnoreLeadingWhitespace();
+
+	@Parameter(names = {"-ic", "--inputCache"}, description = "Directory of a columnar cache of the parsed input files, which repeat runs load instead of parsing; in distributed reading, all nodes must see it under the same path", required = false, arity = 1)
+	String inputCachePath = InputConfigurationSingleton.get().getInputCachePath();
 }
@@ -1,5 +1,6 @@
 package de.ddm.configuration;
 
+import de.ddm.algorithms.ContainmentCheck;
 import lombok.Data;
 
 @Data
@@ -7,6 +8,36 @@ public class DomainConfiguration {
 
 	private final int inputReaderBatchSize = 10000;
 
-	private final String resultCollectorOutputFileName = "results.txt";
+	private final int inputReaderPrefetchBatches = 4;	// The number of batches that each input reader may read ahead of the miner
+
+	private final int inputReaderChunkSize = 8 * 1024 * 1024;	// The number of bytes that one parser thread takes from an input file at a time
+
+	private final int inputReaderParallelism = Runtime.getRuntime().availableProcessors();	// The number of chunks that each input reader parses in parallel
+
+	private final String resultCollectorOutputFileName = "results.txt";	// The extension is replaced by the one of the chosen result format
+
+	private final int resultCollectorBatchSize = 4096;		// The number of INDs that the result collector hands to its writer thread at a time ...
+
+	private final long resultCollectorFlushInterval = 1000;	// ... or after at most this many ms
+
+	private final int resultCollectorQueueSize = 16;		// The number of batches that may wait for the writer thread before the result collector blocks
+
+	private final ContainmentCheck containmentCheck = ContainmentCheck.SORT_MERGE;
+
+	private final int taskBatchSize = 16;					// The maximum number of referenced candidate columns that one task checks a dependent column against
+
+	private final int workerTaskQueueSize = 3;				// The number of tasks that each worker holds at a time, i.e. the running one plus prefetched ones
+
+	private final double speculationFactor = 4.0;			// A running task is duplicated on an idle worker once it takes this many times longer than the measured checks predict ...
+
+	private final long speculationDelay = 1000;			// ... plus this many ms, which also is the interval in which idle workers look for stragglers
+
+	private final long checkpointInterval = 5000;			// The maximum number of ms between two syncs of the checkpoint log, i.e. the work that a crash of the master may lose
+
+	private final int minTasksPerWorker = 8;				// Tasks are cut so that no single task costs more than the total cost divided by this many tasks per worker
+
+	private final long metricsReportInterval = 10000;		// The ms between two metric summaries in the log, which also is the window of the reported rates
+
+	private final long workerColumnCacheSize = 25000000;	// The maximum number of column values that each worker node keeps cached
 
 }
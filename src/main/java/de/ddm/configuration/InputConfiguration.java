@@ -1,70 +1,30 @@
 package de.ddm.configuration;
 
-import com.opencsv.CSVParser;
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
-import com.opencsv.enums.CSVReaderNullFieldIndicator;
-import com.opencsv.exceptions.CsvValidationException;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 
 @Data
-public class InputConfiguration {
+@EqualsAndHashCode(callSuper = true)
+public class InputConfiguration extends ParserConfiguration {
 
 	private String inputPath = "data" + File.separator + "TPCH";
-	private boolean fileHasHeader = true;
-	private Charset charset = StandardCharsets.UTF_8;
-	private char valueSeparator = ';';
-	private char valueQuote = '"';
-	private char valueEscape = '\\';
-	private boolean valueStrictQuotes = false;
-	private boolean valueIgnoreLeadingWhitespace = false;
 
 	public void update(CommandMaster commandMaster) {
 		this.inputPath = commandMaster.inputPath;
-		this.fileHasHeader = commandMaster.fileHasHeader;
-		this.charset = commandMaster.charset;
-		this.valueSeparator = commandMaster.attributeSeparator;
-		this.valueQuote = commandMaster.attributeQuote;
-		this.valueEscape = commandMaster.attributeEscape;
-		this.valueStrictQuotes = commandMaster.attributeStrictQuotes;
-		this.valueIgnoreLeadingWhitespace = commandMaster.attributeIgnoreLeadingWhitespace;
+		this.setFileHasHeader(commandMaster.fileHasHeader);
+		this.setCharset(commandMaster.charset);
+		this.setValueSeparator(commandMaster.attributeSeparator);
+		this.setValueQuote(commandMaster.attributeQuote);
+		this.setValueEscape(commandMaster.attributeEscape);
+		this.setValueStrictQuotes(commandMaster.attributeStrictQuotes);
+		this.setValueIgnoreLeadingWhitespace(commandMaster.attributeIgnoreLeadingWhitespace);
+		// Checkpointed runs keep their columns in an input cache next to the log, so that resuming them does not parse the files again.
+		this.setInputCachePath(commandMaster.inputCachePath == null && commandMaster.checkpointPath != null ? commandMaster.checkpointPath + ".columns" : commandMaster.inputCachePath);
 	}
 
 	public File[] getInputFiles() {
 		return new File(this.inputPath).listFiles();
 	}
-
-	public CSVReader createCSVReader(File inputFile) throws IOException {
-		CSVParser parser = new CSVParserBuilder()
-				.withSeparator(this.valueSeparator)
-				.withQuoteChar(this.valueQuote)
-				.withEscapeChar(this.valueEscape)
-				.withStrictQuotes(this.valueStrictQuotes)
-				.withIgnoreLeadingWhiteSpace(this.valueIgnoreLeadingWhitespace)
-				.withFieldAsNull(CSVReaderNullFieldIndicator.EMPTY_SEPARATORS)
-				.build();
-
-		BufferedReader buffer = Files.newBufferedReader(inputFile.toPath(), this.charset);
-		return new CSVReaderBuilder(buffer).withCSVParser(parser).build();
-	}
-
-	public String[] getHeader(File inputFile) throws IOException, CsvValidationException {
-		CSVReader reader = this.createCSVReader(inputFile);
-
-		String[] line = reader.readNext();
-		reader.close();
-
-		if (!this.fileHasHeader)
-			for (int i = 0; i < line.length; i++)
-				line[i] = "Attr_" + (i + 1);
-		return line;
-	}
 }
@@ -0,0 +1,82 @@
+package de.ddm.configuration;
+
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.enums.CSVReaderNullFieldIndicator;
+import com.opencsv.exceptions.CsvValidationException;
+import de.ddm.structures.InputFileCache;
+import de.ddm.structures.MappedCSVReader;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * The settings that a node needs to parse input files. In distributed reading, the master ships them with every file
+ * assignment, so they hold only plain values and nothing that depends on the master's file system.
+ */
+@Data
+@NoArgsConstructor
+public class ParserConfiguration {
+
+	private boolean fileHasHeader = true;
+	private Charset charset = StandardCharsets.UTF_8;
+	private char valueSeparator = ';';
+	private char valueQuote = '"';
+	private char valueEscape = '\\';
+	private boolean valueStrictQuotes = false;
+	private boolean valueIgnoreLeadingWhitespace = false;
+	private String inputCachePath = null;	// The directory of the columnar input file cache; null disables the cache
+
+	public ParserConfiguration(ParserConfiguration other) {
+		this.fileHasHeader = other.fileHasHeader;
+		this.charset = other.charset;
+		this.valueSeparator = other.valueSeparator;
+		this.valueQuote = other.valueQuote;
+		this.valueEscape = other.valueEscape;
+		this.valueStrictQuotes = other.valueStrictQuotes;
+		this.valueIgnoreLeadingWhitespace = other.valueIgnoreLeadingWhitespace;
+		this.inputCachePath = other.inputCachePath;
+	}
+
+	public CSVReader createCSVReader(File inputFile) throws IOException {
+		CSVParser parser = new CSVParserBuilder()
+				.withSeparator(this.valueSeparator)
+				.withQuoteChar(this.valueQuote)
+				.withEscapeChar(this.valueEscape)
+				.withStrictQuotes(this.valueStrictQuotes)
+				.withIgnoreLeadingWhiteSpace(this.valueIgnoreLeadingWhitespace)
+				.withFieldAsNull(CSVReaderNullFieldIndicator.EMPTY_SEPARATORS)
+				.build();
+
+		BufferedReader buffer = Files.newBufferedReader(inputFile.toPath(), this.charset);
+		return new CSVReaderBuilder(buffer).withCSVParser(parser).build();
+	}
+
+	public MappedCSVReader createMappedCSVReader(File inputFile, int chunkSize, int parallelism) throws IOException {
+		return new MappedCSVReader(inputFile, this, chunkSize, parallelism);
+	}
+
+	public InputFileCache createInputFileCache() {
+		return this.inputCachePath == null ? null : new InputFileCache(new File(this.inputCachePath), this);
+	}
+
+	public String[] getHeader(File inputFile) throws IOException, CsvValidationException {
+		CSVReader reader = this.createCSVReader(inputFile);
+
+		String[] line = reader.readNext();
+		reader.close();
+
+		if (!this.fileHasHeader)
+			for (int i = 0; i < line.length; i++)
+				line[i] = "Attr_" + (i + 1);
+		return line;
+	}
+}
@@ -13,6 +13,18 @@ public class SystemConfiguration {
 	public static final String MASTER_ROLE = "master";
 	public static final String WORKER_ROLE = "worker";
 
+	public enum DiscoveryEngine {
+		TASKS,                                         // Validate every candidate pair as an individual task on the DependencyWorkers
+		SPIDER,                                        // Settle all candidates in one sort-merge pass over all columns on the master
+		BINDER                                         // Hash-partition the values across the DependencyWorkers and intersect the candidates that survive every partition
+	}
+
+	public enum ResultFormat {
+		TEXT,                                          // One IND per line in the human-readable form of InclusionDependency.toString
+		JSON_LINES,                                    // One JSON object per IND and line
+		BINARY                                         // Var-int encoded INDs that refer to attribute lists defined once in the stream
+	}
+
 	public static final int DEFAULT_MASTER_PORT = 7877;
 	public static final int DEFAULT_WORKER_PORT = 7879;
 
@@ -32,6 +44,28 @@ public class SystemConfiguration {
 
 	private boolean hardMode = false;					// Solve the hard version of the task
 
+	private DiscoveryEngine engine = DiscoveryEngine.TASKS; // The algorithm that discovers the unary INDs
+
+	private int expectedWorkers = 0;                   // The number of dependency workers in the cluster that BINDER waits for before it fixes the partition owners; 0 waits for the master's own numWorkers only
+
+	private boolean distributedReading = false;        // Let the worker nodes read and deduplicate the input files from a dataset directory that all nodes mount under the same path
+
+	private long columnStoreBudget = Runtime.getRuntime().maxMemory() / 4 / Integer.BYTES; // The maximum number of encoded column values that the master keeps in memory before it spills columns to disk; until the columns are encoded, their string values may take up as many times Integer.BYTES bytes
+
+	private String spillDirectory = System.getProperty("java.io.tmpdir"); // The directory in which the master creates its temporary spill files
+
+	private long leaseTimeout = 30000;                 // The ms after which the master takes the tasks back from a dependency worker whose node it has not heard from
+
+	private long columnFetchTimeout = 10000;           // The ms after which a worker node requests a column again whose transfer has not arrived; doubles with every retry
+
+	private boolean adaptiveCompression = true;        // Let the large message proxies compress only while the measured bandwidth to a receiver, not the compression speed, limits the transfer time
+
+	private ResultFormat resultFormat = ResultFormat.TEXT; // The format in which the result collector writes the discovered INDs
+
+	private String checkpointPath = null;              // The file of the miner's append-only progress log; null disables checkpointing
+
+	private boolean resume = false;                    // Continue the run that the checkpoint log recorded instead of starting over
+
 	private static String getDefaultHost() {
 		try {
 			return InetAddress.getLocalHost().getHostAddress();
@@ -47,8 +81,19 @@ public class SystemConfiguration {
 		this.masterHost = commandMaster.host;
 		this.masterPort = commandMaster.port;
 		this.numWorkers = commandMaster.numWorkers;
+		this.leaseTimeout = commandMaster.leaseTimeout;
+		this.columnFetchTimeout = commandMaster.columnFetchTimeout;
+		this.adaptiveCompression = commandMaster.adaptiveCompression;
 		this.startPaused = commandMaster.startPaused;
 		this.hardMode = commandMaster.hardMode;
+		this.engine = commandMaster.engine;
+		this.expectedWorkers = commandMaster.expectedWorkers;
+		this.distributedReading = commandMaster.distributedReading;
+		this.columnStoreBudget = commandMaster.columnStoreBudget;
+		this.spillDirectory = commandMaster.spillDirectory;
+		this.resultFormat = commandMaster.resultFormat;
+		this.checkpointPath = commandMaster.checkpointPath;
+		this.resume = commandMaster.resume;
 	}
 
 	public void update(CommandWorker commandWorker) {
@@ -58,6 +103,9 @@ public class SystemConfiguration {
 		this.masterHost = commandWorker.masterhost;
 		this.masterPort = commandWorker.masterport;
 		this.numWorkers = commandWorker.numWorkers;
+		this.leaseTimeout = commandWorker.leaseTimeout;
+		this.columnFetchTimeout = commandWorker.columnFetchTimeout;
+		this.adaptiveCompression = commandWorker.adaptiveCompression;
 	}
 
 	public Config toAkkaConfig() {
@@ -0,0 +1,77 @@
+package de.ddm.metrics;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.MessageQueue;
+import akka.dispatch.ProducesMessageQueue;
+import akka.dispatch.UnboundedMessageQueueSemantics;
+import com.typesafe.config.Config;
+import de.ddm.singletons.MetricsSingleton;
+import scala.Option;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An unbounded mailbox that publishes the number of messages waiting in it as the gauge "depth" and the number of
+ * messages that passed through it as the meter "messages" of the metric group Mailbox/&lt;actor path&gt;. Akka's own
+ * unbounded mailbox cannot tell its length without walking the queue, so this one keeps a counter next to it.
+ */
+public class InstrumentedMailbox implements MailboxType, ProducesMessageQueue<InstrumentedMailbox.InstrumentedMessageQueue> {
+
+	public InstrumentedMailbox(ActorSystem.Settings settings, Config config) {
+	}
+
+	@Override
+	public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+		String name = owner.isDefined() ? owner.get().path().toStringWithoutAddress() : "unknown";
+		return new InstrumentedMessageQueue(MetricsSingleton.get().group("Mailbox", name));
+	}
+
+	public static class InstrumentedMessageQueue implements MessageQueue, UnboundedMessageQueueSemantics {
+
+		private final Queue<Envelope> queue = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger depth = new AtomicInteger();
+		private final Metrics.Meter messages;
+
+		InstrumentedMessageQueue(Metrics.Group group) {
+			group.gauge("depth", this.depth::get);
+			this.messages = group.meter("messages");
+		}
+
+		@Override
+		public void enqueue(ActorRef receiver, Envelope handle) {
+			this.queue.add(handle);
+			this.depth.incrementAndGet();
+			this.messages.mark(1);
+		}
+
+		@Override
+		public Envelope dequeue() {
+			Envelope envelope = this.queue.poll();
+			if (envelope != null)
+				this.depth.decrementAndGet();
+			return envelope;
+		}
+
+		@Override
+		public int numberOfMessages() {
+			return this.depth.get();
+		}
+
+		@Override
+		public boolean hasMessages() {
+			return !this.queue.isEmpty();
+		}
+
+		@Override
+		public void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+			for (Envelope envelope = this.dequeue(); envelope != null; envelope = this.dequeue())
+				deadLetters.enqueue(owner, envelope);
+			MetricsSingleton.get().remove("Mailbox", owner.path().toStringWithoutAddress());
+		}
+	}
+}
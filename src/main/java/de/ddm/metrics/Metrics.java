@@ -0,0 +1,389 @@
+package de.ddm.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A registry of live counters of this JVM. Metrics belong to groups, e.g. one per input file or dependency worker, and
+ * every group is an MBean named de.ddm:type=&lt;type&gt;,name=&lt;name&gt; whose attributes are the current values of its
+ * metrics. Metrics are updated by the components that own them, so updates are lock-free and cost about as much as an
+ * increment; rates are derived from the counts whenever the registry is ticked, i.e. by the MetricsReporter.
+ */
+public class Metrics {
+
+	public static final String DOMAIN = "de.ddm";
+
+	private final Map<ObjectName, Group> groups = new ConcurrentSkipListMap<>();
+	private final MBeanServer server;
+
+	public Metrics() {
+		this(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	/**
+	 * @param server the MBean server to register the groups with; null keeps them out of JMX
+	 */
+	public Metrics(MBeanServer server) {
+		this.server = server;
+	}
+
+	/**
+	 * @return the group of the given type and name, which is created and registered with JMX on first use
+	 */
+	public Group group(String type, String name) {
+		ObjectName objectName = objectName(type, name);
+		return this.groups.computeIfAbsent(objectName, key -> {
+			Group group = new Group(type, name);
+			if (this.server != null) {
+				try {
+					if (this.server.isRegistered(key))
+						this.server.unregisterMBean(key);
+					this.server.registerMBean(group, key);
+				} catch (JMException e) {
+					// The metrics stay available through the registry and the log summary.
+				}
+			}
+			return group;
+		});
+	}
+
+	/**
+	 * Drops the group of the given type and name and unregisters it from JMX, e.g. once the component that owns it stopped.
+	 */
+	public void remove(String type, String name) {
+		ObjectName objectName = objectName(type, name);
+		if (this.groups.remove(objectName) == null || this.server == null)
+			return;
+		try {
+			if (this.server.isRegistered(objectName))
+				this.server.unregisterMBean(objectName);
+		} catch (JMException e) {
+			// The bean is gone already.
+		}
+	}
+
+	private static ObjectName objectName(String type, String name) {
+		try {
+			return new ObjectName(DOMAIN + ":type=" + quoteIfNeeded(type) + (name == null ? "" : ",name=" + quoteIfNeeded(name)));
+		} catch (JMException e) {
+			throw new IllegalArgumentException("Invalid metric group " + type + "/" + name, e);
+		}
+	}
+
+	private static String quoteIfNeeded(String value) {
+		for (int i = 0; i < value.length(); i++)
+			if (",=:\"*?\n".indexOf(value.charAt(i)) >= 0)
+				return ObjectName.quote(value);
+		return value;
+	}
+
+	public Collection<Group> getGroups() {
+		return this.groups.values();
+	}
+
+	/**
+	 * Updates the rates of all meters to the counts since the previous tick.
+	 */
+	public void tick() {
+		long now = System.nanoTime();
+		for (Group group : this.groups.values())
+			group.tick(now);
+	}
+
+	/**
+	 * The metrics of one component, which make up the attributes of its MBean.
+	 */
+	public static class Group implements DynamicMBean {
+
+		private final String type;
+		private final String name;
+		private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+		private long lastActivity = 0;
+
+		private Group(String type, String name) {
+			this.type = type;
+			this.name = name;
+		}
+
+		public String getType() {
+			return this.type;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public Meter meter(String name) {
+			return (Meter) this.metrics.computeIfAbsent(name, key -> new Meter());
+		}
+
+		/**
+		 * @return a gauge that holds the value last set by its owner
+		 */
+		public Gauge gauge(String name) {
+			return (Gauge) this.metrics.computeIfAbsent(name, key -> new Gauge());
+		}
+
+		/**
+		 * @return a gauge that reads its value from the given thread-safe source, which replaces any previous source
+		 */
+		public Gauge gauge(String name, LongSupplier source) {
+			Gauge gauge = this.gauge(name);
+			gauge.source = source;
+			return gauge;
+		}
+
+		public Histogram histogram(String name) {
+			return (Histogram) this.metrics.computeIfAbsent(name, key -> new Histogram());
+		}
+
+		private void tick(long now) {
+			for (Metric metric : this.metrics.values())
+				if (metric instanceof Meter)
+					((Meter) metric).tick(now);
+		}
+
+		/**
+		 * @return whether any metric of the group has recorded something since the previous call
+		 */
+		public boolean hasChanged() {
+			long activity = 0;
+			boolean sampled = false;
+			for (Metric metric : this.metrics.values()) {
+				activity += metric.activity();
+				sampled |= metric instanceof Gauge && ((Gauge) metric).source != null;
+			}
+			// Gauges that read a source, e.g. the heap usage, cannot tell whether they changed, so they always count as changed.
+			boolean changed = sampled || activity != this.lastActivity;
+			this.lastActivity = activity;
+			return changed;
+		}
+
+		/**
+		 * @return the current values of all metrics of the group, keyed by their attribute names
+		 */
+		public Map<String, Number> values() {
+			Map<String, Number> values = new LinkedHashMap<>();
+			for (Map.Entry<String, Metric> entry : this.metrics.entrySet())
+				entry.getValue().values(entry.getKey(), values);
+			return values;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder(this.type);
+			if (this.name != null)
+				builder.append('[').append(this.name).append(']');
+			for (Map.Entry<String, Number> value : this.values().entrySet()) {
+				builder.append(' ').append(value.getKey()).append('=');
+				if (value.getValue() instanceof Double)
+					builder.append(String.format("%.1f", value.getValue().doubleValue()));
+				else
+					builder.append(value.getValue());
+			}
+			return builder.toString();
+		}
+
+		@Override
+		public Object getAttribute(String attribute) throws AttributeNotFoundException {
+			Number value = this.values().get(attribute);
+			if (value == null)
+				throw new AttributeNotFoundException(attribute);
+			return value;
+		}
+
+		@Override
+		public AttributeList getAttributes(String[] attributes) {
+			Map<String, Number> values = this.values();
+			AttributeList list = new AttributeList();
+			for (String attribute : attributes)
+				if (values.containsKey(attribute))
+					list.add(new Attribute(attribute, values.get(attribute)));
+			return list;
+		}
+
+		@Override
+		public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+			throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+		}
+
+		@Override
+		public AttributeList setAttributes(AttributeList attributes) {
+			return new AttributeList();
+		}
+
+		@Override
+		public Object invoke(String actionName, Object[] params, String[] signature) {
+			throw new UnsupportedOperationException(actionName);
+		}
+
+		@Override
+		public MBeanInfo getMBeanInfo() {
+			// Metrics can be added after registration, so the info is built from the metrics that exist right now.
+			List<MBeanAttributeInfo> attributes = new ArrayList<>();
+			for (Map.Entry<String, Number> value : this.values().entrySet())
+				attributes.add(new MBeanAttributeInfo(value.getKey(), value.getValue().getClass().getName(), value.getKey(), true, false, false));
+			return new MBeanInfo(this.getClass().getName(), "Metrics of " + this.type + (this.name == null ? "" : " " + this.name),
+					attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+		}
+	}
+
+	private interface Metric {
+
+		void values(String name, Map<String, Number> values);
+
+		long activity();
+	}
+
+	/**
+	 * Counts events, e.g. rows or bytes, and their rate per second between the last two ticks.
+	 */
+	public static class Meter implements Metric {
+
+		private final LongAdder count = new LongAdder();
+		private long lastCount = 0;
+		private long lastTick = System.nanoTime();
+		private volatile double rate = 0;
+
+		public void mark(long events) {
+			this.count.add(events);
+		}
+
+		public long getCount() {
+			return this.count.sum();
+		}
+
+		public double getRate() {
+			return this.rate;
+		}
+
+		private synchronized void tick(long now) {
+			long count = this.count.sum();
+			if (now > this.lastTick)
+				this.rate = (count - this.lastCount) * 1e9 / (now - this.lastTick);
+			this.lastCount = count;
+			this.lastTick = now;
+		}
+
+		@Override
+		public void values(String name, Map<String, Number> values) {
+			values.put(name, this.getCount());
+			values.put(name + "PerSecond", this.rate);
+		}
+
+		@Override
+		public long activity() {
+			return this.getCount();
+		}
+	}
+
+	/**
+	 * A current value, e.g. a queue length, that is either set by its owner or read from a source on demand.
+	 */
+	public static class Gauge implements Metric {
+
+		private final AtomicLong value = new AtomicLong();
+		private volatile LongSupplier source = null;
+
+		public void set(long value) {
+			this.value.set(value);
+		}
+
+		public long get() {
+			LongSupplier source = this.source;
+			return source == null ? this.value.get() : source.getAsLong();
+		}
+
+		@Override
+		public void values(String name, Map<String, Number> values) {
+			values.put(name, this.get());
+		}
+
+		@Override
+		public long activity() {
+			return this.source == null ? this.value.get() : 0;
+		}
+	}
+
+	/**
+	 * The distribution of a non-negative quantity, e.g. a latency in microseconds. Values fall into buckets of powers of two,
+	 * so percentiles are reported as the upper bound of their bucket, i.e. at most twice the actual value.
+	 */
+	public static class Histogram implements Metric {
+
+		private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+		private final AtomicLong max = new AtomicLong();
+
+		public void record(long value) {
+			value = Math.max(0, value);
+			this.buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+			this.count.increment();
+			this.sum.add(value);
+			this.max.accumulateAndGet(value, Math::max);
+		}
+
+		public long getCount() {
+			return this.count.sum();
+		}
+
+		public double getMean() {
+			long count = this.getCount();
+			return count == 0 ? 0 : this.sum.sum() / (double) count;
+		}
+
+		public long getMax() {
+			return this.max.get();
+		}
+
+		/**
+		 * @return the upper bound of the bucket that holds the given quantile, but no more than the maximum recorded value
+		 */
+		public long getPercentile(double quantile) {
+			long total = 0;
+			for (int bucket = 0; bucket < this.buckets.length(); bucket++)
+				total += this.buckets.get(bucket);
+			long rank = (long) Math.ceil(quantile * total);
+			long seen = 0;
+			for (int bucket = 0; bucket < this.buckets.length(); bucket++) {
+				seen += this.buckets.get(bucket);
+				if (seen >= rank && seen > 0)
+					return Math.min(this.getMax(), bucket == 0 ? 0 : bucket >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1);
+			}
+			return 0;
+		}
+
+		@Override
+		public void values(String name, Map<String, Number> values) {
+			values.put(name + "Count", this.getCount());
+			values.put(name + "Mean", this.getMean());
+			values.put(name + "P50", this.getPercentile(0.5));
+			values.put(name + "P99", this.getPercentile(0.99));
+			values.put(name + "Max", this.getMax());
+		}
+
+		@Override
+		public long activity() {
+			return this.getCount();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package de.ddm.serialization;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bounded pool of heap byte buffers that also keeps track of how many bytes had to be allocated and how many could be
+ * served from the pool. Buffers above a size cap are never pooled, so that one large message does not pin its buffers for
+ * the lifetime of the owner; the pool thus holds at most maxBuffers * maxBufferSize bytes. The pool is not thread-safe and
+ * meant to be confined to the actor that owns it.
+ */
+public class BufferPool {
+
+	private final int maxBuffers;
+	private final int maxBufferSize;
+
+	private final List<ByteBuffer> buffers;
+
+	@Getter
+	private long allocations = 0;
+	@Getter
+	private long allocatedBytes = 0;
+	@Getter
+	private long reuses = 0;
+	@Getter
+	private long reusedBytes = 0;
+
+	/**
+	 * @param maxBuffers the number of buffers that the pool keeps at most
+	 * @param maxBufferSize the capacity in bytes above which released buffers are dropped instead of pooled
+	 */
+	public BufferPool(int maxBuffers, int maxBufferSize) {
+		this.maxBuffers = maxBuffers;
+		this.maxBufferSize = maxBufferSize;
+		this.buffers = new ArrayList<>(maxBuffers);
+	}
+
+	/**
+	 * @return the smallest pooled buffer that holds at least capacity bytes or a newly allocated one; position is 0 and limit is capacity
+	 */
+	public ByteBuffer acquire(int capacity) {
+		int bestFit = -1;
+		for (int i = 0; i < this.buffers.size(); i++)
+			if (this.buffers.get(i).capacity() >= capacity && (bestFit < 0 || this.buffers.get(i).capacity() < this.buffers.get(bestFit).capacity()))
+				bestFit = i;
+
+		if (bestFit < 0) {
+			this.recordAllocation(capacity);
+			return ByteBuffer.allocate(capacity);
+		}
+
+		ByteBuffer buffer = this.buffers.remove(bestFit);
+		buffer.clear();
+		buffer.limit(capacity);
+		this.reuses++;
+		this.reusedBytes += capacity;
+		return buffer;
+	}
+
+	/**
+	 * Returns a buffer to the pool; if the pool is full, the smallest buffer is dropped, and buffers above the size cap are
+	 * dropped right away.
+	 */
+	public void release(ByteBuffer buffer) {
+		if (buffer.capacity() > this.maxBufferSize)
+			return;
+		if (this.buffers.size() < this.maxBuffers) {
+			this.buffers.add(buffer);
+			return;
+		}
+
+		int smallest = 0;
+		for (int i = 1; i < this.buffers.size(); i++)
+			if (this.buffers.get(i).capacity() < this.buffers.get(smallest).capacity())
+				smallest = i;
+		if (this.maxBuffers > 0 && this.buffers.get(smallest).capacity() < buffer.capacity())
+			this.buffers.set(smallest, buffer);
+	}
+
+	/**
+	 * Accounts for an allocation that happened outside of the pool, e.g. inside a serializer.
+	 */
+	public void recordAllocation(int capacity) {
+		this.allocations++;
+		this.allocatedBytes += capacity;
+	}
+}
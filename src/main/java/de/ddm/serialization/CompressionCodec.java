@@ -0,0 +1,94 @@
+package de.ddm.serialization;
+
+import net.jpountz.lz4.LZ4Factory;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codecs that the LargeMessageProxy can apply to serialized messages before chunking them.
+ */
+public enum CompressionCodec {
+
+	/**
+	 * Passes the bytes through unchanged; callers that know the codec can skip the copy.
+	 */
+	NONE {
+		@Override
+		public byte[] compress(byte[] bytes, int length, int level) {
+			return Arrays.copyOf(bytes, length);
+		}
+
+		@Override
+		public void decompress(byte[] source, int sourceLength, byte[] target, int targetLength) {
+			if (sourceLength != targetLength)
+				throw new IllegalArgumentException("Uncompressed length " + sourceLength + " differs from the expected " + targetLength);
+			System.arraycopy(source, 0, target, 0, targetLength);
+		}
+	},
+
+	/**
+	 * Fast compression for bandwidth-bound links; levels above 1 select the slower high-compression mode (up to 17).
+	 */
+	LZ4 {
+		@Override
+		public byte[] compress(byte[] bytes, int length, int level) {
+			LZ4Factory factory = LZ4Factory.fastestInstance();
+			return (level <= 1 ? factory.fastCompressor() : factory.highCompressor(level)).compress(bytes, 0, length);
+		}
+
+		@Override
+		public void decompress(byte[] source, int sourceLength, byte[] target, int targetLength) {
+			LZ4Factory.fastestInstance().fastDecompressor().decompress(source, 0, target, 0, targetLength);
+		}
+	},
+
+	/**
+	 * Stronger but slower compression for very slow links; levels 1 to 9 as in java.util.zip.
+	 */
+	DEFLATE {
+		@Override
+		public byte[] compress(byte[] bytes, int length, int level) {
+			Deflater deflater = new Deflater(level);
+			try {
+				deflater.setInput(bytes, 0, length);
+				deflater.finish();
+				byte[] buffer = new byte[Math.max(64, length / 2)];
+				int compressedLength = 0;
+				while (!deflater.finished()) {
+					if (compressedLength == buffer.length)
+						buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+					compressedLength += deflater.deflate(buffer, compressedLength, buffer.length - compressedLength);
+				}
+				return Arrays.copyOf(buffer, compressedLength);
+			} finally {
+				deflater.end();
+			}
+		}
+
+		@Override
+		public void decompress(byte[] source, int sourceLength, byte[] target, int targetLength) {
+			Inflater inflater = new Inflater();
+			try {
+				inflater.setInput(source, 0, sourceLength);
+				int length = 0;
+				while (length < targetLength && !inflater.finished()) {
+					int inflated = inflater.inflate(target, length, targetLength - length);
+					if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+						throw new IllegalArgumentException("Truncated deflate stream");
+					length += inflated;
+				}
+			} catch (DataFormatException e) {
+				throw new IllegalArgumentException("Corrupt deflate stream", e);
+			} finally {
+				inflater.end();
+			}
+		}
+	};
+
+	public abstract byte[] compress(byte[] bytes, int length, int level);
+
+	public abstract void decompress(byte[] source, int sourceLength, byte[] target, int targetLength);
+}
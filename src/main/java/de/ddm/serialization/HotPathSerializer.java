@@ -0,0 +1,395 @@
+package de.ddm.serialization;
+
+import akka.actor.ExtendedActorSystem;
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.ActorRefResolver;
+import akka.actor.typed.javadsl.Adapter;
+import akka.serialization.ByteBufferSerializer;
+import akka.serialization.SerializerWithStringManifest;
+import de.ddm.actors.Worker;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.actors.profiling.ColumnBuilder;
+import de.ddm.actors.profiling.DependencyMiner;
+import de.ddm.actors.profiling.DependencyWorker;
+import de.ddm.structures.Task;
+
+import java.io.NotSerializableException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact binary serializer for the messages that make up most of the traffic between master and workers. Integers
+ * are written as varints, id arrays as zig-zag encoded deltas (sorted columns shrink to about one byte per value) and
+ * strings as length-prefixed UTF-8. Every message is sized exactly before it is written, and because the serializer
+ * writes directly into ByteBuffers, Artery and the LargeMessageProxy can serialize into their own pooled buffers.
+ */
+public class HotPathSerializer extends SerializerWithStringManifest implements ByteBufferSerializer {
+
+	private static final int IDENTIFIER = 4711;
+
+	private static final String BATCH_MANIFEST = "B";
+	private static final String COLUMNS_MANIFEST = "S";
+	private static final String PARTITION_MANIFEST = "P";
+	private static final String TASK_MANIFEST = "T";
+	private static final String COMPLETION_MANIFEST = "C";
+	private static final String COLUMN_MANIFEST = "K";
+	private static final String BYTES_MANIFEST = "Y";
+
+	private final ExtendedActorSystem system;
+
+	private ActorRefResolver actorRefResolver;
+
+	public HotPathSerializer(ExtendedActorSystem system) {
+		this.system = system;
+	}
+
+	@Override
+	public int identifier() {
+		return IDENTIFIER;
+	}
+
+	@Override
+	public String manifest(Object o) {
+		if (o instanceof ColumnBuilder.BatchMessage)
+			return BATCH_MANIFEST;
+		if (o instanceof DependencyMiner.ColumnsMessage)
+			return COLUMNS_MANIFEST;
+		if (o instanceof DependencyWorker.PartitionMessage)
+			return PARTITION_MANIFEST;
+		if (o instanceof DependencyWorker.TaskMessage)
+			return TASK_MANIFEST;
+		if (o instanceof DependencyMiner.CompletionMessage)
+			return COMPLETION_MANIFEST;
+		if (o instanceof Worker.ColumnMessage)
+			return COLUMN_MANIFEST;
+		if (o instanceof LargeMessageProxy.BytesMessage)
+			return BYTES_MANIFEST;
+		throw new IllegalArgumentException("Cannot serialize " + o.getClass().getName());
+	}
+
+	@Override
+	public byte[] toBinary(Object o) {
+		ByteBuffer buffer = ByteBuffer.allocate(this.size(o));
+		this.toBinary(o, buffer);
+		return buffer.array();
+	}
+
+	@Override
+	public Object fromBinary(byte[] bytes, String manifest) throws NotSerializableException {
+		return this.fromBinary(ByteBuffer.wrap(bytes), manifest);
+	}
+
+	/**
+	 * @return the exact number of bytes that toBinary writes for the given message
+	 */
+	public int size(Object o) {
+		if (o instanceof ColumnBuilder.BatchMessage) {
+			ColumnBuilder.BatchMessage message = (ColumnBuilder.BatchMessage) o;
+			return varIntSize(message.getId()) + stringArraysSize(message.getBatch());
+		}
+		if (o instanceof DependencyMiner.ColumnsMessage) {
+			DependencyMiner.ColumnsMessage message = (DependencyMiner.ColumnsMessage) o;
+			return varIntSize(message.getId()) + stringArraysSize(message.getDistinctValues());
+		}
+		if (o instanceof DependencyWorker.PartitionMessage) {
+			DependencyWorker.PartitionMessage message = (DependencyWorker.PartitionMessage) o;
+			return intArraySize(message.getColumnIds()) + stringArraysSize(message.getValues());
+		}
+		if (o instanceof DependencyWorker.TaskMessage) {
+			DependencyWorker.TaskMessage message = (DependencyWorker.TaskMessage) o;
+			Task task = message.getTask();
+			return stringSize(this.toString(message.getDependencyMiner())) + varIntSize(task.getId()) + varIntSize(task.getDependentColumnId())
+					+ intArraySize(task.getReferencedColumnIds()) + varIntSize(task.getNumUniqueDependent()) + varIntSize(task.getNumUniqueReferenced());
+		}
+		if (o instanceof DependencyMiner.CompletionMessage) {
+			DependencyMiner.CompletionMessage message = (DependencyMiner.CompletionMessage) o;
+			return stringSize(this.toString(message.getDependencyWorker())) + varIntSize(message.getTaskId()) + varIntSize(message.getDependentColumnId())
+					+ intArraySize(message.getReferencedColumnIds()) + varIntSize(message.getResults().length) + Long.BYTES * message.getResults().length
+					+ varLongSize(message.getCheckNanos());
+		}
+		if (o instanceof Worker.ColumnMessage) {
+			Worker.ColumnMessage message = (Worker.ColumnMessage) o;
+			return varIntSize(message.getColumnId()) + intArraySize(message.getColumn());
+		}
+		if (o instanceof LargeMessageProxy.BytesMessage) {
+			LargeMessageProxy.BytesMessage message = (LargeMessageProxy.BytesMessage) o;
+			return varIntSize(message.getSenderTransmissionKey()) + varIntSize(message.getReceiverTransmissionKey())
+					+ varIntSize(message.getOffset()) + varIntSize(message.getLength()) + message.getLength();
+		}
+		throw new IllegalArgumentException("Cannot serialize " + o.getClass().getName());
+	}
+
+	@Override
+	public void toBinary(Object o, ByteBuffer buffer) {
+		if (o instanceof ColumnBuilder.BatchMessage) {
+			ColumnBuilder.BatchMessage message = (ColumnBuilder.BatchMessage) o;
+			putVarInt(buffer, message.getId());
+			putStringArrays(buffer, message.getBatch());
+		} else if (o instanceof DependencyMiner.ColumnsMessage) {
+			DependencyMiner.ColumnsMessage message = (DependencyMiner.ColumnsMessage) o;
+			putVarInt(buffer, message.getId());
+			putStringArrays(buffer, message.getDistinctValues());
+		} else if (o instanceof DependencyWorker.PartitionMessage) {
+			DependencyWorker.PartitionMessage message = (DependencyWorker.PartitionMessage) o;
+			putIntArray(buffer, message.getColumnIds());
+			putStringArrays(buffer, message.getValues());
+		} else if (o instanceof DependencyWorker.TaskMessage) {
+			DependencyWorker.TaskMessage message = (DependencyWorker.TaskMessage) o;
+			Task task = message.getTask();
+			putString(buffer, this.toString(message.getDependencyMiner()));
+			putVarInt(buffer, task.getId());
+			putVarInt(buffer, task.getDependentColumnId());
+			putIntArray(buffer, task.getReferencedColumnIds());
+			putVarInt(buffer, task.getNumUniqueDependent());
+			putVarInt(buffer, task.getNumUniqueReferenced());
+		} else if (o instanceof DependencyMiner.CompletionMessage) {
+			DependencyMiner.CompletionMessage message = (DependencyMiner.CompletionMessage) o;
+			putString(buffer, this.toString(message.getDependencyWorker()));
+			putVarInt(buffer, message.getTaskId());
+			putVarInt(buffer, message.getDependentColumnId());
+			putIntArray(buffer, message.getReferencedColumnIds());
+			putVarInt(buffer, message.getResults().length);
+			for (long word : message.getResults())
+				buffer.putLong(word);
+			putVarLong(buffer, message.getCheckNanos());
+		} else if (o instanceof Worker.ColumnMessage) {
+			Worker.ColumnMessage message = (Worker.ColumnMessage) o;
+			putVarInt(buffer, message.getColumnId());
+			putIntArray(buffer, message.getColumn());
+		} else if (o instanceof LargeMessageProxy.BytesMessage) {
+			LargeMessageProxy.BytesMessage message = (LargeMessageProxy.BytesMessage) o;
+			putVarInt(buffer, message.getSenderTransmissionKey());
+			putVarInt(buffer, message.getReceiverTransmissionKey());
+			putVarInt(buffer, message.getOffset());
+			putVarInt(buffer, message.getLength());
+			buffer.put(message.getBytes(), message.getBytesOffset(), message.getLength());
+		} else {
+			throw new IllegalArgumentException("Cannot serialize " + o.getClass().getName());
+		}
+	}
+
+	@Override
+	public Object fromBinary(ByteBuffer buffer, String manifest) throws NotSerializableException {
+		switch (manifest) {
+			case BATCH_MANIFEST:
+				return new ColumnBuilder.BatchMessage(getVarInt(buffer), getStringArrays(buffer));
+			case COLUMNS_MANIFEST:
+				return new DependencyMiner.ColumnsMessage(getVarInt(buffer), getStringArrays(buffer));
+			case PARTITION_MANIFEST:
+				return new DependencyWorker.PartitionMessage(getIntArray(buffer), getStringArrays(buffer));
+			case TASK_MANIFEST: {
+				ActorRef<DependencyMiner.Message> dependencyMiner = this.toActorRef(getString(buffer));
+				Task task = new Task(getVarInt(buffer), getVarInt(buffer), getIntArray(buffer), getVarInt(buffer), getVarInt(buffer));
+				return new DependencyWorker.TaskMessage(dependencyMiner, task);
+			}
+			case COMPLETION_MANIFEST: {
+				ActorRef<DependencyWorker.Message> dependencyWorker = this.toActorRef(getString(buffer));
+				int taskId = getVarInt(buffer);
+				int dependentColumnId = getVarInt(buffer);
+				int[] referencedColumnIds = getIntArray(buffer);
+				long[] results = new long[getVarInt(buffer)];
+				for (int i = 0; i < results.length; i++)
+					results[i] = buffer.getLong();
+				return new DependencyMiner.CompletionMessage(dependencyWorker, taskId, dependentColumnId, referencedColumnIds, results, getVarLong(buffer));
+			}
+			case COLUMN_MANIFEST:
+				return new Worker.ColumnMessage(getVarInt(buffer), getIntArray(buffer));
+			case BYTES_MANIFEST: {
+				int senderTransmissionKey = getVarInt(buffer);
+				int receiverTransmissionKey = getVarInt(buffer);
+				int offset = getVarInt(buffer);
+				byte[] bytes = new byte[getVarInt(buffer)];
+				buffer.get(bytes);
+				return new LargeMessageProxy.BytesMessage(bytes, 0, bytes.length, offset, senderTransmissionKey, receiverTransmissionKey);
+			}
+			default:
+				throw new NotSerializableException("Unknown manifest " + manifest);
+		}
+	}
+
+	private ActorRefResolver getActorRefResolver() {
+		// Resolved lazily, because serializers may be created while the actor system is still starting.
+		if (this.actorRefResolver == null)
+			this.actorRefResolver = ActorRefResolver.get(Adapter.toTyped(this.system));
+		return this.actorRefResolver;
+	}
+
+	private String toString(ActorRef<?> actorRef) {
+		return this.getActorRefResolver().toSerializationFormat(actorRef);
+	}
+
+	private <T> ActorRef<T> toActorRef(String serializedActorRef) {
+		return this.getActorRefResolver().resolveActorRef(serializedActorRef);
+	}
+
+	private static int varIntSize(int value) {
+		return value == 0 ? 1 : (38 - Integer.numberOfLeadingZeros(value)) / 7;
+	}
+
+	private static void putVarInt(ByteBuffer buffer, int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	private static int getVarInt(ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+	}
+
+	private static int varLongSize(long value) {
+		return value == 0 ? 1 : (70 - Long.numberOfLeadingZeros(value)) / 7;
+	}
+
+	private static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	private static long getVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+	}
+
+	private static int zigZag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int unZigZag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static int intArraySize(int[] values) {
+		int size = varIntSize(values.length);
+		int previous = 0;
+		for (int value : values) {
+			size += varIntSize(zigZag(value - previous));
+			previous = value;
+		}
+		return size;
+	}
+
+	private static void putIntArray(ByteBuffer buffer, int[] values) {
+		putVarInt(buffer, values.length);
+		int previous = 0;
+		for (int value : values) {
+			putVarInt(buffer, zigZag(value - previous));
+			previous = value;
+		}
+	}
+
+	private static int[] getIntArray(ByteBuffer buffer) {
+		int[] values = new int[getVarInt(buffer)];
+		int previous = 0;
+		for (int i = 0; i < values.length; i++) {
+			previous += unZigZag(getVarInt(buffer));
+			values[i] = previous;
+		}
+		return values;
+	}
+
+	private static boolean isAscii(String value) {
+		for (int i = 0; i < value.length(); i++)
+			if (value.charAt(i) >= 0x80)
+				return false;
+		return true;
+	}
+
+	private static int stringSize(String value) {
+		if (value == null)
+			return 1;
+		int length = isAscii(value) ? value.length() : value.getBytes(StandardCharsets.UTF_8).length;
+		return varIntSize(length + 1) + length;
+	}
+
+	/**
+	 * Writes the UTF-8 length plus one, so that zero can encode null, followed by the UTF-8 bytes. The common ASCII case
+	 * is copied char by char without an intermediate byte array.
+	 */
+	private static void putString(ByteBuffer buffer, String value) {
+		if (value == null) {
+			putVarInt(buffer, 0);
+		} else if (isAscii(value)) {
+			putVarInt(buffer, value.length() + 1);
+			if (buffer.hasArray() && buffer.remaining() >= value.length()) {
+				byte[] array = buffer.array();
+				int offset = buffer.arrayOffset() + buffer.position();
+				for (int i = 0; i < value.length(); i++)
+					array[offset + i] = (byte) value.charAt(i);
+				buffer.position(buffer.position() + value.length());
+			} else {
+				for (int i = 0; i < value.length(); i++)
+					buffer.put((byte) value.charAt(i));
+			}
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			putVarInt(buffer, bytes.length + 1);
+			buffer.put(bytes);
+		}
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		int length = getVarInt(buffer) - 1;
+		if (length < 0)
+			return null;
+
+		String value;
+		if (buffer.hasArray()) {
+			value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+		} else {
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			value = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return value;
+	}
+
+	private static int stringArraysSize(List<String[]> arrays) {
+		int size = varIntSize(arrays.size());
+		for (String[] array : arrays) {
+			size += varIntSize(array.length);
+			for (String value : array)
+				size += stringSize(value);
+		}
+		return size;
+	}
+
+	private static void putStringArrays(ByteBuffer buffer, List<String[]> arrays) {
+		putVarInt(buffer, arrays.size());
+		for (String[] array : arrays) {
+			putVarInt(buffer, array.length);
+			for (String value : array)
+				putString(buffer, value);
+		}
+	}
+
+	private static List<String[]> getStringArrays(ByteBuffer buffer) {
+		int numArrays = getVarInt(buffer);
+		List<String[]> arrays = new ArrayList<>(numArrays);
+		for (int i = 0; i < numArrays; i++) {
+			String[] array = new String[getVarInt(buffer)];
+			for (int j = 0; j < array.length; j++)
+				array[j] = getString(buffer);
+			arrays.add(array);
+		}
+		return arrays;
+	}
+}
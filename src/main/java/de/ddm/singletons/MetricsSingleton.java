@@ -0,0 +1,16 @@
+package de.ddm.singletons;
+
+import de.ddm.metrics.Metrics;
+
+public class MetricsSingleton {
+
+	private static Metrics singleton = new Metrics();
+
+	public static Metrics get() {
+		return singleton;
+	}
+
+	public static void set(Metrics instance) {
+		singleton = instance;
+	}
+}
@@ -0,0 +1,296 @@
+package de.ddm.structures;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the miner's validation progress: first the columns that the run has built, then every decided
+ * batch of candidates with its result. Each record carries a checksum, so a record that a crash has cut off or garbled
+ * ends the log on reopening and is overwritten by the resumed run. Records are buffered and only forced to disk by sync,
+ * which bounds the work that a crash can lose to the time between two syncs. Column ids depend on the order in which the
+ * files arrive, so a resumed run matches the recorded columns by name and rewrites the log in its own column order.
+ */
+public class CheckpointLog implements Closeable {
+
+	private static final int MAGIC = 0x44444d4c;	// "DDML"
+	private static final int VERSION = 1;
+	private static final byte COLUMNS_RECORD = 1;
+	private static final byte DECIDED_RECORD = 2;
+
+	private final File file;
+	private FileOutputStream stream;
+	private DataOutputStream out;
+
+	private List<String> columnNames;	// null, if the log holds no columns record
+	private int[] columnSizes;
+	private BitSet[] decided;			// The decided referenced columns of every dependent column
+	private BitSet[] included;			// The referenced columns of every dependent column that contain it
+	private int numDecided = 0;
+
+	/**
+	 * @param resume whether to read the existing log and append to it; otherwise, the log starts empty
+	 */
+	public CheckpointLog(File file, boolean resume) throws IOException {
+		this.file = file;
+		long validLength = resume && file.isFile() ? this.read() : 0;
+		if (validLength == 0)
+			this.clearProgress();
+
+		if (file.getParentFile() != null)
+			Files.createDirectories(file.getParentFile().toPath());
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			channel.truncate(validLength);
+		}
+		this.open(file, true);
+		if (validLength == 0) {
+			this.out.writeInt(MAGIC);
+			this.out.writeInt(VERSION);
+		}
+	}
+
+	/**
+	 * @return the length of the valid prefix of the log, which is 0 if the log does not even hold a valid header
+	 */
+	private long read() throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.file.toPath()));
+		if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+			return 0;
+
+		CRC32 crc = new CRC32();
+		while (buffer.remaining() >= 1 + 2 * Integer.BYTES) {
+			int start = buffer.position();
+			byte type = buffer.get();
+			int length = buffer.getInt();
+			if (length < 0 || buffer.remaining() < length + Integer.BYTES)
+				return start;
+			crc.reset();
+			crc.update(buffer.array(), start, 1 + Integer.BYTES + length);
+			if ((int) crc.getValue() != buffer.getInt(buffer.position() + length))
+				return start;
+
+			ByteBuffer payload = ByteBuffer.wrap(buffer.array(), buffer.position(), length).slice();
+			buffer.position(buffer.position() + length + Integer.BYTES);
+			if (type == COLUMNS_RECORD)
+				this.readColumns(payload);
+			else if (type == DECIDED_RECORD && this.columnNames != null)
+				this.readDecided(payload);
+			else
+				return start;
+		}
+		return buffer.position();
+	}
+
+	private void readColumns(ByteBuffer payload) {
+		int numColumns = payload.getInt();
+		List<String> names = new ArrayList<>(numColumns);
+		int[] sizes = new int[numColumns];
+		for (int column = 0; column < numColumns; column++) {
+			byte[] bytes = new byte[payload.getInt()];
+			payload.get(bytes);
+			names.add(new String(bytes, StandardCharsets.UTF_8));
+			sizes[column] = payload.getInt();
+		}
+		this.setColumns(names, sizes);
+	}
+
+	private void readDecided(ByteBuffer payload) {
+		int dependent = payload.getInt();
+		int[] referenced = new int[payload.getInt()];
+		for (int i = 0; i < referenced.length; i++)
+			referenced[i] = payload.getInt();
+		long[] words = new long[payload.getInt()];
+		for (int i = 0; i < words.length; i++)
+			words[i] = payload.getLong();
+		this.decide(dependent, referenced, BitSet.valueOf(words));
+	}
+
+	private void setColumns(List<String> names, int[] sizes) {
+		this.columnNames = names;
+		this.columnSizes = sizes;
+		this.decided = new BitSet[names.size()];
+		this.included = new BitSet[names.size()];
+		for (int column = 0; column < names.size(); column++) {
+			this.decided[column] = new BitSet();
+			this.included[column] = new BitSet();
+		}
+		this.numDecided = 0;
+	}
+
+	private void decide(int dependent, int[] referenced, BitSet results) {
+		for (int i = 0; i < referenced.length; i++) {
+			if (!this.decided[dependent].get(referenced[i]))
+				this.numDecided++;
+			this.decided[dependent].set(referenced[i]);
+			if (results.get(i))
+				this.included[dependent].set(referenced[i]);
+		}
+	}
+
+	private void clearProgress() {
+		this.columnNames = null;
+		this.columnSizes = null;
+		this.decided = null;
+		this.included = null;
+		this.numDecided = 0;
+	}
+
+	/**
+	 * Takes over the recorded progress for a run over the given columns, if the log holds exactly the same columns in any
+	 * order; otherwise, the log starts over. Either way, the log is rewritten in the given column order.
+	 *
+	 * @return whether the recorded progress has been taken over
+	 */
+	public boolean restore(List<String> names, int[] sizes) throws IOException {
+		boolean matches = this.columnNames != null && this.columnNames.size() == names.size();
+		int[] newIds = new int[names.size()];
+		if (matches) {
+			Map<String, Integer> columnIds = new HashMap<>();
+			for (int column = 0; column < names.size(); column++)
+				columnIds.put(names.get(column), column);
+			for (int column = 0; column < this.columnNames.size() && matches; column++) {
+				Integer newId = columnIds.get(this.columnNames.get(column));
+				matches = newId != null && sizes[newId] == this.columnSizes[column];
+				newIds[column] = matches ? newId : -1;
+			}
+		}
+
+		BitSet[] recordedDecided = new BitSet[names.size()];
+		BitSet[] recordedIncluded = new BitSet[names.size()];
+		for (int column = 0; column < names.size(); column++) {
+			recordedDecided[matches ? newIds[column] : column] = matches ? remap(this.decided[column], newIds) : new BitSet();
+			recordedIncluded[matches ? newIds[column] : column] = matches ? remap(this.included[column], newIds) : new BitSet();
+		}
+		this.rewrite(names, sizes, recordedDecided, recordedIncluded);
+		return matches;
+	}
+
+	private static BitSet remap(BitSet columns, int[] newIds) {
+		BitSet remapped = new BitSet(newIds.length);
+		for (int column = columns.nextSetBit(0); column >= 0; column = columns.nextSetBit(column + 1))
+			remapped.set(newIds[column]);
+		return remapped;
+	}
+
+	private void rewrite(List<String> names, int[] sizes, BitSet[] decided, BitSet[] included) throws IOException {
+		// The new log is written to a temporary file that replaces the old one atomically, so that a crash while rewriting
+		// the log still leaves the old one in place.
+		this.out.close();
+		Path temporary = Files.createTempFile(this.file.getAbsoluteFile().getParentFile().toPath(), this.file.getName(), ".tmp");
+		try {
+			this.open(temporary.toFile(), false);
+			this.out.writeInt(MAGIC);
+			this.out.writeInt(VERSION);
+
+			ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES + names.size() * 2 * Integer.BYTES + names.stream().mapToInt(name -> name.length() * 3).sum());
+			payload.putInt(names.size());
+			for (int column = 0; column < names.size(); column++) {
+				byte[] bytes = names.get(column).getBytes(StandardCharsets.UTF_8);
+				payload.putInt(bytes.length);
+				payload.put(bytes);
+				payload.putInt(sizes[column]);
+			}
+			this.append(COLUMNS_RECORD, payload);
+			this.setColumns(new ArrayList<>(names), sizes.clone());
+
+			for (int dependent = 0; dependent < names.size(); dependent++) {
+				if (decided[dependent].isEmpty())
+					continue;
+				int[] referenced = decided[dependent].stream().toArray();
+				BitSet results = new BitSet(referenced.length);
+				for (int i = 0; i < referenced.length; i++)
+					if (included[dependent].get(referenced[i]))
+						results.set(i);
+				this.writeDecided(dependent, referenced, results.toLongArray());
+			}
+			this.close();
+		} catch (IOException e) {
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+		Files.move(temporary, this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		this.open(this.file, true);
+	}
+
+	private void open(File target, boolean append) throws IOException {
+		this.stream = new FileOutputStream(target, append);
+		this.out = new DataOutputStream(new BufferedOutputStream(this.stream, 1 << 16));
+	}
+
+	/**
+	 * Records the result of checking the dependent column against the referenced columns.
+	 *
+	 * @param results the bits of the referenced columns, in the given order, that contain the dependent column
+	 */
+	public void writeDecided(int dependent, int[] referenced, long[] results) throws IOException {
+		ByteBuffer payload = ByteBuffer.allocate((3 + referenced.length) * Integer.BYTES + results.length * Long.BYTES);
+		payload.putInt(dependent);
+		payload.putInt(referenced.length);
+		for (int column : referenced)
+			payload.putInt(column);
+		payload.putInt(results.length);
+		for (long word : results)
+			payload.putLong(word);
+		this.append(DECIDED_RECORD, payload);
+		this.decide(dependent, referenced, BitSet.valueOf(results));
+	}
+
+	private void append(byte type, ByteBuffer payload) throws IOException {
+		payload.flip();
+		ByteBuffer header = ByteBuffer.allocate(1 + Integer.BYTES).put(type).putInt(payload.remaining());
+		CRC32 crc = new CRC32();
+		crc.update(header.array());
+		crc.update(payload.array(), payload.arrayOffset(), payload.remaining());
+		this.out.write(header.array());
+		this.out.write(payload.array(), payload.arrayOffset(), payload.remaining());
+		this.out.writeInt((int) crc.getValue());
+	}
+
+	/**
+	 * @return whether the referenced column has been checked against the dependent column
+	 */
+	public boolean isDecided(int dependent, int referenced) {
+		return this.decided != null && this.decided[dependent].get(referenced);
+	}
+
+	/**
+	 * @return the referenced columns that have been found to contain the dependent column
+	 */
+	public BitSet getIncluded(int dependent) {
+		return this.included[dependent];
+	}
+
+	public int getNumDecided() {
+		return this.numDecided;
+	}
+
+	/**
+	 * Forces all records written so far to disk.
+	 */
+	public void sync() throws IOException {
+		this.out.flush();
+		this.stream.getFD().sync();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.sync();
+		this.out.close();
+	}
+}
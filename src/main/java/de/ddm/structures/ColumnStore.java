@@ -0,0 +1,341 @@
+package de.ddm.structures;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntIterators;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Holds the sorted, dictionary-encoded columns of the master within a memory budget. Once the columns in memory exceed the
+ * budget, the largest ones are spilled as sorted runs of ints into a temporary directory. Every column arrives complete
+ * and duplicate-free, either at once or interleaved with others from a merge, so a column is exactly one run: spilled
+ * columns are read back whole when a worker requests them and streamed when all columns are merged at once.
+ */
+public class ColumnStore implements Closeable {
+
+	private static final int STREAM_BUFFER_SIZE = 1 << 16;	// ints
+	private static final int WRITE_BUFFER_SIZE = 1 << 12;	// ints per column that a ColumnWriter spills as it grows
+
+	private final long memoryBudget;
+	private final File spillParent;
+	private Path spillDirectory;
+
+	private final List<int[]> columns = new ArrayList<>();	// null, if the column has been spilled
+	private final List<Integer> sizes = new ArrayList<>();
+	private long valuesInMemory = 0;
+	private int spilledColumns = 0;
+	private long spilledValues = 0;
+
+	/**
+	 * @param memoryBudget the maximum number of values that the store keeps in memory
+	 * @param spillParent the directory in which the store creates its temporary spill directory
+	 */
+	public ColumnStore(long memoryBudget, File spillParent) {
+		this.memoryBudget = memoryBudget;
+		this.spillParent = spillParent;
+	}
+
+	/**
+	 * @param column the distinct values of the column, which the store sorts in place and takes ownership of
+	 * @return the id of the column
+	 */
+	public int add(int[] column) {
+		Arrays.sort(column);
+		this.columns.add(column);
+		this.sizes.add(column.length);
+		this.valuesInMemory += column.length;
+
+		while (this.valuesInMemory > this.memoryBudget)
+			this.spill(this.largestColumnInMemory());
+		return this.columns.size() - 1;
+	}
+
+	/**
+	 * Adds columns whose values arrive interleaved and in ascending order per column, e.g. from a merge of sorted runs. The
+	 * smallest columns that fit into the memory budget next to the reserved values are filled in memory; the others are
+	 * written to their spill files while they grow.
+	 *
+	 * @param sizes the number of values of each new column
+	 * @param reservedValues the part of the memory budget that the caller still takes up, e.g. with the runs that it merges
+	 * @return the writer, whose column i gets the id numColumns() + i
+	 */
+	public ColumnWriter addColumns(int[] sizes, long reservedValues) {
+		Integer[] bySize = new Integer[sizes.length];
+		for (int column = 0; column < sizes.length; column++)
+			bySize[column] = column;
+		Arrays.sort(bySize, (a, b) -> Integer.compare(sizes[a], sizes[b]));
+
+		int firstId = this.columns.size();
+		for (int size : sizes) {
+			this.columns.add(null);
+			this.sizes.add(size);
+		}
+
+		long available = this.memoryBudget - this.valuesInMemory - reservedValues;
+		for (int column : bySize) {
+			if (sizes[column] == 0 || sizes[column] <= available) {
+				this.columns.set(firstId + column, new int[sizes[column]]);
+				this.valuesInMemory += sizes[column];
+				available -= sizes[column];
+			} else {
+				this.spilledColumns++;
+				this.spilledValues += sizes[column];
+			}
+		}
+		return new ColumnWriter(firstId, sizes.length);
+	}
+
+	public int numColumns() {
+		return this.columns.size();
+	}
+
+	public int size(int columnId) {
+		return this.sizes.get(columnId);
+	}
+
+	public long getValuesInMemory() {
+		return this.valuesInMemory;
+	}
+
+	public int getSpilledColumns() {
+		return this.spilledColumns;
+	}
+
+	public long getSpilledValues() {
+		return this.spilledValues;
+	}
+
+	/**
+	 * @return the sorted column, which is read back from disk if it has been spilled; callers must not modify it
+	 */
+	public int[] get(int columnId) {
+		int[] column = this.columns.get(columnId);
+		if (column != null)
+			return column;
+
+		try (FileChannel channel = FileChannel.open(this.spillFile(columnId), StandardOpenOption.READ)) {
+			column = new int[this.size(columnId)];
+			ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE * Integer.BYTES);
+			int position = 0;
+			while (position < column.length) {
+				buffer.clear();
+				buffer.limit(Math.min(buffer.capacity(), (column.length - position) * Integer.BYTES));
+				while (buffer.hasRemaining())
+					if (channel.read(buffer) < 0)
+						throw new IOException("Spill file of column " + columnId + " ended early");
+				buffer.flip();
+				IntBuffer ints = buffer.asIntBuffer();
+				int count = ints.remaining();
+				ints.get(column, position, count);
+				position += count;
+			}
+			return column;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return an ascending iterator over the column that reads spilled columns in small blocks
+	 */
+	public IntIterator stream(int columnId) {
+		int[] column = this.columns.get(columnId);
+		if (column != null)
+			return IntIterators.wrap(column);
+
+		try {
+			return new SpillFileIterator(FileChannel.open(this.spillFile(columnId), StandardOpenOption.READ), this.size(columnId));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private int largestColumnInMemory() {
+		int largest = -1;
+		for (int columnId = 0; columnId < this.columns.size(); columnId++)
+			if (this.columns.get(columnId) != null && (largest < 0 || this.columns.get(columnId).length > this.columns.get(largest).length))
+				largest = columnId;
+		return largest;
+	}
+
+	private Path spillFile(int columnId) throws IOException {
+		if (this.spillDirectory == null)
+			this.spillDirectory = Files.createTempDirectory(this.spillParent.toPath(), "ddm-columns");
+		return this.spillDirectory.resolve("column_" + columnId + ".run");
+	}
+
+	private void spill(int columnId) {
+		int[] column = this.columns.get(columnId);
+		try {
+			try (FileChannel channel = FileChannel.open(this.spillFile(columnId), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE * Integer.BYTES);
+				for (int position = 0; position < column.length; ) {
+					buffer.clear();
+					int count = Math.min(STREAM_BUFFER_SIZE, column.length - position);
+					buffer.asIntBuffer().put(column, position, count);
+					buffer.limit(count * Integer.BYTES);
+					while (buffer.hasRemaining())
+						channel.write(buffer);
+					position += count;
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		this.columns.set(columnId, null);
+		this.valuesInMemory -= column.length;
+		this.spilledColumns++;
+		this.spilledValues += column.length;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.columns.clear();
+		this.sizes.clear();
+		this.valuesInMemory = 0;
+		if (this.spillDirectory == null)
+			return;
+
+		File[] files = this.spillDirectory.toFile().listFiles();
+		if (files != null)
+			for (File file : files)
+				Files.deleteIfExists(file.toPath());
+		Files.deleteIfExists(this.spillDirectory);
+		this.spillDirectory = null;
+	}
+
+	/**
+	 * Fills the columns of one addColumns call; every column must receive exactly as many values as announced.
+	 */
+	public class ColumnWriter {
+
+		private final int firstId;
+		private final int[] positions;
+		private final ByteBuffer[] buffers;		// The pending values of spilled columns, allocated on their first value
+		private final FileChannel[] channels;	// The spill files of spilled columns, opened on their first flush
+
+		private ColumnWriter(int firstId, int numColumns) {
+			this.firstId = firstId;
+			this.positions = new int[numColumns];
+			this.buffers = new ByteBuffer[numColumns];
+			this.channels = new FileChannel[numColumns];
+		}
+
+		public void write(int column, int value) {
+			int[] values = ColumnStore.this.columns.get(this.firstId + column);
+			if (values != null) {
+				values[this.positions[column]++] = value;
+				return;
+			}
+
+			if (this.buffers[column] == null)
+				this.buffers[column] = ByteBuffer.allocate(Math.min(WRITE_BUFFER_SIZE, ColumnStore.this.size(this.firstId + column)) * Integer.BYTES);
+			this.buffers[column].putInt(value);
+			this.positions[column]++;
+			if (!this.buffers[column].hasRemaining())
+				this.flush(column);
+		}
+
+		private void flush(int column) {
+			ByteBuffer buffer = this.buffers[column];
+			buffer.flip();
+			try {
+				if (this.channels[column] == null)
+					this.channels[column] = FileChannel.open(ColumnStore.this.spillFile(this.firstId + column), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+				while (buffer.hasRemaining())
+					this.channels[column].write(buffer);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			buffer.clear();
+		}
+
+		/**
+		 * Writes the pending values of the spilled columns to disk and closes their spill files.
+		 */
+		public void close() {
+			try {
+				for (int column = 0; column < this.positions.length; column++) {
+					if (this.positions[column] != ColumnStore.this.size(this.firstId + column))
+						throw new IllegalStateException("Column " + (this.firstId + column) + " received " + this.positions[column] + " of " + ColumnStore.this.size(this.firstId + column) + " values");
+					if (this.buffers[column] != null && this.buffers[column].position() > 0)
+						this.flush(column);
+					this.buffers[column] = null;
+				}
+			} finally {
+				this.closeChannels();
+			}
+		}
+
+		private void closeChannels() {
+			IOException failure = null;
+			for (int column = 0; column < this.channels.length; column++) {
+				if (this.channels[column] == null)
+					continue;
+				try {
+					this.channels[column].close();
+				} catch (IOException e) {
+					failure = e;
+				}
+				this.channels[column] = null;
+			}
+			if (failure != null)
+				throw new UncheckedIOException(failure);
+		}
+	}
+
+	private static class SpillFileIterator implements IntIterator {
+
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE * Integer.BYTES);
+		private int remaining;
+
+		private SpillFileIterator(FileChannel channel, int size) {
+			this.channel = channel;
+			this.remaining = size;
+			this.buffer.flip();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.remaining > 0;
+		}
+
+		@Override
+		public int nextInt() {
+			if (this.remaining == 0)
+				throw new NoSuchElementException();
+			try {
+				if (!this.buffer.hasRemaining()) {
+					this.buffer.clear();
+					this.buffer.limit(Math.min(this.buffer.capacity(), this.remaining * Integer.BYTES));
+					while (this.buffer.hasRemaining())
+						if (this.channel.read(this.buffer) < 0)
+							throw new IOException("Spill file ended early");
+					this.buffer.flip();
+				}
+				int value = this.buffer.getInt();
+				// The channel is closed as soon as the stream is exhausted, because merges do not close their inputs.
+				if (--this.remaining == 0)
+					this.channel.close();
+				return value;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
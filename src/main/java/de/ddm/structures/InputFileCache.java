@@ -0,0 +1,187 @@
+package de.ddm.structures;
+
+import de.ddm.configuration.ParserConfiguration;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A columnar on-disk cache of parsed input files: per column the sorted distinct values plus some statistics. A cache
+ * entry is only valid for the exact path, size and modification time of its input file and for the parser settings it was
+ * read with, so changed files or settings simply miss the cache. Entries are memory-mapped for loading, which skips both
+ * parsing and deduplication on repeat runs.
+ */
+public class InputFileCache {
+
+	private static final int MAGIC = 0x44444d43;	// "DDMC"
+	private static final int VERSION = 1;
+
+	// The largest entry that is stored, because load maps an entry into a single buffer
+	public static int MAX_ENTRY_SIZE = Integer.MAX_VALUE;	// bytes
+
+	@Getter
+	@AllArgsConstructor
+	public static class CachedFile {
+		private final String[] header;
+		private final long numRows;
+		private final List<String[]> distinctValues;	// Sorted with null first
+		private final ColumnStatistics[] statistics;
+	}
+
+	@Getter
+	@AllArgsConstructor
+	public static class ColumnStatistics {
+		private final int numDistinct;
+		private final boolean hasNull;
+		private final int minLength;	// In chars, over the non-null values
+		private final int maxLength;
+	}
+
+	private final File directory;
+	private final String settings;
+
+	public InputFileCache(File directory, ParserConfiguration parserConfiguration) {
+		this.directory = directory;
+		this.settings = parserConfiguration.getCharset().name() + "|" + parserConfiguration.getValueSeparator() + "|" + parserConfiguration.getValueQuote()
+				+ "|" + parserConfiguration.getValueEscape() + "|" + parserConfiguration.isValueStrictQuotes() + "|" + parserConfiguration.isValueIgnoreLeadingWhitespace()
+				+ "|" + parserConfiguration.isFileHasHeader();
+	}
+
+	private File entryFor(File inputFile) throws IOException {
+		String path = inputFile.getCanonicalPath();
+		return new File(this.directory, inputFile.getName() + "_" + Integer.toHexString(path.hashCode()) + ".columns");
+	}
+
+	/**
+	 * @return the cached columns of the input file or null, if there is no entry or it is stale
+	 */
+	public CachedFile load(File inputFile) throws IOException {
+		File entry = this.entryFor(inputFile);
+		if (!entry.isFile() || entry.length() > MAX_ENTRY_SIZE)
+			return null;
+
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(entry.toPath(), StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		try {
+			return read(buffer, inputFile);
+		} catch (BufferUnderflowException e) {
+			return null; // A truncated entry, e.g. from a full disk, is treated as missing
+		}
+	}
+
+	private CachedFile read(MappedByteBuffer buffer, File inputFile) throws IOException {
+		byte[] scratch = new byte[256];
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+			return null;
+		if (!inputFile.getCanonicalPath().equals(getString(buffer, scratch)) || buffer.getLong() != inputFile.length()
+				|| buffer.getLong() != inputFile.lastModified() || !this.settings.equals(getString(buffer, scratch)))
+			return null;
+
+		String[] header = new String[buffer.getInt()];
+		for (int i = 0; i < header.length; i++)
+			header[i] = getString(buffer, scratch);
+		long numRows = buffer.getLong();
+
+		int numColumns = buffer.getInt();
+		ColumnStatistics[] statistics = new ColumnStatistics[numColumns];
+		List<String[]> distinctValues = new ArrayList<>(numColumns);
+		for (int column = 0; column < numColumns; column++) {
+			statistics[column] = new ColumnStatistics(buffer.getInt(), buffer.get() != 0, buffer.getInt(), buffer.getInt());
+			String[] values = new String[statistics[column].getNumDistinct()];
+			for (int i = 0; i < values.length; i++)
+				values[i] = getString(buffer, scratch);
+			distinctValues.add(values);
+		}
+		return new CachedFile(header, numRows, distinctValues, statistics);
+	}
+
+	/**
+	 * Sorts the distinct values in place and writes them as the cache entry of the input file. The entry is written to a
+	 * temporary file first and then moved into place, so that concurrent runs never see half-written entries. Entries that
+	 * would exceed {@link #MAX_ENTRY_SIZE} cannot be loaded, so they are not stored and an IOException reports them.
+	 */
+	public void store(File inputFile, String[] header, long numRows, List<String[]> distinctValues) throws IOException {
+		Files.createDirectories(this.directory.toPath());
+		File entry = this.entryFor(inputFile);
+		Path temporary = Files.createTempFile(this.directory.toPath(), entry.getName(), ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			putString(out, inputFile.getCanonicalPath());
+			out.writeLong(inputFile.length());
+			out.writeLong(inputFile.lastModified());
+			putString(out, this.settings);
+
+			out.writeInt(header.length);
+			for (String name : header)
+				putString(out, name);
+			out.writeLong(numRows);
+
+			out.writeInt(distinctValues.size());
+			for (String[] values : distinctValues) {
+				Arrays.sort(values, Comparator.nullsFirst(Comparator.naturalOrder()));
+				int minLength = Integer.MAX_VALUE;
+				int maxLength = 0;
+				for (String value : values) {
+					if (value != null) {
+						minLength = Math.min(minLength, value.length());
+						maxLength = Math.max(maxLength, value.length());
+					}
+				}
+				out.writeInt(values.length);
+				out.writeByte(values.length > 0 && values[0] == null ? 1 : 0);
+				out.writeInt(minLength == Integer.MAX_VALUE ? 0 : minLength);
+				out.writeInt(maxLength);
+				for (String value : values) {
+					putString(out, value);
+					if (out.size() >= MAX_ENTRY_SIZE) // The count saturates at Integer.MAX_VALUE
+						throw new IOException("the cache entry exceeds " + MAX_ENTRY_SIZE + " bytes and could not be mapped");
+				}
+			}
+		} catch (IOException e) {
+			Files.deleteIfExists(temporary);
+			Files.deleteIfExists(entry.toPath()); // An older entry is outdated by now
+			throw e;
+		}
+		Files.move(temporary, entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void putString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String getString(MappedByteBuffer buffer, byte[] scratch) {
+		int length = buffer.getInt();
+		if (length < 0)
+			return null;
+		byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+		buffer.get(bytes, 0, length);
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,405 @@
+package de.ddm.structures;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import de.ddm.configuration.ParserConfiguration;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A CSV reader that memory-maps its file and parses it in rounds of chunks that are processed in parallel. Chunks are
+ * cut speculatively behind line breaks; because a line break may lie inside a quoted value, every chunk is validated
+ * against the actual end of its predecessor's last record and re-parsed from there if the guess was wrong.
+ * The parser works on the raw bytes and reproduces opencsv's CSVParser semantics for the settings in
+ * ParserConfiguration, including escapes, strict quotes, leading whitespace and empty unquoted values becoming null.
+ * Charsets in which the structural characters are not single ASCII bytes fall back to opencsv.
+ */
+public class MappedCSVReader implements Closeable {
+
+	private static final byte LINE_FEED = '\n';
+	private static final byte CARRIAGE_RETURN = '\r';
+
+	private final byte separator;
+	private final byte quote;
+	private final byte escape;
+	private final boolean strictQuotes;
+	private final boolean ignoreLeadingWhiteSpace;
+	private final Charset charset;
+	private final boolean utf8;
+
+	private final int chunkSize;
+	private final int parallelism;
+
+	private final boolean[] structural = new boolean[256];	// Bytes that end a run of plain value bytes
+
+	private final CSVReader fallbackReader;
+	private final FileChannel channel;
+	private final long fileSize;
+
+	private MappedByteBuffer mapping;
+	private long mappingStart;
+	private long mappingEnd;
+
+	private long position = 0;
+	private final Queue<List<String[]>> parsedChunks = new ArrayDeque<>();
+	private List<String[]> currentChunk = null;
+	private int currentRow = 0;
+
+	public MappedCSVReader(File inputFile, ParserConfiguration parserConfiguration, int chunkSize, int parallelism) throws IOException {
+		this.separator = (byte) parserConfiguration.getValueSeparator();
+		this.quote = (byte) parserConfiguration.getValueQuote();
+		this.escape = (byte) parserConfiguration.getValueEscape();
+		this.strictQuotes = parserConfiguration.isValueStrictQuotes();
+		this.ignoreLeadingWhiteSpace = parserConfiguration.isValueIgnoreLeadingWhitespace();
+		this.charset = parserConfiguration.getCharset();
+		this.utf8 = StandardCharsets.UTF_8.equals(this.charset);
+		this.chunkSize = Math.max(1, chunkSize);
+		this.parallelism = Math.max(1, parallelism);
+		for (byte c : new byte[]{LINE_FEED, CARRIAGE_RETURN, this.separator, this.quote, this.escape})
+			this.structural[c & 0xFF] = true;
+
+		if (supports(parserConfiguration)) {
+			this.fallbackReader = null;
+			this.channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ);
+			this.fileSize = this.channel.size();
+		} else {
+			this.fallbackReader = parserConfiguration.createCSVReader(inputFile);
+			this.channel = null;
+			this.fileSize = 0;
+		}
+	}
+
+	/**
+	 * @return true if the configured charset encodes line breaks, separator, quote and escape as the same single bytes as
+	 * ASCII and either is UTF-8 or uses one byte per character, so that the parser can work on raw bytes
+	 */
+	public static boolean supports(ParserConfiguration parserConfiguration) {
+		Charset charset = parserConfiguration.getCharset();
+		if (!charset.canEncode())
+			return false;
+		if (!StandardCharsets.UTF_8.equals(charset) && charset.newEncoder().maxBytesPerChar() != 1)
+			return false;
+
+		char[] structuralChars = {'\n', '\r', parserConfiguration.getValueSeparator(), parserConfiguration.getValueQuote(), parserConfiguration.getValueEscape()};
+		for (char structuralChar : structuralChars) {
+			byte[] bytes = String.valueOf(structuralChar).getBytes(charset);
+			if (structuralChar >= 0x80 || bytes.length != 1 || bytes[0] != structuralChar)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the next record or null if the file is exhausted, as opencsv's CSVReader.readNext()
+	 */
+	public String[] readNext() throws IOException, CsvValidationException {
+		if (this.fallbackReader != null)
+			return this.fallbackReader.readNext();
+
+		while (this.currentChunk == null || this.currentRow >= this.currentChunk.size()) {
+			if (!this.parsedChunks.isEmpty()) {
+				this.currentChunk = this.parsedChunks.poll();
+				this.currentRow = 0;
+				continue;
+			}
+			if (this.position >= this.fileSize)
+				return null;
+			this.parseRound();
+		}
+		return this.currentChunk.get(this.currentRow++);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.fallbackReader != null)
+			this.fallbackReader.close();
+		if (this.channel != null)
+			this.channel.close();
+		this.mapping = null;
+		this.parsedChunks.clear();
+		this.currentChunk = null;
+	}
+
+	private static class ChunkResult {
+		private final List<String[]> rows;
+		private final long end;
+		private final IOException error;	// Raised only if the chunk's start turns out to be a real record start
+
+		private ChunkResult(List<String[]> rows, long end, IOException error) {
+			this.rows = rows;
+			this.end = end;
+			this.error = error;
+		}
+	}
+
+	private void parseRound() throws IOException {
+		long roundSize = (long) this.chunkSize * this.parallelism;
+		this.ensureMapped(this.position, roundSize);
+		long roundEnd = Math.min(this.fileSize, this.position + roundSize);
+
+		List<Long> starts = new ArrayList<>(this.parallelism + 1);
+		starts.add(this.position);
+		for (int i = 1; i < this.parallelism; i++) {
+			long start = this.nextLineStart(this.position + (long) i * this.chunkSize);
+			if (start >= roundEnd)
+				break;
+			if (start > starts.get(starts.size() - 1))
+				starts.add(start);
+		}
+		starts.add(roundEnd);
+
+		List<CompletableFuture<ChunkResult>> futures = new ArrayList<>(starts.size() - 1);
+		for (int i = 0; i < starts.size() - 1; i++) {
+			final long start = starts.get(i);
+			final long end = starts.get(i + 1);
+			futures.add(CompletableFuture.supplyAsync(() -> this.parseChunk(start, end), ForkJoinPool.commonPool()));
+		}
+
+		ChunkResult previous = null;
+		for (int i = 0; i < futures.size(); i++) {
+			ChunkResult result = futures.get(i).join();
+			// A speculative chunk start is only valid if the previous chunk's last record actually ended there.
+			if (previous != null && previous.end != starts.get(i))
+				result = this.parseChunk(previous.end, starts.get(i + 1));
+			if (result.error != null)
+				throw result.error;
+			this.parsedChunks.add(result.rows);
+			previous = result;
+		}
+		this.position = previous.end;
+	}
+
+	/**
+	 * Maps a window of the file that starts at the given position, unless the current window already covers the round.
+	 * Windows are limited to 2 GB, so a single record must not exceed what remains of its window.
+	 */
+	private void ensureMapped(long start, long roundSize) throws IOException {
+		if (this.mapping != null && (start + roundSize <= this.mappingEnd || this.mappingEnd == this.fileSize))
+			return;
+
+		long size = Math.min(this.fileSize - start, Integer.MAX_VALUE);
+		this.mapping = this.channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		this.mappingStart = start;
+		this.mappingEnd = start + size;
+	}
+
+	private long nextLineStart(long from) {
+		int index = (int) (from - this.mappingStart);
+		int limit = (int) (this.mappingEnd - this.mappingStart);
+		while (index < limit && this.mapping.get(index) != LINE_FEED)
+			index++;
+		return this.mappingStart + Math.min(limit, index + 1);
+	}
+
+	/**
+	 * Parses the records that start at or after start and before end; the last record may extend beyond end.
+	 */
+	private ChunkResult parseChunk(long start, long end) {
+		RecordParser parser = new RecordParser(this.mapping);
+		List<String[]> rows = new ArrayList<>();
+		int index = (int) (start - this.mappingStart);
+		int endIndex = (int) (Math.min(end, this.mappingEnd) - this.mappingStart);
+		try {
+			while (index < endIndex) {
+				index = parser.parseRecord(index);
+				rows.add(parser.getRecord());
+			}
+		} catch (IOException e) {
+			return new ChunkResult(rows, this.mappingStart + index, e);
+		}
+		return new ChunkResult(rows, this.mappingStart + index, null);
+	}
+
+	/**
+	 * A byte-level transcription of opencsv's CSVParser.parseLine() with the line handling of its CSVReader: a line break
+	 * inside quotes continues the record with a '\n' in the value, and position checks refer to characters of the line.
+	 */
+	private class RecordParser {
+
+		private final ByteBuffer buffer;
+		private final ByteBuffer bulkBuffer;
+		private final int limit;
+
+		private final List<String> fields = new ArrayList<>();
+		private byte[] output = new byte[64];
+		private int outputLength;
+
+		private boolean inQuotes;
+		private boolean inField;
+		private boolean fromQuotedField;
+		private int lineCharacters;
+
+		private RecordParser(ByteBuffer buffer) {
+			this.buffer = buffer;
+			this.bulkBuffer = buffer.duplicate();
+			this.limit = buffer.limit();
+		}
+
+		private String[] getRecord() {
+			return this.fields.toArray(new String[0]);
+		}
+
+		/**
+		 * @return the index behind the record's terminating line break
+		 */
+		private int parseRecord(int index) throws IOException {
+			this.fields.clear();
+			this.outputLength = 0;
+			this.inQuotes = false;
+			this.inField = false;
+			this.fromQuotedField = false;
+			this.lineCharacters = 0;
+
+			while (true) {
+				if (index >= this.limit) {
+					if (MappedCSVReader.this.mappingEnd < MappedCSVReader.this.fileSize)
+						throw new IOException("Record at byte " + MappedCSVReader.this.mappingStart + " exceeds the mapped window of the file");
+					if (this.inQuotes)
+						throw new IOException("Un-terminated quoted field at end of CSV file");
+					this.endField();
+					return index;
+				}
+
+				byte c = this.buffer.get(index);
+				if (c == LINE_FEED || c == CARRIAGE_RETURN) {
+					index++;
+					if (c == CARRIAGE_RETURN && index < this.limit && this.buffer.get(index) == LINE_FEED)
+						index++;
+					if (this.inQuotes) {
+						this.append(LINE_FEED);
+						this.fromQuotedField = false;
+						this.lineCharacters = 0;
+						continue;
+					}
+					this.inField = false;
+					this.endField();
+					return index;
+				}
+
+				if (c == MappedCSVReader.this.escape) {
+					if (!MappedCSVReader.this.strictQuotes)
+						this.inField = true;
+					if ((this.inQuotes || this.inField) && this.isNextInLine(index, MappedCSVReader.this.quote, MappedCSVReader.this.escape, MappedCSVReader.this.separator)) {
+						this.append(this.buffer.get(index + 1));
+						index += 2;
+						this.lineCharacters += 2;
+					} else {
+						index++;
+						this.lineCharacters++;
+					}
+				} else if (c == MappedCSVReader.this.quote) {
+					if ((this.inQuotes || this.inField) && this.isNextInLine(index, MappedCSVReader.this.quote, MappedCSVReader.this.quote, MappedCSVReader.this.quote)) {
+						this.append(MappedCSVReader.this.quote);
+						index += 2;
+						this.lineCharacters += 2;
+					} else {
+						this.inQuotes = !this.inQuotes;
+						if (this.outputLength == 0)
+							this.fromQuotedField = true;
+						// A quote in the middle of an unquoted value is kept as a literal
+						if (!MappedCSVReader.this.strictQuotes && this.lineCharacters > 2 && this.buffer.get(index - 1) != MappedCSVReader.this.separator
+								&& this.hasNextInLine(index) && this.buffer.get(index + 1) != MappedCSVReader.this.separator) {
+							if (MappedCSVReader.this.ignoreLeadingWhiteSpace && this.outputLength > 0 && this.isOutputWhitespace())
+								this.outputLength = 0;
+							else
+								this.append(c);
+						}
+						index++;
+						this.lineCharacters++;
+					}
+					this.inField = !this.inField;
+				} else if (c == MappedCSVReader.this.separator && !this.inQuotes) {
+					this.endField();
+					this.fromQuotedField = false;
+					this.inField = false;
+					index++;
+					this.lineCharacters++;
+				} else {
+					// Plain bytes come in runs, so they are copied in bulk up to the next structural byte
+					int runEnd = index + 1;
+					while (runEnd < this.limit && !MappedCSVReader.this.structural[this.buffer.get(runEnd) & 0xFF])
+						runEnd++;
+					if (!MappedCSVReader.this.strictQuotes || this.inQuotes) {
+						this.appendRun(index, runEnd);
+						this.inField = true;
+						this.fromQuotedField = true;
+					}
+					for (; index < runEnd && this.lineCharacters <= 2; index++)
+						this.lineCharacters += this.characterCount(this.buffer.get(index));
+					index = runEnd;
+				}
+			}
+		}
+
+		private boolean hasNextInLine(int index) {
+			if (index + 1 >= this.limit)
+				return false;
+			byte next = this.buffer.get(index + 1);
+			return next != LINE_FEED && next != CARRIAGE_RETURN;
+		}
+
+		private boolean isNextInLine(int index, byte a, byte b, byte c) {
+			if (index + 1 >= this.limit)
+				return false;
+			byte next = this.buffer.get(index + 1);
+			return next == a || next == b || next == c;
+		}
+
+		/**
+		 * @return the number of Java chars that start at this byte, so that position checks match the decoded line
+		 */
+		private int characterCount(byte c) {
+			if (!MappedCSVReader.this.utf8 || c >= 0)
+				return 1;
+			if ((c & 0xC0) == 0x80)
+				return 0;
+			return (c & 0xF8) == 0xF0 ? 2 : 1;
+		}
+
+		private void append(byte c) {
+			if (this.outputLength == this.output.length)
+				this.output = Arrays.copyOf(this.output, 2 * this.output.length);
+			this.output[this.outputLength++] = c;
+		}
+
+		private void appendRun(int start, int end) {
+			int length = end - start;
+			if (this.outputLength + length > this.output.length)
+				this.output = Arrays.copyOf(this.output, Math.max(2 * this.output.length, this.outputLength + length));
+			this.bulkBuffer.position(start);
+			this.bulkBuffer.get(this.output, this.outputLength, length);
+			this.outputLength += length;
+		}
+
+		private boolean isOutputWhitespace() {
+			String value = new String(this.output, 0, this.outputLength, MappedCSVReader.this.charset);
+			for (int i = 0; i < value.length(); i++)
+				if (!Character.isWhitespace(value.charAt(i)))
+					return false;
+			return true;
+		}
+
+		private void endField() {
+			if (this.outputLength == 0)
+				this.fields.add(this.fromQuotedField ? "" : null);
+			else
+				this.fields.add(new String(this.output, 0, this.outputLength, MappedCSVReader.this.charset));
+			this.outputLength = 0;
+		}
+	}
+}
@@ -0,0 +1,421 @@
+package de.ddm.structures;
+
+import de.ddm.configuration.SystemConfiguration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes inclusion dependencies to a file on a thread of its own, so that encoding and disk I/O never block the actor
+ * that collects the results. Results are gathered into batches that are handed to the writer thread once they are full
+ * or once the owner flushes them, e.g. on a timer. The queue of handed over batches is bounded, so a writer that falls
+ * behind slows the owner down instead of letting unwritten results pile up in memory. The writer flushes the file
+ * whenever it has caught up with the queue, so readers see every batch soon after it was handed over.
+ */
+public class ResultSink implements Closeable {
+
+	/**
+	 * Turns inclusion dependencies into the bytes of one output format.
+	 */
+	public interface Encoder extends Closeable {
+
+		/**
+		 * @return the file extension of the format, including the dot
+		 */
+		String getExtension();
+
+		void open(OutputStream out) throws IOException;
+
+		void write(InclusionDependency ind) throws IOException;
+
+		/**
+		 * Pushes everything written so far to the underlying stream.
+		 */
+		void flush() throws IOException;
+	}
+
+	public static Encoder createEncoder(SystemConfiguration.ResultFormat format) {
+		switch (format) {
+			case JSON_LINES:
+				return new JsonLinesEncoder();
+			case BINARY:
+				return new BinaryEncoder();
+			default:
+				return new TextEncoder();
+		}
+	}
+
+	/**
+	 * @return the given file name with its extension replaced by the one of the encoder
+	 */
+	public static File resultFile(String fileName, Encoder encoder) {
+		int dot = fileName.lastIndexOf('.');
+		return new File((dot > 0 ? fileName.substring(0, dot) : fileName) + encoder.getExtension());
+	}
+
+	private static final List<InclusionDependency> END = new ArrayList<>(0);
+
+	private final Encoder encoder;
+	private final int batchSize;
+	private final BlockingQueue<List<InclusionDependency>> batches;
+	private final Thread writer;
+
+	private List<InclusionDependency> batch;
+	private long numResults = 0;
+	private boolean closed = false;
+	private volatile IOException failure = null;
+
+	/**
+	 * @param batchSize the number of results after which a batch is handed to the writer thread
+	 * @param queueSize the number of batches that may wait for the writer thread
+	 */
+	public ResultSink(File file, Encoder encoder, int batchSize, int queueSize) throws IOException {
+		this.encoder = encoder;
+		this.batchSize = Math.max(1, batchSize);
+		this.batches = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+		this.batch = new ArrayList<>(this.batchSize);
+
+		encoder.open(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		this.writer = new Thread(this::write, "result-sink-" + file.getName());
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	private void write() {
+		try {
+			while (true) {
+				List<InclusionDependency> next = this.batches.take();
+				if (next == END)
+					break;
+				for (InclusionDependency ind : next)
+					this.encoder.write(ind);
+				if (this.batches.isEmpty())
+					this.encoder.flush();
+			}
+		} catch (IOException e) {
+			this.failure = e;
+		} catch (InterruptedException e) {
+			this.failure = new IOException("The result writer was interrupted.", e);
+		} finally {
+			try {
+				this.encoder.close();
+			} catch (IOException e) {
+				if (this.failure == null)
+					this.failure = e;
+			}
+			// Owners that wait for a free slot must not block forever on a writer that has stopped.
+			this.batches.clear();
+		}
+	}
+
+	public void add(List<InclusionDependency> inds) throws IOException {
+		this.checkOpen();
+		for (InclusionDependency ind : inds) {
+			this.batch.add(ind);
+			if (this.batch.size() >= this.batchSize)
+				this.flush();
+		}
+		this.numResults += inds.size();
+	}
+
+	/**
+	 * Hands the current batch to the writer thread, if it holds any results; a closed sink has none.
+	 */
+	public void flush() throws IOException {
+		this.checkFailure();
+		if (this.batch.isEmpty())
+			return;
+		this.handOver(this.batch);
+		this.batch = new ArrayList<>(this.batchSize);
+	}
+
+	private void handOver(List<InclusionDependency> next) throws IOException {
+		try {
+			while (this.writer.isAlive() && !this.batches.offer(next, 100, TimeUnit.MILLISECONDS))
+				this.checkFailure();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the result writer.", e);
+		}
+		this.checkFailure();
+	}
+
+	private void checkOpen() throws IOException {
+		if (this.closed)
+			throw new IOException("The result sink is closed.");
+		this.checkFailure();
+	}
+
+	private void checkFailure() throws IOException {
+		if (this.failure != null)
+			throw new IOException("Could not write the results: " + this.failure.getMessage(), this.failure);
+	}
+
+	public long getNumResults() {
+		return this.numResults;
+	}
+
+	/**
+	 * Writes all remaining results and waits until they are in the file; closing a closed sink has no effect.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed)
+			return;
+		this.closed = true;
+		if (!this.batch.isEmpty())
+			this.handOver(this.batch);
+		this.handOver(END);
+		try {
+			this.writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the result writer.", e);
+		}
+		this.checkFailure();
+	}
+
+	/**
+	 * One IND per line, exactly as InclusionDependency.toString prints it.
+	 */
+	public static class TextEncoder implements Encoder {
+
+		private BufferedWriter writer;
+
+		@Override
+		public String getExtension() {
+			return ".txt";
+		}
+
+		@Override
+		public void open(OutputStream out) {
+			this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public void write(InclusionDependency ind) throws IOException {
+			this.writer.write(ind.toString());
+			this.writer.newLine();
+		}
+
+		@Override
+		public void flush() throws IOException {
+			this.writer.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.writer.close();
+		}
+	}
+
+	/**
+	 * One JSON object per line with the dependent and referenced table names and attribute lists.
+	 */
+	public static class JsonLinesEncoder implements Encoder {
+
+		private BufferedWriter writer;
+		private final StringBuilder line = new StringBuilder();
+
+		@Override
+		public String getExtension() {
+			return ".jsonl";
+		}
+
+		@Override
+		public void open(OutputStream out) {
+			this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public void write(InclusionDependency ind) throws IOException {
+			this.line.setLength(0);
+			this.line.append("{\"dependentTable\":");
+			this.appendString(tableName(ind.getDependentFile()));
+			this.line.append(",\"dependentAttributes\":");
+			this.appendStrings(ind.getDependentAttributes());
+			this.line.append(",\"referencedTable\":");
+			this.appendString(tableName(ind.getReferencedFile()));
+			this.line.append(",\"referencedAttributes\":");
+			this.appendStrings(ind.getReferencedAttributes());
+			this.line.append('}');
+			this.writer.append(this.line);
+			this.writer.newLine();
+		}
+
+		private void appendStrings(String[] values) {
+			this.line.append('[');
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0)
+					this.line.append(',');
+				this.appendString(values[i]);
+			}
+			this.line.append(']');
+		}
+
+		private void appendString(String value) {
+			this.line.append('"');
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == '"' || c == '\\')
+					this.line.append('\\').append(c);
+				else if (c < 0x20)
+					this.line.append(String.format("\\u%04x", (int) c));
+				else
+					this.line.append(c);
+			}
+			this.line.append('"');
+		}
+
+		@Override
+		public void flush() throws IOException {
+			this.writer.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.writer.close();
+		}
+	}
+
+	/**
+	 * A header followed by a stream of records. Every attribute list is defined once by a record with its table name and
+	 * attributes, after which INDs refer to it by the order of its definition, so an IND takes two small var-ints.
+	 */
+	public static class BinaryEncoder implements Encoder {
+
+		private static final int MAGIC = 0x44444d52;	// "DDMR"
+		private static final int VERSION = 1;
+		private static final int DEFINITION_RECORD = 0;
+		private static final int IND_RECORD = 1;
+
+		private DataOutputStream out;
+		private final Map<List<String>, Integer> definitions = new HashMap<>();
+
+		@Override
+		public String getExtension() {
+			return ".bin";
+		}
+
+		@Override
+		public void open(OutputStream out) throws IOException {
+			this.out = new DataOutputStream(out);
+			this.out.writeInt(MAGIC);
+			this.out.writeInt(VERSION);
+		}
+
+		@Override
+		public void write(InclusionDependency ind) throws IOException {
+			int dependent = this.define(ind.getDependentFile(), ind.getDependentAttributes());
+			int referenced = this.define(ind.getReferencedFile(), ind.getReferencedAttributes());
+			writeVarInt(this.out, IND_RECORD);
+			writeVarInt(this.out, dependent);
+			writeVarInt(this.out, referenced);
+		}
+
+		private int define(File file, String[] attributes) throws IOException {
+			List<String> key = new ArrayList<>(attributes.length + 1);
+			key.add(tableName(file));
+			key.addAll(Arrays.asList(attributes));
+			Integer id = this.definitions.get(key);
+			if (id != null)
+				return id;
+
+			id = this.definitions.size();
+			this.definitions.put(key, id);
+			writeVarInt(this.out, DEFINITION_RECORD);
+			writeVarInt(this.out, key.size());
+			for (String value : key)
+				this.out.writeUTF(value);
+			return id;
+		}
+
+		/**
+		 * @return the INDs of a binary result file, with the table names as file names
+		 */
+		public static List<InclusionDependency> read(File file) throws IOException {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION)
+					throw new IOException("Not a binary result file: " + file.getName());
+
+				List<List<String>> definitions = new ArrayList<>();
+				List<InclusionDependency> inds = new ArrayList<>();
+				while (true) {
+					int type = in.read();
+					if (type < 0)
+						return inds;
+					if (type == DEFINITION_RECORD) {
+						List<String> key = new ArrayList<>();
+						for (int i = readVarInt(in); i > 0; i--)
+							key.add(in.readUTF());
+						definitions.add(key);
+					} else if (type == IND_RECORD) {
+						List<String> dependent = definitions.get(readVarInt(in));
+						List<String> referenced = definitions.get(readVarInt(in));
+						inds.add(new InclusionDependency(
+								new File(dependent.get(0)), dependent.subList(1, dependent.size()).toArray(new String[0]),
+								new File(referenced.get(0)), referenced.subList(1, referenced.size()).toArray(new String[0])));
+					} else {
+						throw new IOException("Unknown record type " + type + " in " + file.getName());
+					}
+				}
+			}
+		}
+
+		private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				out.writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			out.writeByte(value);
+		}
+
+		private static int readVarInt(InputStream in) throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				int b = in.read();
+				if (b < 0)
+					throw new EOFException();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return value;
+			}
+			throw new IOException("Malformed var-int");
+		}
+
+		@Override
+		public void flush() throws IOException {
+			this.out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.out.close();
+		}
+	}
+
+	private static String tableName(File file) {
+		return file.getName().split("\\.")[0];
+	}
+}
@@ -7,11 +7,21 @@ import lombok.Getter;
 @AllArgsConstructor
 public class Task {
 
-    private final String dependentAttribute;
+    private final int id;
 
-    private final String referencedAttribute;
+    private final int dependentColumnId;
+
+    private final int[] referencedColumnIds;
 
     private final int numUniqueDependent;
 
     private final int numUniqueReferenced;
+
+    /**
+     * @return the number of values that sort-merge containment checks touch at most, i.e. the dependent column once per
+     * referenced column plus every referenced column
+     */
+    public long getCost() {
+        return (long) this.numUniqueDependent * this.referencedColumnIds.length + this.numUniqueReferenced;
+    }
 }
@@ -0,0 +1,273 @@
+package de.ddm.structures;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Holds the distinct values of the master's columns as sorted runs of strings until all input files are read, within a
+ * memory budget. Once the runs in memory exceed the budget, the largest ones are spilled into a temporary directory. The
+ * runs are finally encoded through a k-way merge, which numbers the distinct values of all runs in ascending order, so
+ * that no dictionary of all values is ever held in memory.
+ */
+public class ValueRunStore implements Closeable {
+
+	public static final Comparator<String> ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+	private static final int STREAM_BUFFER_SIZE = 1 << 16;	// bytes
+	private static final int VALUE_OVERHEAD = 56;			// The bytes of a value's array slot, String object and character array header
+
+	private final long memoryBudget;
+	private final File spillParent;
+	private Path spillDirectory;
+
+	private final List<String[]> runs = new ArrayList<>();	// null, if the run has been spilled or released
+	private final List<Integer> sizes = new ArrayList<>();
+	private final List<Long> bytes = new ArrayList<>();
+	private long bytesInMemory = 0;
+	private int spilledRuns = 0;
+	private long spilledValues = 0;
+
+	/**
+	 * @param memoryBudget the maximum number of bytes that the store keeps in memory
+	 * @param spillParent the directory in which the store creates its temporary spill directory
+	 */
+	public ValueRunStore(long memoryBudget, File spillParent) {
+		this.memoryBudget = memoryBudget;
+		this.spillParent = spillParent;
+	}
+
+	/**
+	 * @param values the distinct values of a column, which the store sorts in place and takes ownership of
+	 * @return the id of the run
+	 */
+	public int add(String[] values) {
+		Arrays.sort(values, ORDER);
+		long size = 0;
+		for (String value : values)
+			size += estimateBytes(value);
+
+		this.runs.add(values);
+		this.sizes.add(values.length);
+		this.bytes.add(size);
+		this.bytesInMemory += size;
+
+		while (this.bytesInMemory > this.memoryBudget)
+			this.spill(this.largestRunInMemory());
+		return this.runs.size() - 1;
+	}
+
+	private static long estimateBytes(String value) {
+		return VALUE_OVERHEAD + (value == null ? 0 : 2L * value.length());
+	}
+
+	public int numRuns() {
+		return this.runs.size();
+	}
+
+	public int size(int runId) {
+		return this.sizes.get(runId);
+	}
+
+	public long getBytesInMemory() {
+		return this.bytesInMemory;
+	}
+
+	public int getSpilledRuns() {
+		return this.spilledRuns;
+	}
+
+	public long getSpilledValues() {
+		return this.spilledValues;
+	}
+
+	/**
+	 * @return an ascending iterator over the run that reads spilled runs in small blocks
+	 */
+	public Iterator<String> stream(int runId) {
+		String[] run = this.runs.get(runId);
+		if (run != null)
+			return Arrays.asList(run).iterator();
+
+		try {
+			return new SpillFileIterator(new DataInputStream(new BufferedInputStream(Files.newInputStream(this.spillFile(runId)), STREAM_BUFFER_SIZE)), this.size(runId));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Drops a run that is no longer needed, e.g. because it belongs to a column without a header.
+	 */
+	public void release(int runId) {
+		if (this.runs.get(runId) != null) {
+			this.runs.set(runId, null);
+			this.bytesInMemory -= this.bytes.get(runId);
+		} else if (this.spillDirectory != null) {
+			try {
+				Files.deleteIfExists(this.spillFile(runId));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Merges the given runs and writes every value as its rank among the distinct values of all of them into the column of
+	 * the writer that has the same index as its run, so that equal values get equal ids and every column ascends.
+	 *
+	 * @return the number of distinct values of all runs
+	 */
+	public int encode(int[] runIds, ColumnStore.ColumnWriter writer) {
+		PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, runIds.length), (a, b) -> ORDER.compare(a.current, b.current));
+		for (int column = 0; column < runIds.length; column++) {
+			Cursor cursor = new Cursor(column, this.stream(runIds[column]));
+			if (cursor.advance())
+				cursors.add(cursor);
+		}
+
+		int id = -1;
+		String previous = null;
+		while (!cursors.isEmpty()) {
+			Cursor cursor = cursors.poll();
+			if (id < 0 || !Objects.equals(previous, cursor.current)) {
+				id++;
+				previous = cursor.current;
+			}
+			writer.write(cursor.column, id);
+			if (cursor.advance())
+				cursors.add(cursor);
+		}
+		return id + 1;
+	}
+
+	private int largestRunInMemory() {
+		int largest = -1;
+		for (int runId = 0; runId < this.runs.size(); runId++)
+			if (this.runs.get(runId) != null && (largest < 0 || this.bytes.get(runId) > this.bytes.get(largest)))
+				largest = runId;
+		return largest;
+	}
+
+	private Path spillFile(int runId) {
+		return this.spillDirectory.resolve("values_" + runId + ".run");
+	}
+
+	private void spill(int runId) {
+		String[] run = this.runs.get(runId);
+		try {
+			if (this.spillDirectory == null)
+				this.spillDirectory = Files.createTempDirectory(this.spillParent.toPath(), "ddm-values");
+
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.spillFile(runId)), STREAM_BUFFER_SIZE))) {
+				for (String value : run) {
+					if (value == null) {
+						output.writeInt(-1);
+						continue;
+					}
+					byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+					output.writeInt(encoded.length);
+					output.write(encoded);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		this.runs.set(runId, null);
+		this.bytesInMemory -= this.bytes.get(runId);
+		this.spilledRuns++;
+		this.spilledValues += run.length;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.runs.clear();
+		this.sizes.clear();
+		this.bytes.clear();
+		this.bytesInMemory = 0;
+		if (this.spillDirectory == null)
+			return;
+
+		File[] files = this.spillDirectory.toFile().listFiles();
+		if (files != null)
+			for (File file : files)
+				Files.deleteIfExists(file.toPath());
+		Files.deleteIfExists(this.spillDirectory);
+		this.spillDirectory = null;
+	}
+
+	private static class Cursor {
+
+		private final int column;
+		private final Iterator<String> values;
+		private String current;
+
+		private Cursor(int column, Iterator<String> values) {
+			this.column = column;
+			this.values = values;
+		}
+
+		private boolean advance() {
+			if (!this.values.hasNext())
+				return false;
+			this.current = this.values.next();
+			return true;
+		}
+	}
+
+	private static class SpillFileIterator implements Iterator<String> {
+
+		private final DataInputStream input;
+		private int remaining;
+
+		private SpillFileIterator(DataInputStream input, int size) throws IOException {
+			this.input = input;
+			this.remaining = size;
+			if (size == 0)
+				input.close();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.remaining > 0;
+		}
+
+		@Override
+		public String next() {
+			if (this.remaining == 0)
+				throw new NoSuchElementException();
+			try {
+				int length = this.input.readInt();
+				String value = null;
+				if (length >= 0) {
+					byte[] encoded = new byte[length];
+					this.input.readFully(encoded);
+					value = new String(encoded, StandardCharsets.UTF_8);
+				}
+				// The stream is closed as soon as it is exhausted, because merges do not close their inputs.
+				if (--this.remaining == 0)
+					this.input.close();
+				return value;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
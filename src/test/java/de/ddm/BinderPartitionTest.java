@@ -0,0 +1,61 @@
+package de.ddm;
+
+import de.ddm.algorithms.BinderPartition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class BinderPartitionTest {
+
+	@Test
+	public void testIntersectedPartitionsMatchPairwiseChecks() {
+		Random random = new Random(11);
+		List<Set<String>> columns = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			int domain = 1 + random.nextInt(50);
+			Set<String> values = new HashSet<>();
+			for (int j = random.nextInt(domain + 1); j > 0; j--) {
+				int value = random.nextInt(domain + 1);
+				values.add(value == domain ? null : "v" + value);
+			}
+			columns.add(values);
+		}
+
+		for (int numPartitions : new int[]{1, 3, 8}) {
+			BinderPartition[] partitions = new BinderPartition[numPartitions];
+			for (int partition = 0; partition < numPartitions; partition++)
+				partitions[partition] = new BinderPartition();
+			for (int column = 0; column < columns.size(); column++) {
+				List<List<String>> values = new ArrayList<>();
+				for (int partition = 0; partition < numPartitions; partition++)
+					values.add(new ArrayList<>());
+				for (String value : columns.get(column))
+					values.get(BinderPartition.partitionOf(value, numPartitions)).add(value);
+				for (int partition = 0; partition < numPartitions; partition++)
+					partitions[partition].add(column, values.get(partition).toArray(new String[0]));
+			}
+
+			BitSet[] referenced = partitions[0].validate(columns.size());
+			for (int partition = 1; partition < numPartitions; partition++) {
+				BitSet[] survivors = partitions[partition].validate(columns.size());
+				for (int column = 0; column < columns.size(); column++)
+					referenced[column].and(survivors[column]);
+			}
+
+			for (int dependent = 0; dependent < columns.size(); dependent++) {
+				for (int candidate = 0; candidate < columns.size(); candidate++) {
+					boolean expected = dependent != candidate && columns.get(candidate).containsAll(columns.get(dependent));
+					assertEquals(numPartitions + " partitions: " + dependent + " c " + candidate, expected, referenced[dependent].get(candidate));
+				}
+			}
+		}
+		assertEquals(0, BinderPartition.partitionOf(null, 8));
+	}
+}
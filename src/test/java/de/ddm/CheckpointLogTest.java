@@ -0,0 +1,69 @@
+package de.ddm;
+
+import de.ddm.structures.CheckpointLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CheckpointLogTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testProgressSurvivesTornTailAndColumnReordering() throws Exception {
+		File file = new File(this.temporaryFolder.getRoot(), "progress.log");
+		List<String> names = Arrays.asList("a.csv_A", "a.csv_B", "b.csv_C");
+		int[] sizes = {10, 20, 30};
+
+		CheckpointLog checkpointLog = new CheckpointLog(file, true);
+		assertFalse(checkpointLog.restore(names, sizes));
+		checkpointLog.writeDecided(0, new int[]{1, 2}, new long[]{0b10});
+		checkpointLog.close();
+
+		checkpointLog = new CheckpointLog(file, true);
+		checkpointLog.writeDecided(1, new int[]{2}, new long[]{0b1});
+		checkpointLog.close();
+		// A crash in the middle of the last record leaves only part of it behind.
+		try (FileOutputStream out = new FileOutputStream(file, true)) {
+			out.getChannel().truncate(file.length() - 3);
+		}
+
+		// The next run built the same columns, but in a different order.
+		List<String> reordered = Arrays.asList("b.csv_C", "a.csv_A", "a.csv_B");
+		checkpointLog = new CheckpointLog(file, true);
+		assertTrue(checkpointLog.restore(reordered, new int[]{30, 10, 20}));
+		assertEquals(2, checkpointLog.getNumDecided());
+		assertTrue(checkpointLog.isDecided(1, 2));
+		assertTrue(checkpointLog.isDecided(1, 0));
+		assertFalse(checkpointLog.isDecided(2, 0));
+		assertEquals(bits(0), checkpointLog.getIncluded(1));
+		checkpointLog.close();
+
+		checkpointLog = new CheckpointLog(file, true);
+		assertFalse(checkpointLog.restore(reordered, new int[]{30, 10, 21}));
+		assertEquals(0, checkpointLog.getNumDecided());
+		checkpointLog.close();
+
+		checkpointLog = new CheckpointLog(file, false);
+		assertFalse(checkpointLog.restore(names, sizes));
+		checkpointLog.close();
+	}
+
+	private static BitSet bits(int... indexes) {
+		BitSet bits = new BitSet();
+		for (int index : indexes)
+			bits.set(index);
+		return bits;
+	}
+}
@@ -0,0 +1,48 @@
+package de.ddm;
+
+import akka.actor.testkit.typed.javadsl.TestKitJunitResource;
+import akka.actor.testkit.typed.javadsl.TestProbe;
+import akka.actor.typed.ActorRef;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.actors.profiling.ColumnBuilder;
+import de.ddm.actors.profiling.DependencyMiner;
+import de.ddm.actors.profiling.InputReader;
+import de.ddm.singletons.InputConfigurationSingleton;
+import de.ddm.singletons.SystemConfigurationSingleton;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class ColumnBuilderTest {
+
+	@ClassRule
+	public static final TestKitJunitResource testKit = new TestKitJunitResource(SystemConfigurationSingleton.get().toAkkaTestConfig());
+
+	@Test
+	public void testDistinctValuesPerColumn() {
+		TestProbe<InputReader.Message> reader = testKit.createTestProbe();
+		TestProbe<LargeMessageProxy.LargeMessage> miner = testKit.createTestProbe();
+		ActorRef<LargeMessageProxy.Message> builderProxy = testKit.spawn(LargeMessageProxy.create(testKit.<LargeMessageProxy.LargeMessage>createTestProbe().getRef()));
+		ActorRef<LargeMessageProxy.Message> minerProxy = testKit.spawn(LargeMessageProxy.create(miner.getRef()));
+		ActorRef<ColumnBuilder.Message> columnBuilder = testKit.spawn(ColumnBuilder.create(2, new File("test.csv"), InputConfigurationSingleton.get(), reader.getRef(), builderProxy, minerProxy));
+
+		columnBuilder.tell(new ColumnBuilder.BatchMessage(2, Arrays.asList(new String[]{"a", "x"}, new String[]{"b", null}, new String[]{"a", "x"})));
+		assertEquals(1, reader.expectMessageClass(InputReader.ReadBatchMessage.class).getCredits());
+		columnBuilder.tell(new ColumnBuilder.BatchMessage(2, Arrays.asList(new String[]{"c", "x"}, new String[]{"b", "y"})));
+		assertEquals(1, reader.expectMessageClass(InputReader.ReadBatchMessage.class).getCredits());
+		columnBuilder.tell(new ColumnBuilder.BatchMessage(2, Arrays.asList()));
+
+		DependencyMiner.ColumnsMessage columns = miner.expectMessageClass(DependencyMiner.ColumnsMessage.class);
+		assertEquals(2, columns.getId());
+		assertEquals(2, columns.getDistinctValues().size());
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), new HashSet<>(Arrays.asList(columns.getDistinctValues().get(0))));
+		assertEquals(new HashSet<>(Arrays.asList("x", null, "y")), new HashSet<>(Arrays.asList(columns.getDistinctValues().get(1))));
+		reader.expectNoMessage();
+		miner.expectTerminated(columnBuilder);
+	}
+}
@@ -0,0 +1,61 @@
+package de.ddm;
+
+import akka.actor.testkit.typed.javadsl.TestKitJunitResource;
+import akka.actor.testkit.typed.javadsl.TestProbe;
+import akka.actor.typed.ActorRef;
+import de.ddm.actors.Worker;
+import de.ddm.actors.patterns.Reaper;
+import de.ddm.actors.profiling.DependencyMiner;
+import de.ddm.actors.profiling.DependencyWorker;
+import de.ddm.singletons.ReaperSingleton;
+import de.ddm.singletons.SystemConfigurationSingleton;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ColumnCacheTest {
+
+	@ClassRule
+	public static final TestKitJunitResource testKit = new TestKitJunitResource(SystemConfigurationSingleton.get().toAkkaTestConfig());
+
+	@Test
+	public void testLostColumnTransfersAreRequestedAgain() {
+		long columnFetchTimeout = SystemConfigurationSingleton.get().getColumnFetchTimeout();
+		ActorRef<Reaper.Message> reaper = ReaperSingleton.get();
+		try {
+			SystemConfigurationSingleton.get().setColumnFetchTimeout(200);
+			ReaperSingleton.set(testKit.<Reaper.Message>createTestProbe().getRef());
+			TestProbe<DependencyMiner.Message> dependencyMiner = testKit.createTestProbe();
+			TestProbe<DependencyWorker.Message> dependencyWorker = testKit.createTestProbe();
+			ActorRef<Worker.Message> worker = testKit.spawn(Worker.create());
+
+			worker.tell(new Worker.ColumnsRequestMessage(dependencyWorker.getRef(), dependencyMiner.getRef(), 7, new int[]{3}));
+			assertEquals(3, dependencyMiner.expectMessageClass(DependencyMiner.ColumnRequestMessage.class).getColumnId());
+
+			// The first transfer never arrives, so the node asks again, and then again after twice the timeout.
+			assertEquals(3, dependencyMiner.expectMessageClass(DependencyMiner.ColumnRequestMessage.class, Duration.ofSeconds(2)).getColumnId());
+			dependencyMiner.expectNoMessage(Duration.ofMillis(300));
+			assertEquals(3, dependencyMiner.expectMessageClass(DependencyMiner.ColumnRequestMessage.class, Duration.ofSeconds(2)).getColumnId());
+
+			worker.tell(new Worker.ColumnMessage(3, new int[]{1, 4, 9}));
+			DependencyWorker.ColumnsMessage columns = dependencyWorker.expectMessageClass(DependencyWorker.ColumnsMessage.class);
+			assertEquals(7, columns.getTaskId());
+			assertArrayEquals(new int[]{1, 4, 9}, columns.getColumns()[0]);
+			dependencyMiner.expectNoMessage(Duration.ofMillis(1000));
+
+			// A late duplicate of the transfer is only cached, and cached columns need no fetch.
+			worker.tell(new Worker.ColumnMessage(3, new int[]{1, 4, 9}));
+			worker.tell(new Worker.ColumnsRequestMessage(dependencyWorker.getRef(), dependencyMiner.getRef(), 8, new int[]{3}));
+			assertEquals(8, dependencyWorker.expectMessageClass(DependencyWorker.ColumnsMessage.class).getTaskId());
+			dependencyMiner.expectNoMessage();
+			testKit.stop(worker);
+		} finally {
+			SystemConfigurationSingleton.get().setColumnFetchTimeout(columnFetchTimeout);
+			ReaperSingleton.set(reaper);
+		}
+	}
+}
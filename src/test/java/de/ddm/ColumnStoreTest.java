@@ -0,0 +1,57 @@
+package de.ddm;
+
+import de.ddm.structures.ColumnStore;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnStoreTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testSpilledColumnsReadBack() throws Exception {
+		Random random = new Random(3);
+		List<int[]> expected = new ArrayList<>();
+		File spillParent = this.temporaryFolder.newFolder();
+
+		try (ColumnStore store = new ColumnStore(100000, spillParent)) {
+			for (int i = 0; i < 20; i++) {
+				IntOpenHashSet values = new IntOpenHashSet();
+				for (int j = random.nextInt(i % 3 == 0 ? 200000 : 2000); j > 0; j--)
+					values.add(random.nextInt());
+				int[] column = values.toIntArray();
+				expected.add(column.clone());
+				assertEquals(i, store.add(column));
+				Arrays.sort(expected.get(i));
+			}
+			assertTrue(store.getSpilledColumns() > 0);
+			assertEquals(1, spillParent.listFiles().length);
+
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i).length, store.size(i));
+				assertArrayEquals(expected.get(i), store.get(i));
+
+				IntIterator stream = store.stream(i);
+				for (int value : expected.get(i))
+					assertEquals(value, stream.nextInt());
+				assertFalse(stream.hasNext());
+			}
+		}
+		assertEquals(0, spillParent.listFiles().length);
+	}
+}
@@ -0,0 +1,128 @@
+package de.ddm;
+
+import com.opencsv.CSVReader;
+import de.ddm.algorithms.ContainmentCheck;
+import de.ddm.configuration.InputConfiguration;
+import de.ddm.structures.ColumnStore;
+import de.ddm.structures.ValueRunStore;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ContainmentCheckTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private static int[] sortedColumn(IntOpenHashSet values) {
+		int[] column = values.toIntArray();
+		Arrays.sort(column);
+		return column;
+	}
+
+	private static void assertKernelsAgree(List<int[]> columns, List<? extends Set<?>> referenceSets) {
+		for (int dependent = 0; dependent < columns.size(); dependent++) {
+			for (int referenced = 0; referenced < columns.size(); referenced++) {
+				boolean expected = referenceSets.get(referenced).containsAll(referenceSets.get(dependent));
+				String pair = dependent + " c " + referenced;
+
+				assertEquals(pair, expected, ContainmentCheck.HASH.isContained(columns.get(dependent), columns.get(referenced)));
+				assertEquals(pair, expected, ContainmentCheck.SORT_MERGE.isContained(columns.get(dependent), columns.get(referenced)));
+			}
+		}
+	}
+
+	@Test
+	public void testEdgeCases() {
+		int[] empty = new int[0];
+		int[] values = {1, 4, 7};
+
+		for (ContainmentCheck check : ContainmentCheck.values()) {
+			assertTrue(check.isContained(empty, empty));
+			assertTrue(check.isContained(empty, values));
+			assertFalse(check.isContained(values, empty));
+			assertTrue(check.isContained(values, values));
+			assertTrue(check.isContained(new int[]{4}, values));
+			assertFalse(check.isContained(new int[]{5}, values));
+			assertFalse(check.isContained(new int[]{1, 8}, new int[]{1, 4, 7, 9}));
+		}
+	}
+
+	@Test
+	public void testRandomColumns() {
+		Random random = new Random(42);
+		List<int[]> columns = new ArrayList<>();
+		List<Set<Integer>> referenceSets = new ArrayList<>();
+
+		for (int i = 0; i < 40; i++) {
+			int domain = 1 + random.nextInt(200);
+			int size = random.nextInt(domain + 1);
+
+			IntOpenHashSet values = new IntOpenHashSet();
+			Set<Integer> referenceSet = new HashSet<>();
+			for (int j = 0; j < size; j++) {
+				int value = random.nextInt(domain);
+				values.add(value);
+				referenceSet.add(value);
+			}
+			columns.add(sortedColumn(values));
+			referenceSets.add(referenceSet);
+		}
+
+		assertKernelsAgree(columns, referenceSets);
+	}
+
+	@Test
+	public void testTPCHColumns() throws Exception {
+		InputConfiguration inputConfiguration = new InputConfiguration();
+		File[] inputFiles = inputConfiguration.getInputFiles();
+		Assume.assumeTrue("TPCH data not unpacked into " + inputConfiguration.getInputPath(), inputFiles != null && inputFiles.length > 0);
+
+		List<Set<String>> referenceSets = new ArrayList<>();
+		for (File inputFile : inputFiles) {
+			int numColumns = inputConfiguration.getHeader(inputFile).length;
+			List<Set<String>> stringValues = new ArrayList<>(numColumns);
+			for (int column = 0; column < numColumns; column++)
+				stringValues.add(new HashSet<>());
+
+			try (CSVReader reader = inputConfiguration.createCSVReader(inputFile)) {
+				if (inputConfiguration.isFileHasHeader())
+					reader.readNext();
+
+				String[] line;
+				while ((line = reader.readNext()) != null)
+					for (int column = 0; column < numColumns; column++)
+						stringValues.get(column).add(line[column]);
+			}
+			referenceSets.addAll(stringValues);
+		}
+
+		// The columns are encoded like the miner encodes them, i.e. by merging their sorted value runs into the column store.
+		List<int[]> columns = new ArrayList<>();
+		File spillParent = this.temporaryFolder.newFolder();
+		try (ValueRunStore runs = new ValueRunStore(Long.MAX_VALUE, spillParent); ColumnStore columnStore = new ColumnStore(Long.MAX_VALUE, spillParent)) {
+			int[] runIds = new int[referenceSets.size()];
+			int[] sizes = new int[runIds.length];
+			for (int column = 0; column < runIds.length; column++) {
+				runIds[column] = runs.add(referenceSets.get(column).toArray(new String[0]));
+				sizes[column] = runs.size(runIds[column]);
+			}
+			ColumnStore.ColumnWriter writer = columnStore.addColumns(sizes, 0);
+			runs.encode(runIds, writer);
+			writer.close();
+			for (int column = 0; column < runIds.length; column++)
+				columns.add(columnStore.get(column));
+		}
+
+		assertKernelsAgree(columns, referenceSets);
+	}
+}
@@ -0,0 +1,126 @@
+package de.ddm;
+
+import akka.actor.testkit.typed.javadsl.TestKitJunitResource;
+import akka.actor.testkit.typed.javadsl.TestProbe;
+import akka.actor.typed.ActorRef;
+import akka.serialization.Serialization;
+import akka.serialization.Serialization$;
+import akka.serialization.SerializationExtension;
+import akka.serialization.Serializer;
+import akka.serialization.Serializers;
+import de.ddm.actors.Worker;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.actors.patterns.Reaper;
+import de.ddm.actors.profiling.DependencyMiner;
+import de.ddm.actors.profiling.DependencyWorker;
+import de.ddm.configuration.ParserConfiguration;
+import de.ddm.singletons.DomainConfigurationSingleton;
+import de.ddm.singletons.InputConfigurationSingleton;
+import de.ddm.singletons.ReaperSingleton;
+import de.ddm.singletons.SystemConfigurationSingleton;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class DistributedReadingTest {
+
+	@ClassRule
+	public static final TestKitJunitResource testKit = new TestKitJunitResource(SystemConfigurationSingleton.get().toAkkaTestConfig());
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private void register(ActorRef<DependencyMiner.Message> dependencyMiner, TestProbe<Worker.Message> node, int numDependencyWorkers) {
+		TestProbe<LargeMessageProxy.Message> largeMessageProxy = testKit.createTestProbe();
+		for (int i = 0; i < numDependencyWorkers; i++)
+			dependencyMiner.tell(new DependencyMiner.RegistrationMessage(testKit.<DependencyWorker.Message>createTestProbe().getRef(), node.getRef(), largeMessageProxy.getRef()));
+	}
+
+	@Test
+	public void testFilesOfDeadNodesAreReadByOthers() throws Exception {
+		File inputDirectory = this.temporaryFolder.newFolder("input");
+		Files.write(new File(inputDirectory, "tpch_a.csv").toPath(), "X;Y\n1;a\n2;b\n".getBytes(StandardCharsets.UTF_8));
+		Files.write(new File(inputDirectory, "tpch_b.csv").toPath(), "Z\n1\n2\n3\n".getBytes(StandardCharsets.UTF_8));
+
+		String inputPath = InputConfigurationSingleton.get().getInputPath();
+		boolean distributedReading = SystemConfigurationSingleton.get().isDistributedReading();
+		try {
+			InputConfigurationSingleton.get().setInputPath(inputDirectory.getPath());
+			SystemConfigurationSingleton.get().setDistributedReading(true);
+			ActorRef<DependencyMiner.Message> dependencyMiner = testKit.spawn(DependencyMiner.create());
+
+			// Node A reads one file with its only slot; node B reads the other one and has a second slot left idle.
+			TestProbe<Worker.Message> nodeA = testKit.createTestProbe();
+			TestProbe<Worker.Message> nodeB = testKit.createTestProbe();
+			this.register(dependencyMiner, nodeA, 1);
+			this.register(dependencyMiner, nodeB, 2);
+			dependencyMiner.tell(new DependencyMiner.StartMessage());
+
+			int lostFile = nodeA.expectMessageClass(Worker.ReadFileMessage.class).getFileId();
+			int otherFile = nodeB.expectMessageClass(Worker.ReadFileMessage.class).getFileId();
+			assertEquals(1, lostFile + otherFile);
+			nodeB.expectNoMessage();
+
+			// Without node A, its file goes to the idle slot of node B.
+			nodeA.stop();
+			assertEquals(lostFile, nodeB.expectMessageClass(Worker.ReadFileMessage.class).getFileId());
+			nodeB.expectNoMessage();
+			testKit.stop(dependencyMiner);
+		} finally {
+			InputConfigurationSingleton.get().setInputPath(inputPath);
+			SystemConfigurationSingleton.get().setDistributedReading(distributedReading);
+			new File(DomainConfigurationSingleton.get().getResultCollectorOutputFileName()).delete();
+		}
+	}
+
+	@Test
+	public void testNodesParseFilesWithTheShippedSettings() throws Exception {
+		// The file does not parse with the default settings of this JVM, but with the ones that the assignment carries.
+		File inputFile = this.temporaryFolder.newFile("tpch_latin.csv");
+		Files.write(inputFile.toPath(), "K,V\n1,gr\u00fc\u00df\n2,x;y\n1,x;y\n".getBytes(StandardCharsets.ISO_8859_1));
+		ParserConfiguration parserConfiguration = new ParserConfiguration();
+		parserConfiguration.setCharset(StandardCharsets.ISO_8859_1);
+		parserConfiguration.setValueSeparator(',');
+
+		ActorRef<Reaper.Message> reaper = ReaperSingleton.get();
+		try {
+			ReaperSingleton.set(testKit.<Reaper.Message>createTestProbe().getRef());
+			TestProbe<DependencyMiner.Message> dependencyMiner = testKit.createTestProbe();
+			TestProbe<LargeMessageProxy.Message> dependencyMinerProxy = testKit.createTestProbe();
+			ActorRef<Worker.Message> worker = testKit.spawn(Worker.create());
+
+			// The assignment goes through the serializer that remoting uses, as it does on its way to a remote node.
+			Worker.ReadFileMessage message = new Worker.ReadFileMessage(dependencyMiner.getRef(), dependencyMinerProxy.getRef(), 5, inputFile.getPath(), parserConfiguration);
+			Serialization serialization = SerializationExtension.get(testKit.system());
+			Serializer serializer = serialization.findSerializerFor(message);
+			byte[] bytes = Serialization$.MODULE$.withTransportInformation(serialization.system(), () -> serializer.toBinary(message));
+			worker.tell((Worker.ReadFileMessage) serialization.deserialize(bytes, serializer.identifier(), Serializers.manifestFor(serializer, message)).get());
+
+			DependencyMiner.HeaderMessage header = dependencyMiner.expectMessageClass(DependencyMiner.HeaderMessage.class);
+			assertEquals(5, header.getId());
+			assertArrayEquals(new String[]{"K", "V"}, header.getHeader());
+
+			LargeMessageProxy.HandOverMessage handOver = dependencyMinerProxy.expectMessageClass(LargeMessageProxy.HandOverMessage.class);
+			DependencyMiner.ColumnsMessage columns = (DependencyMiner.ColumnsMessage) handOver.getMessage();
+			assertEquals(5, columns.getId());
+			assertEquals(new HashSet<>(Arrays.asList("1", "2")), new HashSet<>(Arrays.asList(columns.getDistinctValues().get(0))));
+			assertEquals(new HashSet<>(Arrays.asList("gr\u00fc\u00df", "x;y")), new HashSet<>(Arrays.asList(columns.getDistinctValues().get(1))));
+
+			// The node used the settings for this file only.
+			assertEquals(';', InputConfigurationSingleton.get().getValueSeparator());
+			testKit.stop(worker);
+		} finally {
+			ReaperSingleton.set(reaper);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package de.ddm;
+
+import de.ddm.configuration.InputConfiguration;
+import de.ddm.structures.InputFileCache;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InputFileCacheTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testEntriesRoundTripAndExpire() throws Exception {
+		File inputFile = this.temporaryFolder.newFile("tpch_test.csv");
+		Files.write(inputFile.toPath(), "A;B\n1;x\n2;\n".getBytes(StandardCharsets.UTF_8));
+		File directory = new File(this.temporaryFolder.getRoot(), "cache");
+		InputConfiguration inputConfiguration = new InputConfiguration();
+		InputFileCache inputFileCache = new InputFileCache(directory, inputConfiguration);
+
+		assertNull(inputFileCache.load(inputFile));
+
+		List<String[]> distinctValues = new ArrayList<>();
+		distinctValues.add(new String[]{"2", "1"});
+		distinctValues.add(new String[]{"x", null, "Grüße"});
+		inputFileCache.store(inputFile, new String[]{"A", "B"}, 2, distinctValues);
+
+		InputFileCache.CachedFile cachedFile = inputFileCache.load(inputFile);
+		assertArrayEquals(new String[]{"A", "B"}, cachedFile.getHeader());
+		assertEquals(2, cachedFile.getNumRows());
+		assertArrayEquals(new String[]{"1", "2"}, cachedFile.getDistinctValues().get(0));
+		assertArrayEquals(new String[]{null, "Grüße", "x"}, cachedFile.getDistinctValues().get(1));
+		assertFalse(cachedFile.getStatistics()[0].isHasNull());
+		assertTrue(cachedFile.getStatistics()[1].isHasNull());
+		assertEquals(1, cachedFile.getStatistics()[1].getMinLength());
+		assertEquals(5, cachedFile.getStatistics()[1].getMaxLength());
+
+		InputConfiguration otherSettings = new InputConfiguration();
+		otherSettings.setValueSeparator(',');
+		assertNull(new InputFileCache(directory, otherSettings).load(inputFile));
+
+		assertTrue(inputFile.setLastModified(inputFile.lastModified() - 60000));
+		assertNull(inputFileCache.load(inputFile));
+	}
+
+	@Test
+	public void testEntriesTooLargeToMapAreNotStored() throws Exception {
+		File inputFile = this.temporaryFolder.newFile("tpch_large.csv");
+		Files.write(inputFile.toPath(), "A\n1\n".getBytes(StandardCharsets.UTF_8));
+		File directory = new File(this.temporaryFolder.getRoot(), "cache");
+		InputFileCache inputFileCache = new InputFileCache(directory, new InputConfiguration());
+
+		List<String[]> distinctValues = new ArrayList<>();
+		distinctValues.add(new String[]{"1"});
+		inputFileCache.store(inputFile, new String[]{"A"}, 1, distinctValues);
+		assertTrue(inputFile.setLastModified(inputFile.lastModified() - 60000));
+
+		int maxEntrySize = InputFileCache.MAX_ENTRY_SIZE;
+		InputFileCache.MAX_ENTRY_SIZE = 64;
+		try {
+			distinctValues.set(0, new String[]{"a value that does not fit into the entry size limit of this test"});
+			inputFileCache.store(inputFile, new String[]{"A"}, 1, distinctValues);
+			fail();
+		} catch (IOException e) {
+			// Expected, because load could not map the entry
+		} finally {
+			InputFileCache.MAX_ENTRY_SIZE = maxEntrySize;
+		}
+		assertNull(inputFileCache.load(inputFile));
+		assertEquals(0, directory.listFiles().length);
+	}
+}
@@ -0,0 +1,58 @@
+package de.ddm;
+
+import akka.actor.testkit.typed.javadsl.TestKitJunitResource;
+import akka.actor.testkit.typed.javadsl.TestProbe;
+import akka.actor.typed.ActorRef;
+import de.ddm.actors.profiling.ColumnBuilder;
+import de.ddm.actors.profiling.InputReader;
+import de.ddm.singletons.DomainConfigurationSingleton;
+import de.ddm.singletons.InputConfigurationSingleton;
+import de.ddm.singletons.SystemConfigurationSingleton;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+public class InputReaderTest {
+
+	@ClassRule
+	public static final TestKitJunitResource testKit = new TestKitJunitResource(SystemConfigurationSingleton.get().toAkkaTestConfig());
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testReadAheadIsBoundedByCredits() throws Exception {
+		int batchSize = DomainConfigurationSingleton.get().getInputReaderBatchSize();
+		File file = this.temporaryFolder.newFile();
+		try (BufferedWriter writer = Files.newBufferedWriter(file.toPath())) {
+			writer.write("A;B\n");
+			for (int i = 0; i < 2 * batchSize + 5; i++)
+				writer.write(i + ";" + (i % 7) + "\n");
+		}
+
+		TestProbe<ColumnBuilder.Message> columnBuilder = testKit.createTestProbe();
+		ActorRef<InputReader.Message> reader = testKit.spawn(InputReader.create(3, file, InputConfigurationSingleton.get()));
+
+		reader.tell(new InputReader.ReadBatchMessage(columnBuilder.getRef(), 2));
+		assertEquals(batchSize, columnBuilder.expectMessageClass(ColumnBuilder.BatchMessage.class).getBatch().size());
+		assertEquals(batchSize, columnBuilder.expectMessageClass(ColumnBuilder.BatchMessage.class).getBatch().size());
+		columnBuilder.expectNoMessage();
+
+		reader.tell(new InputReader.ReadBatchMessage(columnBuilder.getRef(), 3));
+		ColumnBuilder.BatchMessage lastBatch = columnBuilder.expectMessageClass(ColumnBuilder.BatchMessage.class);
+		assertEquals(3, lastBatch.getId());
+		assertEquals(5, lastBatch.getBatch().size());
+		assertEquals(0, columnBuilder.expectMessageClass(ColumnBuilder.BatchMessage.class).getBatch().size());
+		columnBuilder.expectNoMessage();
+
+		// With the file done, the reader stops and closes it.
+		columnBuilder.expectTerminated(reader);
+	}
+}
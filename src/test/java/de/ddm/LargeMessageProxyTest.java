@@ -4,6 +4,7 @@ import akka.actor.testkit.typed.javadsl.TestKitJunitResource;
 import akka.actor.testkit.typed.javadsl.TestProbe;
 import akka.actor.typed.ActorRef;
 import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.serialization.CompressionCodec;
 import de.ddm.singletons.SystemConfigurationSingleton;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -13,6 +14,8 @@ import org.junit.Test;
 
 import java.util.Objects;
 
+import static org.junit.Assert.assertSame;
+
 public class LargeMessageProxyTest {
 
 	@ClassRule
@@ -72,4 +75,61 @@ public class LargeMessageProxyTest {
 		probe.expectMessage(message);
 		probe.expectNoMessage();
 	}
+
+	@Test
+	public void testCompressedLargeMessageSending() {
+		int defaultMessageSize = LargeMessageProxy.MAX_MESSAGE_SIZE;
+		CompressionCodec defaultCodec = LargeMessageProxy.COMPRESSION_CODEC;
+		boolean defaultAdaptiveCompression = SystemConfigurationSingleton.get().isAdaptiveCompression();
+		try {
+			LargeMessageProxy.MAX_MESSAGE_SIZE = 1000;
+			SystemConfigurationSingleton.get().setAdaptiveCompression(false);
+
+			StringBuilder content = new StringBuilder();
+			for (int i = 0; i < 5000; i++)
+				content.append("tpch_lineitem.csv_L_COMMENT ").append(i % 100).append(';');
+			LargeMessageProxy.LargeMessage message = new MyLargeMessage(content.toString());
+
+			for (CompressionCodec codec : CompressionCodec.values()) {
+				LargeMessageProxy.COMPRESSION_CODEC = codec;
+
+				TestProbe<LargeMessageProxy.LargeMessage> probe = testKit.createTestProbe();
+
+				ActorRef<LargeMessageProxy.Message> senderLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "compressing_sender_" + codec);
+				ActorRef<LargeMessageProxy.Message> receiverLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "compressing_receiver_" + codec);
+
+				senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(message, receiverLargeMessageProxy));
+
+				probe.expectMessage(message);
+				probe.expectNoMessage();
+			}
+		} finally {
+			LargeMessageProxy.MAX_MESSAGE_SIZE = defaultMessageSize;
+			LargeMessageProxy.COMPRESSION_CODEC = defaultCodec;
+			SystemConfigurationSingleton.get().setAdaptiveCompression(defaultAdaptiveCompression);
+		}
+	}
+
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class MyImmutableLargeMessage implements LargeMessageProxy.ImmutableLargeMessage {
+		private static final long serialVersionUID = 1581924734012994517L;
+
+		private int[] values;
+	}
+
+	@Test
+	public void testLocalHandOver() {
+		TestProbe<LargeMessageProxy.LargeMessage> probe = testKit.createTestProbe();
+
+		ActorRef<LargeMessageProxy.Message> senderLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "handing_sender_" + LargeMessageProxy.DEFAULT_NAME);
+		ActorRef<LargeMessageProxy.Message> receiverLargeMessageProxy = testKit.spawn(LargeMessageProxy.create(probe.getRef()), "handing_receiver_" + LargeMessageProxy.DEFAULT_NAME);
+
+		LargeMessageProxy.LargeMessage message = new MyImmutableLargeMessage(new int[]{1, 2, 3});
+
+		senderLargeMessageProxy.tell(new LargeMessageProxy.SendMessage(message, receiverLargeMessageProxy));
+
+		assertSame(message, probe.receiveMessage());
+		probe.expectNoMessage();
+	}
 }
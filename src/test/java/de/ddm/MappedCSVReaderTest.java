@@ -0,0 +1,152 @@
+package de.ddm;
+
+import com.opencsv.CSVReader;
+import de.ddm.configuration.InputConfiguration;
+import de.ddm.structures.MappedCSVReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MappedCSVReaderTest {
+
+	private static final String[] FRAGMENTS = {"a", "bc", " ", ";", ";", "\"", "\"", "\\", "\n", "\r\n", "\r", "ü", "\uD83D\uDE00", ","};
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File write(String content, Charset charset) throws IOException {
+		File file = this.temporaryFolder.newFile();
+		Files.write(file.toPath(), content.getBytes(charset));
+		return file;
+	}
+
+	private static List<String[]> readWithOpenCsv(File file, InputConfiguration inputConfiguration) throws Exception {
+		List<String[]> rows = new ArrayList<>();
+		try (CSVReader reader = inputConfiguration.createCSVReader(file)) {
+			String[] row;
+			while ((row = reader.readNext()) != null)
+				rows.add(row);
+		}
+		return rows;
+	}
+
+	private static List<String[]> readMapped(File file, InputConfiguration inputConfiguration, int chunkSize, int parallelism) throws Exception {
+		List<String[]> rows = new ArrayList<>();
+		try (MappedCSVReader reader = inputConfiguration.createMappedCSVReader(file, chunkSize, parallelism)) {
+			String[] row;
+			while ((row = reader.readNext()) != null)
+				rows.add(row);
+		}
+		return rows;
+	}
+
+	private static void assertSameRows(String context, List<String[]> expected, List<String[]> actual) {
+		assertEquals(context, expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++)
+			assertEquals(context + " row " + i, Arrays.asList(expected.get(i)), Arrays.asList(actual.get(i)));
+	}
+
+	private void assertAgreesWithOpenCsv(String content, InputConfiguration inputConfiguration, int chunkSize, int parallelism) throws Exception {
+		File file = this.write(content, inputConfiguration.getCharset());
+		String context = "'" + content.replace("\n", "\\n").replace("\r", "\\r") + "'";
+
+		List<String[]> expected;
+		try {
+			expected = readWithOpenCsv(file, inputConfiguration);
+		} catch (IOException e) {
+			boolean failed = false;
+			try {
+				readMapped(file, inputConfiguration, chunkSize, parallelism);
+			} catch (IOException expectedFailure) {
+				failed = true;
+			}
+			assertTrue(context + " should be rejected", failed);
+			return;
+		}
+		assertSameRows(context, expected, readMapped(file, inputConfiguration, chunkSize, parallelism));
+	}
+
+	@Test
+	public void testQuotingAndNulls() throws Exception {
+		InputConfiguration inputConfiguration = new InputConfiguration();
+		String content = "a;;\"\";\"x;y\"\n" +
+				"\"multi\nline\";\"say \"\"hi\"\"\";es\\\"caped\n" +
+				"\r\n" +
+				"ab\"c\"d;\"\"\"\";last";
+
+		assertAgreesWithOpenCsv(content, inputConfiguration, 1 << 20, 1);
+		assertAgreesWithOpenCsv(content, inputConfiguration, 3, 4);
+
+		List<String[]> rows = readMapped(this.write(content, StandardCharsets.UTF_8), inputConfiguration, 3, 4);
+		assertEquals(Arrays.asList("a", null, "", "x;y"), Arrays.asList(rows.get(0)));
+		assertEquals(Arrays.asList("multi\nline", "say \"hi\"", "es\"caped"), Arrays.asList(rows.get(1)));
+		assertEquals(Arrays.asList((String) null), Arrays.asList(rows.get(2)));
+	}
+
+	@Test
+	public void testRandomInputsAgreeWithOpenCsv() throws Exception {
+		Random random = new Random(7);
+		for (boolean strictQuotes : new boolean[]{false, true}) {
+			for (boolean ignoreLeadingWhitespace : new boolean[]{false, true}) {
+				InputConfiguration inputConfiguration = new InputConfiguration();
+				inputConfiguration.setValueStrictQuotes(strictQuotes);
+				inputConfiguration.setValueIgnoreLeadingWhitespace(ignoreLeadingWhitespace);
+
+				for (int i = 0; i < 300; i++) {
+					StringBuilder content = new StringBuilder();
+					int length = random.nextInt(60);
+					for (int j = 0; j < length; j++)
+						content.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+					assertAgreesWithOpenCsv(content.toString(), inputConfiguration, 1 + random.nextInt(16), 1 + random.nextInt(4));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSingleByteCharsetAndFallback() throws Exception {
+		InputConfiguration inputConfiguration = new InputConfiguration();
+		inputConfiguration.setCharset(StandardCharsets.ISO_8859_1);
+		inputConfiguration.setValueSeparator(',');
+		assertTrue(MappedCSVReader.supports(inputConfiguration));
+		assertAgreesWithOpenCsv("\u00e4\u00f6\u00fc,\"x,y\"\n\u00df,", inputConfiguration, 2, 3);
+
+		inputConfiguration.setCharset(StandardCharsets.UTF_16);
+		assertFalse(MappedCSVReader.supports(inputConfiguration));
+		assertAgreesWithOpenCsv("a,b\n\"c\nd\",e", inputConfiguration, 2, 3);
+	}
+
+	@Test
+	public void testParallelChunksAgreeWithOpenCsv() throws Exception {
+		File file = this.temporaryFolder.newFile();
+		Random random = new Random(0);
+		try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			for (int i = 0; i < 20000; i++) {
+				writer.write(i + ";" + random.nextInt(200000) + ";" + random.nextInt(10000) + ";" + (1 + random.nextInt(50)) + ";"
+						+ (random.nextInt(10000000) / 100.0) + ";\"" + (random.nextBoolean() ? "N" : "R") + "\";1996-0" + (1 + random.nextInt(9)) + "-1"
+						+ random.nextInt(10) + ";\"TAKE BACK RETURN; " + Long.toString(random.nextLong(), 36) + "\";carefully final deposits"
+						+ (random.nextInt(4) == 0 ? "" : " wake quickly") + "\n");
+			}
+		}
+		InputConfiguration inputConfiguration = new InputConfiguration();
+
+		List<String[]> expected = readWithOpenCsv(file, inputConfiguration);
+		for (int parallelism : new int[]{1, 2, 4, 8})
+			assertSameRows("parallelism " + parallelism, expected, readMapped(file, inputConfiguration, 1 << 16, parallelism));
+	}
+}
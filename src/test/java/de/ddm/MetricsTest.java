@@ -0,0 +1,93 @@
+package de.ddm;
+
+import akka.actor.testkit.typed.javadsl.ActorTestKit;
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.MailboxSelector;
+import akka.actor.typed.javadsl.Behaviors;
+import com.typesafe.config.ConfigFactory;
+import de.ddm.metrics.Metrics;
+import de.ddm.singletons.MetricsSingleton;
+import de.ddm.singletons.SystemConfigurationSingleton;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+	@Test
+	public void testMetricsAreReadableOverJmx() throws Exception {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		Metrics metrics = new Metrics(server);
+		Metrics.Group group = metrics.group("InputReader", "tpch_a.csv");
+		assertTrue(group == metrics.group("InputReader", "tpch_a.csv"));
+
+		metrics.tick();
+		group.meter("rows").mark(500);
+		Thread.sleep(50);
+		metrics.tick();
+		group.gauge("depth").set(3);
+		for (int value = 1; value <= 100; value++)
+			group.histogram("latencyMicros").record(value);
+
+		ObjectName name = new ObjectName(Metrics.DOMAIN + ":type=InputReader,name=tpch_a.csv");
+		assertEquals(500L, server.getAttribute(name, "rows"));
+		double rate = (Double) server.getAttribute(name, "rowsPerSecond");
+		assertTrue(rate > 0 && rate <= 500 / 0.05);
+		assertEquals(3L, server.getAttribute(name, "depth"));
+		assertEquals(100L, server.getAttribute(name, "latencyMicrosCount"));
+		assertEquals(50.5, (Double) server.getAttribute(name, "latencyMicrosMean"), 1e-9);
+		// Percentiles are the upper bounds of power-of-two buckets, capped at the maximum.
+		assertEquals(63L, server.getAttribute(name, "latencyMicrosP50"));
+		assertEquals(100L, server.getAttribute(name, "latencyMicrosP99"));
+		assertEquals(100L, server.getAttribute(name, "latencyMicrosMax"));
+		assertEquals(group.values().size(), server.getMBeanInfo(name).getAttributes().length);
+
+		assertTrue(group.hasChanged());
+		assertTrue(!group.hasChanged());
+		group.meter("rows").mark(1);
+		assertTrue(group.hasChanged());
+
+		// Names with characters that JMX reserves are quoted.
+		metrics.group("DependencyWorker", "akka://ddm@host:7879/user/worker/dependencyWorker_0").meter("tasks").mark(1);
+		assertEquals(1, server.queryNames(new ObjectName(Metrics.DOMAIN + ":type=DependencyWorker,*"), null).size());
+
+		// Removed groups leave both the registry and JMX.
+		metrics.remove("InputReader", "tpch_a.csv");
+		assertTrue(!server.isRegistered(name));
+		assertEquals(1, metrics.getGroups().size());
+		assertTrue(group != metrics.group("InputReader", "tpch_a.csv"));
+	}
+
+	@Test
+	public void testInstrumentedMailboxPublishesItsDepth() throws Exception {
+		ActorTestKit testKit = ActorTestKit.create(this.getClass().getSimpleName(),
+				ConfigFactory.parseString("akka.remote.artery.canonical.port = 0").withFallback(SystemConfigurationSingleton.get().toAkkaTestConfig()));
+		try {
+			CountDownLatch blocked = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			ActorRef<String> actor = testKit.spawn(Behaviors.receiveMessage(message -> {
+				blocked.countDown();
+				release.await();
+				return Behaviors.same();
+			}), "blocked", MailboxSelector.fromConfig("akka.instrumented-mailbox"));
+
+			for (int i = 0; i < 5; i++)
+				actor.tell("message " + i);
+			assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+			Metrics.Group group = MetricsSingleton.get().group("Mailbox", actor.path().toStringWithoutAddress());
+			assertEquals(4L, group.values().get("depth"));
+			assertEquals(5L, group.values().get("messages"));
+			release.countDown();
+		} finally {
+			testKit.shutdownTestKit();
+		}
+	}
+}
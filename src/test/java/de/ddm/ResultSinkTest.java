@@ -0,0 +1,66 @@
+package de.ddm;
+
+import de.ddm.configuration.SystemConfiguration;
+import de.ddm.structures.InclusionDependency;
+import de.ddm.structures.ResultSink;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResultSinkTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testFormatsRoundTripInOrder() throws Exception {
+		List<InclusionDependency> inds = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+			inds.add(new InclusionDependency(new File("tpch_" + (i % 7) + ".csv"), new String[]{"A" + (i % 20)},
+					new File("tpch_" + (i % 5) + ".csv"), new String[]{"B\"" + (i % 3)}));
+		List<String> expected = inds.stream().map(InclusionDependency::toString).collect(Collectors.toList());
+
+		File text = this.write(SystemConfiguration.ResultFormat.TEXT, inds);
+		assertEquals("results.txt", text.getName());
+		assertEquals(expected, Files.readAllLines(text.toPath(), StandardCharsets.UTF_8));
+
+		File jsonLines = this.write(SystemConfiguration.ResultFormat.JSON_LINES, inds);
+		List<String> lines = Files.readAllLines(jsonLines.toPath(), StandardCharsets.UTF_8);
+		assertEquals(inds.size(), lines.size());
+		assertEquals("{\"dependentTable\":\"tpch_1\",\"dependentAttributes\":[\"A1\"],\"referencedTable\":\"tpch_1\",\"referencedAttributes\":[\"B\\\"1\"]}", lines.get(1));
+
+		File binary = this.write(SystemConfiguration.ResultFormat.BINARY, inds);
+		assertEquals(expected, ResultSink.BinaryEncoder.read(binary).stream().map(InclusionDependency::toString).collect(Collectors.toList()));
+		// Every IND refers to attribute lists that the stream defines only once.
+		assertTrue(binary.length() < text.length() / 4);
+	}
+
+	private File write(SystemConfiguration.ResultFormat format, List<InclusionDependency> inds) throws Exception {
+		ResultSink.Encoder encoder = ResultSink.createEncoder(format);
+		File file = ResultSink.resultFile(new File(this.temporaryFolder.getRoot(), "results.txt").getPath(), encoder);
+		// Small batches and a short queue make the collector hand over many batches and wait for the writer thread.
+		ResultSink sink = new ResultSink(file, encoder, 64, 2);
+		for (int i = 0; i < inds.size(); i += 10) {
+			sink.add(inds.subList(i, i + 10));
+			if (i % 100 == 0)
+				sink.flush();
+		}
+		sink.add(Collections.emptyList());
+		sink.close();
+		sink.close();
+		sink.flush();
+		assertEquals(inds.size(), sink.getNumResults());
+		return file;
+	}
+}
@@ -0,0 +1,157 @@
+package de.ddm;
+
+import akka.actor.testkit.typed.javadsl.TestKitJunitResource;
+import akka.actor.testkit.typed.javadsl.TestProbe;
+import akka.serialization.Serialization;
+import akka.serialization.Serialization$;
+import akka.serialization.SerializationExtension;
+import akka.serialization.Serializer;
+import akka.serialization.Serializers;
+import de.ddm.actors.Worker;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.actors.profiling.ColumnBuilder;
+import de.ddm.actors.profiling.DependencyMiner;
+import de.ddm.actors.profiling.DependencyWorker;
+import de.ddm.configuration.InputConfiguration;
+import de.ddm.configuration.ParserConfiguration;
+import de.ddm.serialization.HotPathSerializer;
+import de.ddm.singletons.SystemConfigurationSingleton;
+import de.ddm.structures.Task;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the hot-path messages survive the HotPathSerializer and that the file assignments survive the jackson-cbor
+ * binding that all other AkkaSerializables use. The SerializationBenchmark of the benchmark profile compares their speed.
+ */
+public class SerializationTest {
+
+	@ClassRule
+	public static final TestKitJunitResource testKit = new TestKitJunitResource(SystemConfigurationSingleton.get().toAkkaTestConfig());
+
+	private static final int JACKSON_CBOR_ID = 33;
+
+	private static Serialization serialization() {
+		return SerializationExtension.get(testKit.system());
+	}
+
+	private static Object roundTrip(Object message) throws Exception {
+		Serializer serializer = serialization().findSerializerFor(message);
+		assertTrue(serializer instanceof HotPathSerializer);
+
+		byte[] bytes = serializer.toBinary(message);
+		assertEquals(((HotPathSerializer) serializer).size(message), bytes.length);
+		return serialization().deserialize(bytes, serializer.identifier(), Serializers.manifestFor(serializer, message)).get();
+	}
+
+	private static int[] createColumn(Random random, int size) {
+		int[] column = new int[size];
+		int value = 0;
+		for (int i = 0; i < size; i++) {
+			value += 1 + random.nextInt(8);
+			column[i] = value;
+		}
+		return column;
+	}
+
+	@Test
+	public void testRoundTrips() throws Exception {
+		TestProbe<DependencyMiner.Message> miner = testKit.createTestProbe();
+		TestProbe<DependencyWorker.Message> worker = testKit.createTestProbe();
+
+		List<String[]> batch = new ArrayList<>();
+		batch.add(new String[]{"1", "", null, "Grüße", "😀"});
+		batch.add(new String[0]);
+		ColumnBuilder.BatchMessage batchMessage = (ColumnBuilder.BatchMessage) roundTrip(new ColumnBuilder.BatchMessage(7, batch));
+		assertEquals(7, batchMessage.getId());
+		assertEquals(batch.size(), batchMessage.getBatch().size());
+		for (int i = 0; i < batch.size(); i++)
+			assertArrayEquals(batch.get(i), batchMessage.getBatch().get(i));
+
+		DependencyMiner.ColumnsMessage columnsMessage = (DependencyMiner.ColumnsMessage) roundTrip(new DependencyMiner.ColumnsMessage(3, batch));
+		assertEquals(3, columnsMessage.getId());
+		assertEquals(batch.size(), columnsMessage.getDistinctValues().size());
+		for (int i = 0; i < batch.size(); i++)
+			assertArrayEquals(batch.get(i), columnsMessage.getDistinctValues().get(i));
+
+		DependencyWorker.PartitionMessage partitionMessage = (DependencyWorker.PartitionMessage) roundTrip(new DependencyWorker.PartitionMessage(new int[]{9, 4}, batch));
+		assertArrayEquals(new int[]{9, 4}, partitionMessage.getColumnIds());
+		for (int i = 0; i < batch.size(); i++)
+			assertArrayEquals(batch.get(i), partitionMessage.getValues().get(i));
+
+		int[] referencedColumnIds = {3, 1, Integer.MAX_VALUE, Integer.MIN_VALUE, 0, -5};
+		DependencyWorker.TaskMessage taskMessage = (DependencyWorker.TaskMessage) roundTrip(new DependencyWorker.TaskMessage(miner.getRef(), new Task(41, 2, referencedColumnIds, 300, 70000)));
+		assertEquals(41, taskMessage.getTask().getId());
+		assertEquals(miner.getRef(), taskMessage.getDependencyMiner());
+		assertEquals(2, taskMessage.getTask().getDependentColumnId());
+		assertArrayEquals(referencedColumnIds, taskMessage.getTask().getReferencedColumnIds());
+		assertEquals(300, taskMessage.getTask().getNumUniqueDependent());
+		assertEquals(70000, taskMessage.getTask().getNumUniqueReferenced());
+
+		long[] results = {-1L, 0L, 1L << 63};
+		DependencyMiner.CompletionMessage completionMessage = (DependencyMiner.CompletionMessage) roundTrip(new DependencyMiner.CompletionMessage(worker.getRef(), 41, 2, referencedColumnIds, results, 1234567890123L));
+		assertEquals(41, completionMessage.getTaskId());
+		assertEquals(worker.getRef(), completionMessage.getDependencyWorker());
+		assertEquals(2, completionMessage.getDependentColumnId());
+		assertArrayEquals(referencedColumnIds, completionMessage.getReferencedColumnIds());
+		assertArrayEquals(results, completionMessage.getResults());
+		assertEquals(1234567890123L, completionMessage.getCheckNanos());
+
+		int[] column = createColumn(new Random(1), 1000);
+		Worker.ColumnMessage columnMessage = (Worker.ColumnMessage) roundTrip(new Worker.ColumnMessage(42, column));
+		assertEquals(42, columnMessage.getColumnId());
+		assertArrayEquals(column, columnMessage.getColumn());
+
+		byte[] bytes = {0, 1, 2, 3, 4, 5, 6, 7};
+		LargeMessageProxy.BytesMessage bytesMessage = (LargeMessageProxy.BytesMessage) roundTrip(new LargeMessageProxy.BytesMessage(bytes, 2, 4, 100, 5, 6));
+		assertArrayEquals(new byte[]{2, 3, 4, 5}, bytesMessage.getBytes());
+		assertEquals(0, bytesMessage.getBytesOffset());
+		assertEquals(4, bytesMessage.getLength());
+		assertEquals(100, bytesMessage.getOffset());
+		assertEquals(5, bytesMessage.getSenderTransmissionKey());
+		assertEquals(6, bytesMessage.getReceiverTransmissionKey());
+	}
+
+	@Test
+	public void testReadFileMessageWithCbor() throws Exception {
+		// The file assignments of distributed reading stay on jackson-cbor and carry only the master's parser settings.
+		TestProbe<DependencyMiner.Message> miner = testKit.createTestProbe();
+		TestProbe<LargeMessageProxy.Message> minerProxy = testKit.createTestProbe();
+		InputConfiguration inputConfiguration = new InputConfiguration();
+		inputConfiguration.setCharset(StandardCharsets.ISO_8859_1);
+		inputConfiguration.setValueSeparator(',');
+		inputConfiguration.setInputCachePath("cache");
+		ParserConfiguration parserConfiguration = new ParserConfiguration(inputConfiguration);
+
+		Serializer cbor = serialization().findSerializerFor(new Worker.ReadFileMessage());
+		assertEquals(JACKSON_CBOR_ID, cbor.identifier());
+		Worker.ReadFileMessage message = new Worker.ReadFileMessage(miner.getRef(), minerProxy.getRef(), 4, "data/TPCH/tpch_nation.csv", parserConfiguration);
+		byte[] bytes = toBinary(cbor, message);
+		assertFalse(new String(bytes, StandardCharsets.ISO_8859_1).contains("inputPath"));
+		assertFalse(new String(bytes, StandardCharsets.ISO_8859_1).contains("inputFiles"));
+
+		Worker.ReadFileMessage copy = (Worker.ReadFileMessage) serialization().deserialize(bytes, cbor.identifier(), Serializers.manifestFor(cbor, message)).get();
+		assertEquals(miner.getRef(), copy.getDependencyMiner());
+		assertEquals(minerProxy.getRef(), copy.getDependencyMinerProxy());
+		assertEquals(4, copy.getFileId());
+		assertEquals("data/TPCH/tpch_nation.csv", copy.getFilePath());
+		assertEquals(parserConfiguration, copy.getParserConfiguration());
+		assertEquals(StandardCharsets.ISO_8859_1, copy.getParserConfiguration().getCharset());
+		assertEquals("cache", copy.getParserConfiguration().getInputCachePath());
+	}
+
+	private static byte[] toBinary(Serializer serializer, Object message) {
+		// Jackson resolves ActorRefs through the transport information that Akka sets for every remote message.
+		return Serialization$.MODULE$.withTransportInformation(serialization().system(), () -> serializer.toBinary(message));
+	}
+}
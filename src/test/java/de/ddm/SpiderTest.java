@@ -0,0 +1,41 @@
+package de.ddm;
+
+import de.ddm.algorithms.ContainmentCheck;
+import de.ddm.algorithms.Spider;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpiderTest {
+
+	@Test
+	public void testSpiderMatchesPairwiseChecks() {
+		Random random = new Random(7);
+		List<int[]> columns = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			int domain = 1 + random.nextInt(50);
+			IntOpenHashSet values = new IntOpenHashSet();
+			for (int j = random.nextInt(domain + 1); j > 0; j--)
+				values.add(random.nextInt(domain));
+			int[] column = values.toIntArray();
+			Arrays.sort(column);
+			columns.add(column);
+		}
+
+		BitSet[] referenced = Spider.discover(columns);
+
+		for (int dependent = 0; dependent < columns.size(); dependent++) {
+			for (int candidate = 0; candidate < columns.size(); candidate++) {
+				boolean expected = dependent != candidate && ContainmentCheck.SORT_MERGE.isContained(columns.get(dependent), columns.get(candidate));
+				assertEquals(dependent + " c " + candidate, expected, referenced[dependent].get(candidate));
+			}
+		}
+	}
+}
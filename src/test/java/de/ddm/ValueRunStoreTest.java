@@ -0,0 +1,75 @@
+package de.ddm;
+
+import de.ddm.structures.ColumnStore;
+import de.ddm.structures.ValueRunStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ValueRunStoreTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testMergedRunsEncodeValuesByRank() throws Exception {
+		Random random = new Random(5);
+		List<Set<String>> expected = new ArrayList<>();
+		TreeSet<String> allValues = new TreeSet<>(ValueRunStore.ORDER);
+		File spillParent = this.temporaryFolder.newFolder();
+
+		// Both stores get budgets far below the size of the values, so runs and columns spill while they are added and merged.
+		try (ValueRunStore runs = new ValueRunStore(200000, spillParent); ColumnStore columns = new ColumnStore(20000, spillParent)) {
+			int[] runIds = new int[20];
+			for (int i = 0; i < runIds.length; i++) {
+				Set<String> values = new HashSet<>();
+				for (int j = random.nextInt(i % 3 == 0 ? 20000 : 200); j > 0; j--)
+					values.add(random.nextInt(50) == 0 ? null : "vä" + random.nextInt(30000));
+				expected.add(values);
+				allValues.addAll(values);
+				runIds[i] = runs.add(values.toArray(new String[0]));
+				assertEquals(values.size(), runs.size(runIds[i]));
+			}
+			assertTrue(runs.getSpilledRuns() > 0);
+			assertTrue(runs.getBytesInMemory() <= 200000);
+
+			int[] sizes = new int[runIds.length];
+			for (int i = 0; i < runIds.length; i++)
+				sizes[i] = runs.size(runIds[i]);
+			ColumnStore.ColumnWriter writer = columns.addColumns(sizes, runs.getBytesInMemory() / Integer.BYTES);
+			assertEquals(allValues.size(), runs.encode(runIds, writer));
+			writer.close();
+			assertTrue(columns.getSpilledColumns() > 0);
+			assertTrue(columns.getValuesInMemory() <= 20000);
+
+			// Every value is encoded with its rank among all distinct values, so the columns ascend and equal values share ids.
+			Map<String, Integer> ranks = new HashMap<>();
+			for (String value : allValues)
+				ranks.put(value, ranks.size());
+			for (int i = 0; i < runIds.length; i++) {
+				TreeSet<String> sorted = new TreeSet<>(ValueRunStore.ORDER);
+				sorted.addAll(expected.get(i));
+				int[] column = new int[sorted.size()];
+				int position = 0;
+				for (String value : sorted)
+					column[position++] = ranks.get(value);
+				assertArrayEquals(column, columns.get(i));
+			}
+		}
+		assertEquals(0, spillParent.listFiles().length);
+	}
+}
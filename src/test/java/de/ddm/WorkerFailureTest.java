@@ -0,0 +1,286 @@
+package de.ddm;
+
+import akka.actor.testkit.typed.javadsl.ActorTestKit;
+import akka.actor.testkit.typed.javadsl.FishingOutcomes;
+import akka.actor.testkit.typed.javadsl.TestProbe;
+import akka.actor.typed.ActorRef;
+import akka.actor.typed.receptionist.Receptionist;
+import akka.cluster.typed.Cluster;
+import akka.cluster.typed.Join;
+import com.typesafe.config.ConfigFactory;
+import de.ddm.actors.Guardian;
+import de.ddm.actors.Worker;
+import de.ddm.actors.patterns.LargeMessageProxy;
+import de.ddm.actors.patterns.Reaper;
+import de.ddm.actors.profiling.DependencyMiner;
+import de.ddm.actors.profiling.DependencyWorker;
+import de.ddm.actors.profiling.ResultCollector;
+import de.ddm.configuration.SystemConfiguration;
+import de.ddm.metrics.Metrics;
+import de.ddm.singletons.DomainConfigurationSingleton;
+import de.ddm.singletons.InputConfigurationSingleton;
+import de.ddm.singletons.MetricsSingleton;
+import de.ddm.singletons.ReaperSingleton;
+import de.ddm.singletons.SystemConfigurationSingleton;
+import de.ddm.structures.ResultSink;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WorkerFailureTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	private ActorTestKit testKit;
+	private TestProbe<Guardian.Message> guardian;
+	private String resultFileName;
+	private String inputPath;
+	private long leaseTimeout;
+	private SystemConfiguration.DiscoveryEngine engine;
+	private int expectedWorkers;
+	private ActorRef<Reaper.Message> reaper;
+	private Metrics metrics;
+
+	/**
+	 * A dependency worker on its own node; the node's column cache and large message proxy are never used by the miner here.
+	 */
+	private static class Node {
+		final TestProbe<DependencyWorker.Message> dependencyWorker;
+		final TestProbe<Worker.Message> worker;
+		final TestProbe<LargeMessageProxy.Message> largeMessageProxy;
+
+		Node(ActorTestKit testKit) {
+			this.dependencyWorker = testKit.createTestProbe();
+			this.worker = testKit.createTestProbe();
+			this.largeMessageProxy = testKit.createTestProbe();
+		}
+
+		void register(ActorRef<DependencyMiner.Message> dependencyMiner) {
+			dependencyMiner.tell(new DependencyMiner.RegistrationMessage(this.dependencyWorker.getRef(), this.worker.getRef(), this.largeMessageProxy.getRef()));
+		}
+
+		void renewLease(ActorRef<DependencyMiner.Message> dependencyMiner) {
+			dependencyMiner.tell(new DependencyMiner.LeaseRenewalMessage(this.worker.getRef(), Collections.singletonList(this.dependencyWorker.getRef())));
+		}
+
+		DependencyWorker.TaskMessage receiveTask() {
+			return this.dependencyWorker.expectMessageClass(DependencyWorker.TaskMessage.class, TIMEOUT);
+		}
+
+		void complete(ActorRef<DependencyMiner.Message> dependencyMiner, DependencyWorker.TaskMessage taskMessage) {
+			// Every candidate is reported as valid, so that each decided candidate shows up as exactly one line in the results.
+			BitSet results = new BitSet();
+			results.set(0, taskMessage.getTask().getReferencedColumnIds().length);
+			dependencyMiner.tell(new DependencyMiner.CompletionMessage(this.dependencyWorker.getRef(), taskMessage.getTask().getId(),
+					taskMessage.getTask().getDependentColumnId(), taskMessage.getTask().getReferencedColumnIds(), results.toLongArray(), 0));
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		this.inputPath = InputConfigurationSingleton.get().getInputPath();
+		this.leaseTimeout = SystemConfigurationSingleton.get().getLeaseTimeout();
+		this.engine = SystemConfigurationSingleton.get().getEngine();
+		this.expectedWorkers = SystemConfigurationSingleton.get().getExpectedWorkers();
+		this.reaper = ReaperSingleton.get();
+		this.metrics = MetricsSingleton.get();
+		MetricsSingleton.set(new Metrics(null));
+
+		// The miner shuts its actor system down once it is done, so every test runs in a system of its own.
+		this.testKit = ActorTestKit.create(this.getClass().getSimpleName(),
+				ConfigFactory.parseString("akka.remote.artery.canonical.port = 0").withFallback(SystemConfigurationSingleton.get().toAkkaTestConfig()));
+		ReaperSingleton.set(this.testKit.<Reaper.Message>createTestProbe().getRef());
+		this.guardian = this.testKit.createTestProbe();
+		this.resultFileName = new File(this.temporaryFolder.getRoot(), "results.txt").getPath();
+	}
+
+	@After
+	public void tearDown() {
+		this.testKit.shutdownTestKit();
+		InputConfigurationSingleton.get().setInputPath(this.inputPath);
+		SystemConfigurationSingleton.get().setLeaseTimeout(this.leaseTimeout);
+		SystemConfigurationSingleton.get().setEngine(this.engine);
+		SystemConfigurationSingleton.get().setExpectedWorkers(this.expectedWorkers);
+		ReaperSingleton.set(this.reaper);
+		MetricsSingleton.set(this.metrics);
+	}
+
+	private ActorRef<DependencyMiner.Message> spawnDependencyMiner() {
+		// The results go to a temporary file, and the shutdown request that follows them goes to a probe instead of the testkit's guardian.
+		return this.testKit.spawn(DependencyMiner.create(ResultCollector.create(this.resultFileName, this.guardian.getRef())), DependencyMiner.DEFAULT_NAME);
+	}
+
+	private void writeSmallInput() throws Exception {
+		// Two columns with 2 distinct values each and one with 3 make 4 candidates, which the miner cuts into 4 tasks for 2 workers.
+		File inputDirectory = this.temporaryFolder.newFolder("input");
+		Files.write(new File(inputDirectory, "tpch_a.csv").toPath(), "X;Y\n1;a\n2;b\n".getBytes(StandardCharsets.UTF_8));
+		Files.write(new File(inputDirectory, "tpch_b.csv").toPath(), "Z\n1\n2\n3\n".getBytes(StandardCharsets.UTF_8));
+		InputConfigurationSingleton.get().setInputPath(inputDirectory.getPath());
+	}
+
+	@Test
+	public void testTasksOfKilledNodesAreReassigned() throws Exception {
+		// Column i holds the values 0 to n_i - 1 with distinct n_i, so it is included in exactly the columns that are longer.
+		int numColumns = 300;
+		File inputDirectory = this.temporaryFolder.newFolder("input");
+		for (int i = 0; i < numColumns; i++) {
+			StringBuilder file = new StringBuilder("C\n");
+			for (int value = 0; value < 2000 + 20 * i; value++)
+				file.append(value).append('\n');
+			Files.write(new File(inputDirectory, String.format("tpch_c%03d.csv", i)).toPath(), file.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		InputConfigurationSingleton.get().setInputPath(inputDirectory.getPath());
+
+		// Node B is a second actor system that joins the cluster of node A, which also hosts the miner.
+		ActorTestKit nodeB = ActorTestKit.create(this.getClass().getSimpleName(),
+				ConfigFactory.parseString("akka.remote.artery.canonical.port = 0").withFallback(SystemConfigurationSingleton.get().toAkkaTestConfig()));
+		try {
+			Cluster.get(this.testKit.system()).manager().tell(Join.create(Cluster.get(this.testKit.system()).selfMember().address()));
+			Cluster.get(nodeB.system()).manager().tell(Join.create(Cluster.get(this.testKit.system()).selfMember().address()));
+			ActorRef<DependencyMiner.Message> dependencyMiner = this.spawnDependencyMiner();
+			this.testKit.spawn(Worker.create(), Worker.DEFAULT_NAME);
+			nodeB.spawn(Worker.create(), Worker.DEFAULT_NAME);
+
+			// The workers of node B register with the miner once the receptionist of node B lists it.
+			TestProbe<Receptionist.Listing> listing = nodeB.createTestProbe();
+			nodeB.system().receptionist().tell(Receptionist.subscribe(DependencyMiner.dependencyMinerService, listing.getRef()));
+			listing.fishForMessage(Duration.ofSeconds(30), message -> message.getServiceInstances(DependencyMiner.dependencyMinerService).isEmpty()
+					? FishingOutcomes.continueAndIgnore() : FishingOutcomes.complete());
+			dependencyMiner.tell(new DependencyMiner.StartMessage());
+
+			// Node B leaves the cluster for good as soon as the validation is under way.
+			Metrics.Gauge tasksDone = MetricsSingleton.get().group("DependencyMiner", null).gauge("tasksDone");
+			long deadline = System.currentTimeMillis() + TIMEOUT.toMillis();
+			while (tasksDone.get() == 0 && System.currentTimeMillis() < deadline)
+				Thread.sleep(10);
+			assertTrue(tasksDone.get() > 0);
+			nodeB.shutdownTestKit();
+
+			this.guardian.expectMessageClass(Guardian.ShutdownMessage.class, Duration.ofSeconds(60));
+			this.assertResults(numColumns * (numColumns - 1) / 2);
+		} finally {
+			nodeB.shutdownTestKit();
+		}
+	}
+
+	@Test
+	public void testExpiredLeasesAreReclaimedAndRenewed() throws Exception {
+		this.writeSmallInput();
+		SystemConfigurationSingleton.get().setLeaseTimeout(1000);
+		ActorRef<DependencyMiner.Message> dependencyMiner = this.spawnDependencyMiner();
+		Node nodeA = new Node(this.testKit);
+		Node nodeB = new Node(this.testKit);
+		nodeA.register(dependencyMiner);
+		nodeB.register(dependencyMiner);
+		dependencyMiner.tell(new DependencyMiner.StartMessage());
+
+		Set<Integer> expiredTasks = new HashSet<>();
+		for (int i = 0; i < DomainConfigurationSingleton.get().getWorkerTaskQueueSize(); i++)
+			expiredTasks.add(nodeA.receiveTask().getTask().getId());
+		DependencyWorker.TaskMessage last = nodeB.receiveTask();
+
+		// Only node B keeps renewing its lease, so node A loses its tasks.
+		for (int i = 0; i < 15; i++) {
+			nodeB.renewLease(dependencyMiner);
+			Thread.sleep(200);
+		}
+		nodeA.dependencyWorker.expectNoMessage(Duration.ZERO);
+
+		// Once node A is back, it gets the reclaimed tasks again; each of its duplicate completions counts only once.
+		nodeA.renewLease(dependencyMiner);
+		Set<Integer> returnedTasks = new HashSet<>();
+		for (int i = 0; i < expiredTasks.size(); i++) {
+			DependencyWorker.TaskMessage taskMessage = nodeA.receiveTask();
+			returnedTasks.add(taskMessage.getTask().getId());
+			nodeA.complete(dependencyMiner, taskMessage);
+			nodeA.complete(dependencyMiner, taskMessage);
+		}
+		assertEquals(expiredTasks, returnedTasks);
+		nodeB.complete(dependencyMiner, last);
+
+		this.guardian.expectMessageClass(Guardian.ShutdownMessage.class, TIMEOUT);
+		this.assertResults(4);
+		nodeA.worker.expectNoMessage(Duration.ZERO);
+	}
+
+	@Test
+	public void testForgottenWorkersAreAskedToRegisterAgain() throws Exception {
+		this.writeSmallInput();
+		ActorRef<DependencyMiner.Message> dependencyMiner = this.spawnDependencyMiner();
+
+		// The miner does not know the dependency worker, e.g. because it took its node for dead, so it asks the node to register it.
+		Node node = new Node(this.testKit);
+		node.renewLease(dependencyMiner);
+		assertEquals(dependencyMiner, node.worker.expectMessageClass(Worker.RegistrationRequestMessage.class).getDependencyMiner());
+		node.register(dependencyMiner);
+		node.renewLease(dependencyMiner);
+		node.worker.expectNoMessage();
+
+		// A real node passes the request on to its dependency workers, which register with the requesting miner.
+		TestProbe<DependencyMiner.Message> requestingMiner = this.testKit.createTestProbe();
+		ActorRef<Worker.Message> worker = this.testKit.spawn(Worker.create());
+		worker.tell(new Worker.RegistrationRequestMessage(requestingMiner.getRef()));
+		Set<ActorRef<DependencyWorker.Message>> registered = new HashSet<>();
+		for (int i = 0; i < SystemConfigurationSingleton.get().getNumWorkers(); i++) {
+			DependencyMiner.RegistrationMessage registration = requestingMiner.expectMessageClass(DependencyMiner.RegistrationMessage.class);
+			assertEquals(worker, registration.getWorker());
+			registered.add(registration.getDependencyWorker());
+		}
+		assertEquals(SystemConfigurationSingleton.get().getNumWorkers(), registered.size());
+		requestingMiner.expectNoMessage();
+	}
+
+	@Test
+	public void testBinderWaitsForItsWorkersAndAbortsWithoutAPartitionOwner() throws Exception {
+		this.writeSmallInput();
+		SystemConfigurationSingleton.get().setEngine(SystemConfiguration.DiscoveryEngine.BINDER);
+		SystemConfigurationSingleton.get().setExpectedWorkers(2);
+		ActorRef<DependencyMiner.Message> dependencyMiner = this.spawnDependencyMiner();
+		Node nodeA = new Node(this.testKit);
+		Node nodeB = new Node(this.testKit);
+		nodeA.register(dependencyMiner);
+		dependencyMiner.tell(new DependencyMiner.StartMessage());
+
+		// The partitions are not fixed while fewer workers than expected have registered.
+		nodeA.largeMessageProxy.expectNoMessage(Duration.ofMillis(500));
+		nodeB.register(dependencyMiner);
+		for (Node node : new Node[]{nodeA, nodeB}) {
+			LargeMessageProxy.HandOverMessage handOver = node.largeMessageProxy.expectMessageClass(LargeMessageProxy.HandOverMessage.class, TIMEOUT);
+			assertTrue(handOver.getMessage() instanceof DependencyWorker.PartitionMessage);
+			assertEquals(3, node.dependencyWorker.expectMessageClass(DependencyWorker.ValidatePartitionMessage.class, TIMEOUT).getNumColumns());
+		}
+
+		// Only node A holds the values of its partition, so the miner gives up once node A dies before it reports.
+		dependencyMiner.tell(new DependencyMiner.PartitionResultMessage(nodeB.dependencyWorker.getRef(), 0, new long[3][1]));
+		this.guardian.expectNoMessage(Duration.ofMillis(200));
+		nodeA.dependencyWorker.stop();
+		this.guardian.expectMessageClass(Guardian.ShutdownMessage.class, TIMEOUT);
+		this.assertResults(0);
+	}
+
+	private void assertResults(int expectedINDs) throws Exception {
+		// The result collector has closed its sink before it asks for the shutdown, so the file is complete.
+		File resultFile = ResultSink.resultFile(this.resultFileName, ResultSink.createEncoder(SystemConfigurationSingleton.get().getResultFormat()));
+		List<String> lines = Files.readAllLines(resultFile.toPath());
+		assertEquals(expectedINDs, lines.size());
+		assertEquals(expectedINDs, new HashSet<>(lines).size());
+	}
+}